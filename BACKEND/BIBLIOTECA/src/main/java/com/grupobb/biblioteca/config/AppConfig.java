@@ -20,7 +20,9 @@ public class AppConfig {
                             "https://proyecto-avanzada-p1.onrender.com"
                         )
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                        .allowedHeaders("*");
+                        .allowedHeaders("*")
+                        // Permite al frontend leer el ETag de los listados
+                        .exposedHeaders("ETag");
             }
         };
     }
@@ -0,0 +1,73 @@
+package com.grupobb.biblioteca.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Muestreo y límite de tasa de los logs por elemento de una categoría (logback-spring.xml).
+ *
+ * Se aplica a los loggers cuyo nombre empieza con `category`: deja pasar uno de cada
+ * `sampleEvery` mensajes y como máximo `maxPerSecond` por segundo. Corre antes de crear
+ * el evento, así que un mensaje descartado no cuesta formateo ni lugar en la cola async.
+ * Los mensajes de otros loggers no se tocan y ERROR nunca se descarta.
+ */
+public class LogSamplingFilter extends TurboFilter {
+
+    private String category;
+    private int sampleEvery = 1;
+    private int maxPerSecond = Integer.MAX_VALUE;
+
+    private final AtomicLong vistos = new AtomicLong();
+    private final AtomicLong descartados = new AtomicLong();
+    // Ventana de un segundo: [segundo actual, mensajes aceptados en ese segundo]
+    private final AtomicLong ventana = new AtomicLong();
+    private final AtomicLong aceptadosEnVentana = new AtomicLong();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+        if (category == null || logger == null || !logger.getName().startsWith(category)
+                || (level != null && level.isGreaterOrEqual(Level.ERROR))) {
+            return FilterReply.NEUTRAL;
+        }
+        // Sin nivel (isXxxEnabled) no se cuenta: solo se decide al registrar el mensaje
+        if (format == null) {
+            return FilterReply.NEUTRAL;
+        }
+        if (vistos.getAndIncrement() % sampleEvery != 0 || !dentroDeLaTasa()) {
+            descartados.incrementAndGet();
+            return FilterReply.DENY;
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    private boolean dentroDeLaTasa() {
+        long segundo = System.nanoTime() / 1_000_000_000L;
+        long actual = ventana.get();
+        if (segundo != actual && ventana.compareAndSet(actual, segundo)) {
+            aceptadosEnVentana.set(0);
+        }
+        return aceptadosEnVentana.incrementAndGet() <= maxPerSecond;
+    }
+
+    public long getDescartados() {
+        return descartados.get();
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = Math.max(1, sampleEvery);
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        this.maxPerSecond = Math.max(0, maxPerSecond);
+    }
+}
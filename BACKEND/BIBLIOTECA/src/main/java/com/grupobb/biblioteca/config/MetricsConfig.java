@@ -0,0 +1,23 @@
+package com.grupobb.biblioteca.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.observability.micrometer.Micrometer;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class MetricsConfig {
+
+    public static final String SCHEDULER_METRICS = "biblioteca.reactor.scheduler";
+
+    // Scheduler propio del análisis en segundo plano, instrumentado con Micrometer
+    // (tareas enviadas, en espera, activas y su duración: biblioteca.reactor.scheduler.*)
+    @Bean(destroyMethod = "dispose")
+    public Scheduler analysisScheduler(MeterRegistry registry) {
+        return Micrometer.timedScheduler(Schedulers.newParallel("analisis"), registry,
+                SCHEDULER_METRICS, Tags.of("name", "analisis"));
+    }
+}
@@ -13,6 +13,8 @@ public class WebConfig implements WebMvcConfigurer {
     private RequestLoggingInterceptor loggingInterceptor;
 
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(loggingInterceptor).addPathPatterns("/api/**");
+        // El stream de métricas dura lo que la conexión: no es una latencia de petición
+        registry.addInterceptor(loggingInterceptor).addPathPatterns("/api/**")
+                .excludePathPatterns("/api/metrics/stream");
     }
 }
@@ -25,8 +25,9 @@ public class Book {
     private String titulo;
 
     // Relación con Author; por simplicidad no usamos cascade aquí.
+    // LAZY: las consultas que necesitan el autor lo traen con un entity graph.
     @NotNull(message = "El autor es obligatorio")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "autor_id")
     private Author autor;
 
@@ -0,0 +1,64 @@
+package com.grupobb.biblioteca.domain;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Entidad JPA que representa la tabla `cambios` (registro de cambios).
+ *
+ * Cada fila se escribe en la misma transacción que la mutación que describe, así que
+ * un cambio revertido no queda registrado. El id autogenerado es la versión monótona
+ * que usan los clientes para pedir "lo que cambió desde la versión N".
+ *
+ * Campos:
+ * - id: versión (PK autogenerada, creciente)
+ * - entidad / entidadId: colección (AUTHOR, BOOK, USER, LOAN) y fila afectadas
+ * - tipo: CREATED, UPDATED o DELETED
+ * - payload: DTO de respuesta en JSON (último estado conocido en DELETED)
+ * - fecha: momento del registro
+ */
+@Entity
+@Table(name = "cambios", indexes = {
+        // Lectura del registro por colección a partir de una versión
+        @Index(name = "idx_cambios_entidad_id", columnList = "entidad, id")
+})
+public class ChangeLogEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 16)
+    private String entidad;
+
+    @Column(name = "entidad_id", nullable = false)
+    private Long entidadId;
+
+    @Column(nullable = false, length = 16)
+    private String tipo;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant fecha;
+
+    public ChangeLogEntry() {}
+
+    public ChangeLogEntry(String entidad, Long entidadId, String tipo, String payload, Instant fecha) {
+        this.entidad = entidad;
+        this.entidadId = entidadId;
+        this.tipo = tipo;
+        this.payload = payload;
+        this.fecha = fecha;
+    }
+
+    public Long getId() { return id; }
+    public String getEntidad() { return entidad; }
+    public Long getEntidadId() { return entidadId; }
+    public String getTipo() { return tipo; }
+    public String getPayload() { return payload; }
+    public Instant getFecha() { return fecha; }
+}
@@ -10,7 +10,12 @@ import java.time.LocalDate;
  * Esta entidad enlaza `usuarios` y `libros` y contiene fechas de préstamo y devolución.
  */
 @Entity
-@Table(name = "prestamos")
+@Table(name = "prestamos", indexes = {
+        // Paginación por cursor (id) filtrando préstamos activos/devueltos
+        @Index(name = "idx_prestamos_devolucion_id", columnList = "fecha_devolucion, id"),
+        // Filtro por rango de fecha de préstamo
+        @Index(name = "idx_prestamos_fecha_prestamo_id", columnList = "fecha_prestamo, id")
+})
 public class Loan {
 
     @Id
@@ -18,14 +23,15 @@ public class Loan {
     private Long id;
 
     // Usuario que realizó el préstamo (FK usuario_id).
+    // Las asociaciones son LAZY: los listados y el detalle las traen con un entity graph.
     @NotNull(message = "El usuario es obligatorio")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id")
     private User usuario;
 
     // Libro prestado (FK libro_id).
     @NotNull(message = "El libro es obligatorio")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "libro_id")
     private Book libro;
 
@@ -0,0 +1,136 @@
+package com.grupobb.biblioteca.dto.Analysis;
+
+/**
+ * Estado y contadores del motor de análisis en segundo plano.
+ */
+public class AnalysisStatsResponse {
+
+    private int queueDepth;
+    private int running;
+    private long submitted;
+    private long coalesced;
+    private long cancelled;
+    private long rejected;
+    private long completed;
+    private long processed;
+    private long errors;
+    private long timedOutChunks;
+    private long throughputPerSecond;
+    private long queueLagMs;
+
+    public AnalysisStatsResponse() {
+    }
+
+    public AnalysisStatsResponse(int queueDepth, int running, long submitted, long coalesced, long cancelled,
+                                 long rejected, long completed, long processed, long errors,
+                                 long timedOutChunks, long throughputPerSecond, long queueLagMs) {
+        this.queueDepth = queueDepth;
+        this.running = running;
+        this.submitted = submitted;
+        this.coalesced = coalesced;
+        this.cancelled = cancelled;
+        this.rejected = rejected;
+        this.completed = completed;
+        this.processed = processed;
+        this.errors = errors;
+        this.timedOutChunks = timedOutChunks;
+        this.throughputPerSecond = throughputPerSecond;
+        this.queueLagMs = queueLagMs;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public int getRunning() {
+        return running;
+    }
+
+    public void setRunning(int running) {
+        this.running = running;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public void setSubmitted(long submitted) {
+        this.submitted = submitted;
+    }
+
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    public void setCoalesced(long coalesced) {
+        this.coalesced = coalesced;
+    }
+
+    public long getCancelled() {
+        return cancelled;
+    }
+
+    public void setCancelled(long cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+        this.completed = completed;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public void setErrors(long errors) {
+        this.errors = errors;
+    }
+
+    public long getTimedOutChunks() {
+        return timedOutChunks;
+    }
+
+    public void setTimedOutChunks(long timedOutChunks) {
+        this.timedOutChunks = timedOutChunks;
+    }
+
+    public long getThroughputPerSecond() {
+        return throughputPerSecond;
+    }
+
+    public void setThroughputPerSecond(long throughputPerSecond) {
+        this.throughputPerSecond = throughputPerSecond;
+    }
+
+    public long getQueueLagMs() {
+        return queueLagMs;
+    }
+
+    public void setQueueLagMs(long queueLagMs) {
+        this.queueLagMs = queueLagMs;
+    }
+}
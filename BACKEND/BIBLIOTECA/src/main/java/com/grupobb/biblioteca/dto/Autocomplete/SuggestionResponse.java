@@ -0,0 +1,31 @@
+package com.grupobb.biblioteca.dto.Autocomplete;
+
+public class SuggestionResponse {
+
+    private Long id;
+    private String texto;
+
+    public SuggestionResponse() {
+    }
+
+    public SuggestionResponse(Long id, String texto) {
+        this.id = id;
+        this.texto = texto;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTexto() {
+        return texto;
+    }
+
+    public void setTexto(String texto) {
+        this.texto = texto;
+    }
+}
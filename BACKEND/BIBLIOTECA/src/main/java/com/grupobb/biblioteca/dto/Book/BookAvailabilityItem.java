@@ -0,0 +1,34 @@
+package com.grupobb.biblioteca.dto.Book;
+
+/**
+ * Disponibilidad de un libro en la instantánea compacta (solo id y estado).
+ */
+public class BookAvailabilityItem {
+
+    private Long id;
+    private boolean disponible;
+
+    public BookAvailabilityItem() {
+    }
+
+    public BookAvailabilityItem(Long id, boolean disponible) {
+        this.id = id;
+        this.disponible = disponible;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public boolean isDisponible() {
+        return disponible;
+    }
+
+    public void setDisponible(boolean disponible) {
+        this.disponible = disponible;
+    }
+}
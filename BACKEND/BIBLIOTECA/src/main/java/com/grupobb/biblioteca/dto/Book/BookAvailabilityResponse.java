@@ -0,0 +1,48 @@
+package com.grupobb.biblioteca.dto.Book;
+
+import java.util.List;
+
+/**
+ * Instantánea compacta de la disponibilidad de todos los libros.
+ * seq y epoch son los del flujo de cambios al tomarla: el cliente sigue por /ws con
+ * ?fromSeq=seq&epoch=epoch y descarta los deltas con secuencia menor o igual a seq.
+ */
+public class BookAvailabilityResponse {
+
+    private long seq;
+    private String epoch;
+    private List<BookAvailabilityItem> items;
+
+    public BookAvailabilityResponse() {
+    }
+
+    public BookAvailabilityResponse(long seq, String epoch, List<BookAvailabilityItem> items) {
+        this.seq = seq;
+        this.epoch = epoch;
+        this.items = items;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(String epoch) {
+        this.epoch = epoch;
+    }
+
+    public List<BookAvailabilityItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BookAvailabilityItem> items) {
+        this.items = items;
+    }
+}
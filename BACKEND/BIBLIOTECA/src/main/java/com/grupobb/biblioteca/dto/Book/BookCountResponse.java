@@ -0,0 +1,44 @@
+package com.grupobb.biblioteca.dto.Book;
+
+/**
+ * Cantidad de libros, disponibles y prestados (bitmap de disponibilidad en memoria).
+ */
+public class BookCountResponse {
+
+    private int total;
+    private int disponibles;
+    private int prestados;
+
+    public BookCountResponse() {
+    }
+
+    public BookCountResponse(int total, int disponibles, int prestados) {
+        this.total = total;
+        this.disponibles = disponibles;
+        this.prestados = prestados;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getDisponibles() {
+        return disponibles;
+    }
+
+    public void setDisponibles(int disponibles) {
+        this.disponibles = disponibles;
+    }
+
+    public int getPrestados() {
+        return prestados;
+    }
+
+    public void setPrestados(int prestados) {
+        this.prestados = prestados;
+    }
+}
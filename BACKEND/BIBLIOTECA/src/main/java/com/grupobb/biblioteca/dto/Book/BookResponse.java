@@ -8,6 +8,18 @@ public class BookResponse {
     private String autorNombre;
     private boolean disponible;
 
+    public BookResponse() {
+    }
+
+    // Usado por las consultas de proyección (JPQL "select new ...")
+    public BookResponse(Long id, String titulo, Long autorId, String autorNombre, boolean disponible) {
+        this.id = id;
+        this.titulo = titulo;
+        this.autorId = autorId;
+        this.autorNombre = autorNombre;
+        this.disponible = disponible;
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,56 @@
+package com.grupobb.biblioteca.dto.Change;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Un cambio del feed: "upsert" con el estado actual de la fila, o "delete"
+ * (tombstone) con solo el id.
+ */
+public class ChangeFeedItem {
+
+    private long version;
+    private Long id;
+    private String op;
+    private JsonNode data;
+
+    public ChangeFeedItem() {}
+
+    public ChangeFeedItem(long version, Long id, String op, JsonNode data) {
+        this.version = version;
+        this.id = id;
+        this.op = op;
+        this.data = data;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public JsonNode getData() {
+        return data;
+    }
+
+    public void setData(JsonNode data) {
+        this.data = data;
+    }
+}
@@ -0,0 +1,47 @@
+package com.grupobb.biblioteca.dto.Change;
+
+import java.util.List;
+
+/**
+ * Página del feed de cambios de una colección.
+ * nextSince es la versión a enviar como `since` en el siguiente pedido; hasMore indica
+ * que hay más cambios disponibles sin esperar.
+ */
+public class ChangeFeedResponse {
+
+    private List<ChangeFeedItem> items;
+    private long nextSince;
+    private boolean hasMore;
+
+    public ChangeFeedResponse() {}
+
+    public ChangeFeedResponse(List<ChangeFeedItem> items, long nextSince, boolean hasMore) {
+        this.items = items;
+        this.nextSince = nextSince;
+        this.hasMore = hasMore;
+    }
+
+    public List<ChangeFeedItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ChangeFeedItem> items) {
+        this.items = items;
+    }
+
+    public long getNextSince() {
+        return nextSince;
+    }
+
+    public void setNextSince(long nextSince) {
+        this.nextSince = nextSince;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
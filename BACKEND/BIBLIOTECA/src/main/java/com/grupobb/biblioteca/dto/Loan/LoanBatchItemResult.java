@@ -0,0 +1,97 @@
+package com.grupobb.biblioteca.dto.Loan;
+
+/**
+ * Resultado de un elemento dentro de una operación en lote.
+ * Si exitoso es true, prestamo contiene el préstamo resultante; si no, error indica el motivo.
+ */
+public class LoanBatchItemResult {
+
+    private Long prestamoId;
+    private Long usuarioId;
+    private Long libroId;
+    private boolean exitoso;
+    private LoanResponse prestamo;
+    private String error;
+
+    public static LoanBatchItemResult ok(Long usuarioId, Long libroId, LoanResponse prestamo) {
+        LoanBatchItemResult r = new LoanBatchItemResult();
+        r.setUsuarioId(usuarioId);
+        r.setLibroId(libroId);
+        r.setExitoso(true);
+        r.setPrestamo(prestamo);
+        return r;
+    }
+
+    public static LoanBatchItemResult failed(Long usuarioId, Long libroId, String error) {
+        LoanBatchItemResult r = new LoanBatchItemResult();
+        r.setUsuarioId(usuarioId);
+        r.setLibroId(libroId);
+        r.setExitoso(false);
+        r.setError(error);
+        return r;
+    }
+
+    public static LoanBatchItemResult returned(Long prestamoId, LoanResponse prestamo) {
+        LoanBatchItemResult r = new LoanBatchItemResult();
+        r.setPrestamoId(prestamoId);
+        r.setExitoso(true);
+        r.setPrestamo(prestamo);
+        return r;
+    }
+
+    public static LoanBatchItemResult returnFailed(Long prestamoId, String error) {
+        LoanBatchItemResult r = new LoanBatchItemResult();
+        r.setPrestamoId(prestamoId);
+        r.setExitoso(false);
+        r.setError(error);
+        return r;
+    }
+
+    public Long getPrestamoId() {
+        return prestamoId;
+    }
+
+    public void setPrestamoId(Long prestamoId) {
+        this.prestamoId = prestamoId;
+    }
+
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+
+    public void setUsuarioId(Long usuarioId) {
+        this.usuarioId = usuarioId;
+    }
+
+    public Long getLibroId() {
+        return libroId;
+    }
+
+    public void setLibroId(Long libroId) {
+        this.libroId = libroId;
+    }
+
+    public boolean isExitoso() {
+        return exitoso;
+    }
+
+    public void setExitoso(boolean exitoso) {
+        this.exitoso = exitoso;
+    }
+
+    public LoanResponse getPrestamo() {
+        return prestamo;
+    }
+
+    public void setPrestamo(LoanResponse prestamo) {
+        this.prestamo = prestamo;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
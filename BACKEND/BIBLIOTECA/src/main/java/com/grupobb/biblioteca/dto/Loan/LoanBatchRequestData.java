@@ -0,0 +1,23 @@
+package com.grupobb.biblioteca.dto.Loan;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class LoanBatchRequestData {
+
+    // Pares (usuarioId, libroId) a prestar en una sola transacción
+    @NotEmpty(message = "La lista de préstamos no puede estar vacía")
+    @Size(max = 200, message = "No se pueden procesar más de 200 préstamos por lote")
+    private List<@Valid LoanRequestData> items;
+
+    public List<LoanRequestData> getItems() {
+        return items;
+    }
+
+    public void setItems(List<LoanRequestData> items) {
+        this.items = items;
+    }
+}
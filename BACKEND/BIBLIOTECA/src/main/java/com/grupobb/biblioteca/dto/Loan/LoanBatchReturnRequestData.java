@@ -0,0 +1,23 @@
+package com.grupobb.biblioteca.dto.Loan;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class LoanBatchReturnRequestData {
+
+    // Ids de los préstamos a devolver en una sola transacción
+    @NotEmpty(message = "La lista de préstamos no puede estar vacía")
+    @Size(max = 500, message = "No se pueden devolver más de 500 préstamos por lote")
+    private List<@NotNull(message = "El id del préstamo es obligatorio") Long> ids;
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+}
@@ -0,0 +1,36 @@
+package com.grupobb.biblioteca.dto.Loan;
+
+import java.util.List;
+
+/**
+ * Página de préstamos obtenida por cursor.
+ * nextCursor es el id a enviar como `after` para pedir la siguiente página (null si no hay más).
+ */
+public class LoanPageResponse {
+
+    private List<LoanResponse> items;
+    private Long nextCursor;
+
+    public LoanPageResponse() {}
+
+    public LoanPageResponse(List<LoanResponse> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<LoanResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<LoanResponse> items) {
+        this.items = items;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -12,6 +12,21 @@ public class LoanResponse {
     private LocalDate fechaPrestamo;
     private LocalDate fechaDevolucion;
 
+    public LoanResponse() {
+    }
+
+    // Usado por las consultas de proyección (JPQL "select new ...")
+    public LoanResponse(Long id, Long usuarioId, Long libroId, String usuarioNombre,
+                        String libroTitulo, LocalDate fechaPrestamo, LocalDate fechaDevolucion) {
+        this.id = id;
+        this.usuarioId = usuarioId;
+        this.libroId = libroId;
+        this.usuarioNombre = usuarioNombre;
+        this.libroTitulo = libroTitulo;
+        this.fechaPrestamo = fechaPrestamo;
+        this.fechaDevolucion = fechaDevolucion;
+    }
+
     public Long getId() {
         return id;
     }
@@ -20,7 +35,21 @@ public class LoanResponse {
         this.id = id;
     }
 
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+
+    public void setUsuarioId(Long usuarioId) {
+        this.usuarioId = usuarioId;
+    }
 
+    public Long getLibroId() {
+        return libroId;
+    }
+
+    public void setLibroId(Long libroId) {
+        this.libroId = libroId;
+    }
 
     public String getUsuarioNombre() {
         return usuarioNombre;
@@ -0,0 +1,65 @@
+package com.grupobb.biblioteca.dto.Metrics;
+
+/**
+ * Uso de un pool del servidor: conexiones a la base o hilos del análisis.
+ * max es el tamaño configurado (0 si no se conoce).
+ */
+public class PoolUsageResponse {
+
+    private String name;
+    private double active;
+    private double idle;
+    private double pending;
+    private double max;
+
+    public PoolUsageResponse() {
+    }
+
+    public PoolUsageResponse(String name, double active, double idle, double pending, double max) {
+        this.name = name;
+        this.active = active;
+        this.idle = idle;
+        this.pending = pending;
+        this.max = max;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public double getActive() {
+        return active;
+    }
+
+    public void setActive(double active) {
+        this.active = active;
+    }
+
+    public double getIdle() {
+        return idle;
+    }
+
+    public void setIdle(double idle) {
+        this.idle = idle;
+    }
+
+    public double getPending() {
+        return pending;
+    }
+
+    public void setPending(double pending) {
+        this.pending = pending;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public void setMax(double max) {
+        this.max = max;
+    }
+}
@@ -0,0 +1,86 @@
+package com.grupobb.biblioteca.dto.Metrics;
+
+/**
+ * Latencia de una ruta: percentiles y máximo (ms) de la ventana deslizante actual
+ * y total de peticiones registradas.
+ */
+public class RouteLatencyResponse {
+
+    private String method;
+    private String uri;
+    private long count;
+    private double p50;
+    private double p95;
+    private double p99;
+    private double max;
+
+    public RouteLatencyResponse() {
+    }
+
+    public RouteLatencyResponse(String method, String uri, long count, double p50, double p95, double p99,
+                                double max) {
+        this.method = method;
+        this.uri = uri;
+        this.count = count;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public void setUri(String uri) {
+        this.uri = uri;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public void setP50(double p50) {
+        this.p50 = p50;
+    }
+
+    public double getP95() {
+        return p95;
+    }
+
+    public void setP95(double p95) {
+        this.p95 = p95;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public void setP99(double p99) {
+        this.p99 = p99;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public void setMax(double max) {
+        this.max = max;
+    }
+}
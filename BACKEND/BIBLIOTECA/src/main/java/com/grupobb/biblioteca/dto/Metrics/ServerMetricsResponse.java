@@ -0,0 +1,92 @@
+package com.grupobb.biblioteca.dto.Metrics;
+
+import com.grupobb.biblioteca.dto.Analysis.AnalysisStatsResponse;
+import java.util.List;
+
+/**
+ * Muestra periódica de métricas del servidor (evento del stream GET /api/metrics/stream).
+ *
+ * Las tasas son por segundo desde la muestra anterior; `routes` son las rutas con mayor p99
+ * de la ventana deslizante de latencia.
+ */
+public class ServerMetricsResponse {
+
+    private long timestamp;
+    private double requestsPerSecond;
+    private double errorsPerSecond;
+    private List<RouteLatencyResponse> routes;
+    private AnalysisStatsResponse analysis;
+    private List<PoolUsageResponse> pools;
+    private int webSocketSessions;
+
+    public ServerMetricsResponse() {
+    }
+
+    public ServerMetricsResponse(long timestamp, double requestsPerSecond, double errorsPerSecond,
+                                 List<RouteLatencyResponse> routes, AnalysisStatsResponse analysis,
+                                 List<PoolUsageResponse> pools, int webSocketSessions) {
+        this.timestamp = timestamp;
+        this.requestsPerSecond = requestsPerSecond;
+        this.errorsPerSecond = errorsPerSecond;
+        this.routes = routes;
+        this.analysis = analysis;
+        this.pools = pools;
+        this.webSocketSessions = webSocketSessions;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    public double getErrorsPerSecond() {
+        return errorsPerSecond;
+    }
+
+    public void setErrorsPerSecond(double errorsPerSecond) {
+        this.errorsPerSecond = errorsPerSecond;
+    }
+
+    public List<RouteLatencyResponse> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(List<RouteLatencyResponse> routes) {
+        this.routes = routes;
+    }
+
+    public AnalysisStatsResponse getAnalysis() {
+        return analysis;
+    }
+
+    public void setAnalysis(AnalysisStatsResponse analysis) {
+        this.analysis = analysis;
+    }
+
+    public List<PoolUsageResponse> getPools() {
+        return pools;
+    }
+
+    public void setPools(List<PoolUsageResponse> pools) {
+        this.pools = pools;
+    }
+
+    public int getWebSocketSessions() {
+        return webSocketSessions;
+    }
+
+    public void setWebSocketSessions(int webSocketSessions) {
+        this.webSocketSessions = webSocketSessions;
+    }
+}
@@ -1,37 +1,98 @@
 package com.grupobb.biblioteca.interceptor;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la latencia de cada petición /api/** por ruta.
+ *
+ * La ruta es el patrón que resolvió el controlador (/api/books/{id}), no la URI cruda,
+ * para que todas las peticiones de un endpoint caigan en el mismo histograma. El timer
+ * `biblioteca.http.latency` guarda los tiempos en nanosegundos en histogramas HDR por
+ * ventana deslizante (p50/p95/p99 y máximo, ver /actuator/latency). No escribe en consola.
+ *
+ * Una petición asíncrona (WebAsyncTask, SSE) pasa dos veces por el interceptor: el
+ * despacho inicial termina en afterConcurrentHandlingStarted y el despacho ASYNC en
+ * afterCompletion. Se mide desde el primer preHandle hasta el final del despacho ASYNC.
+ */
 @Component
-public class RequestLoggingInterceptor implements HandlerInterceptor {
+public class RequestLoggingInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String METRIC = "biblioteca.http.latency";
+    private static final String START = RequestLoggingInterceptor.class.getName() + ".t0";
+
+    private final MeterRegistry registry;
+    private final Duration window;
+
+    public RequestLoggingInterceptor(MeterRegistry registry,
+                                     @Value("${metrics.latency.window:1m}") Duration window) {
+        this.registry = registry;
+        this.window = window;
+    }
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
 
-        // Marca de tiempo inicial
-        request.setAttribute("t0", System.currentTimeMillis());
-
-        // Log básico
-        System.out.println("➡️ " + request.getMethod() + " " + request.getRequestURI());
+        // Marca de tiempo inicial (monótona, en nanosegundos); el despacho ASYNC conserva
+        // la del despacho inicial
+        if (request.getDispatcherType() != DispatcherType.ASYNC || request.getAttribute(START) == null) {
+            request.setAttribute(START, System.nanoTime());
+        }
 
         return true; // permite continuar con la ejecución normal
     }
 
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        // El handler sigue en otro hilo: no se registra nada todavía, `t0` queda en la
+        // petición y se mide en el afterCompletion del despacho ASYNC
+    }
+
     @Override
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex)
             throws Exception {
 
-        Long t0 = (Long) request.getAttribute("t0");
-        long elapsed = (t0 == null ? 0 : System.currentTimeMillis() - t0);
+        Object t0 = request.getAttribute(START);
+        if (!(t0 instanceof Long start)) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // Añade el tiempo total como header (si la respuesta todavía no se envió)
+        if (!response.isCommitted()) {
+            response.addHeader("X-Elapsed-Time", TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms");
+        }
 
-        // Añade el tiempo total como header
-        response.addHeader("X-Elapsed-Time", elapsed + "ms");
+        timer(request.getMethod(), route(request)).record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    // El registro reutiliza el timer si ya existe para el mismo método y ruta
+    private Timer timer(String method, String route) {
+        return Timer.builder(METRIC)
+                .description("Latencia de las peticiones por ruta")
+                .tag("method", method)
+                .tag("uri", route)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                // Ventana deslizante: el histograma rota en 3 partes a lo largo de `window`
+                .distributionStatisticExpiry(window)
+                .distributionStatisticBufferLength(3)
+                .register(registry);
+    }
 
-        // Log de salida
-        System.out.println("✔️ Completed -> HTTP " + response.getStatus()
-                + " | Tiempo: " + elapsed + "ms");
+    private static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNMATCHED";
     }
 }
@@ -2,7 +2,19 @@ package com.grupobb.biblioteca.repository;
 
 import com.grupobb.biblioteca.domain.Author;
 import com.grupobb.biblioteca.domain.Book;
+import com.grupobb.biblioteca.dto.Book.BookAvailabilityItem;
+import com.grupobb.biblioteca.dto.Book.BookResponse;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Repositorio Spring Data para la entidad Book.
@@ -10,4 +22,57 @@ import org.springframework.data.jpa.repository.JpaRepository;
  */
 public interface BookRepository extends JpaRepository<Book, Long> {
     boolean existsByAutor(Author autor);
+
+    /**
+     * Lista todos los libros trayendo su autor en la misma consulta (evita N+1).
+     */
+    @Override
+    @EntityGraph(attributePaths = "autor")
+    List<Book> findAll();
+
+    /**
+     * Listado de libros proyectado directamente a BookResponse (solo las columnas
+     * que expone la API, sin entidades administradas).
+     */
+    @Query("select new com.grupobb.biblioteca.dto.Book.BookResponse("
+            + "b.id, b.titulo, a.id, a.nombre, b.disponible)"
+            + " from Book b left join b.autor a order by b.id")
+    List<BookResponse> findAllResponses();
+
+    /**
+     * Id y disponibilidad de todos los libros (instantánea compacta, sin join al autor).
+     */
+    @Query("select new com.grupobb.biblioteca.dto.Book.BookAvailabilityItem(b.id, b.disponible)"
+            + " from Book b order by b.id")
+    List<BookAvailabilityItem> findAvailability();
+
+    /**
+     * Detalle de un libro con su autor cargado en la misma consulta.
+     */
+    @EntityGraph(attributePaths = "autor")
+    Optional<Book> findWithAutorById(Long id);
+
+    /**
+     * Reclama el libro para un préstamo en una sola escritura condicional.
+     * Solo actualiza la fila si el libro sigue disponible, de modo que ante
+     * préstamos concurrentes del mismo libro exactamente uno obtiene 1 y el resto 0.
+     */
+    @Modifying
+    @Query("update Book b set b.disponible = false where b.id = :id and b.disponible = true")
+    int claimIfAvailable(@Param("id") Long id);
+
+    /**
+     * Carga varios libros (con su autor) con una sola consulta IN y los bloquea
+     * para escritura hasta el fin de la transacción (usado por el préstamo en lote).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Book b left join fetch b.autor where b.id in :ids")
+    List<Book> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Marca varios libros como disponibles con un único UPDATE (devolución en lote).
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Book b set b.disponible = true where b.id in :ids")
+    int markAvailable(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,29 @@
+package com.grupobb.biblioteca.repository;
+
+import com.grupobb.biblioteca.domain.ChangeLogEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Repositorio del registro de cambios (tabla `cambios`).
+ */
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long>, ChangeLogRepositoryCustom {
+
+    /**
+     * Cambios de una colección con versión en (since, hasta), en orden de versión.
+     */
+    @Query("select c from ChangeLogEntry c"
+            + " where c.entidad = :entidad and c.id > :since and c.id < :hasta"
+            + " order by c.id")
+    List<ChangeLogEntry> findPage(@Param("entidad") String entidad,
+                                  @Param("since") long since,
+                                  @Param("hasta") long hasta,
+                                  Limit limit);
+
+    @Query("select coalesce(max(c.id), 0) from ChangeLogEntry c")
+    long maxVersion();
+}
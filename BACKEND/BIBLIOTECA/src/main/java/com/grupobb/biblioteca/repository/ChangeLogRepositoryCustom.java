@@ -0,0 +1,17 @@
+package com.grupobb.biblioteca.repository;
+
+import com.grupobb.biblioteca.domain.ChangeLogEntry;
+
+import java.util.List;
+
+/**
+ * Operaciones de ChangeLogRepository implementadas a mano (fragmento de Spring Data).
+ */
+public interface ChangeLogRepositoryCustom {
+
+    /**
+     * Inserta varias entradas en un único lote JDBC y devuelve sus versiones (ids
+     * generados) en el mismo orden.
+     */
+    long[] insertAll(List<ChangeLogEntry> entries);
+}
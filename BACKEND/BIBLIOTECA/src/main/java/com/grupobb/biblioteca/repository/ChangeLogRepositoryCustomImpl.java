@@ -0,0 +1,67 @@
+package com.grupobb.biblioteca.repository;
+
+import com.grupobb.biblioteca.domain.ChangeLogEntry;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Inserción en lote del registro de cambios con JDBC (mismo motivo que
+ * {@link LoanRepositoryCustomImpl}: con IDENTITY saveAll hace un INSERT por fila).
+ */
+public class ChangeLogRepositoryCustomImpl implements ChangeLogRepositoryCustom {
+
+    private static final String INSERT =
+            "insert into cambios (entidad, entidad_id, tipo, payload, fecha) values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ChangeLogRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public long[] insertAll(List<ChangeLogEntry> entries) {
+        if (entries.isEmpty()) {
+            return new long[0];
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ChangeLogEntry entry = entries.get(i);
+                        ps.setString(1, entry.getEntidad());
+                        ps.setLong(2, entry.getEntidadId());
+                        ps.setString(3, entry.getTipo());
+                        ps.setString(4, entry.getPayload());
+                        // La fecha se guarda en UTC, como lo hace Hibernate con Instant
+                        ps.setTimestamp(5, Timestamp.from(entry.getFecha()),
+                                Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return entries.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> generados = keys.getKeyList();
+        long[] versiones = new long[entries.size()];
+        for (int i = 0; i < versiones.length; i++) {
+            versiones[i] = ((Number) generados.get(i).values().iterator().next()).longValue();
+        }
+        return versiones;
+    }
+}
@@ -3,12 +3,86 @@ package com.grupobb.biblioteca.repository;
 import com.grupobb.biblioteca.domain.Book;
 import com.grupobb.biblioteca.domain.Loan;
 import com.grupobb.biblioteca.domain.User;
+import com.grupobb.biblioteca.dto.Loan.LoanResponse;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repositorio para la entidad Loan (prestamos).
  */
-public interface LoanRepository extends JpaRepository<Loan, Long> {
+public interface LoanRepository extends JpaRepository<Loan, Long>, LoanRepositoryCustom {
     boolean existsByUsuarioAndFechaDevolucionIsNull(User usuario);
     boolean existsByLibroAndFechaDevolucionIsNull(Book libro);
+
+    /**
+     * Detalle de un préstamo con usuario, libro y autor del libro en una sola consulta.
+     */
+    @EntityGraph(attributePaths = {"usuario", "libro", "libro.autor"})
+    Optional<Loan> findWithDetailsById(Long id);
+
+    /**
+     * Carga varios préstamos (con usuario, libro y autor del libro) en una sola
+     * consulta IN y los bloquea hasta el fin de la transacción (usado por la
+     * devolución en lote).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from Loan l join fetch l.usuario join fetch l.libro b left join fetch b.autor where l.id in :ids")
+    List<Loan> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Registra la devolución de varios préstamos con un único UPDATE.
+     * Solo afecta a los que siguen activos.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Loan l set l.fechaDevolucion = :fecha where l.id in :ids and l.fechaDevolucion is null")
+    int markReturned(@Param("ids") Collection<Long> ids, @Param("fecha") LocalDate fecha);
+
+    /**
+     * Página de préstamos por cursor (keyset): devuelve los préstamos con id mayor
+     * que `after`, en orden de id, sin OFFSET. Los filtros nulos se ignoran.
+     * Proyecta directamente a LoanResponse: solo las columnas necesarias, sin
+     * entidades administradas ni copias para dirty-checking.
+     */
+    @Query("select new com.grupobb.biblioteca.dto.Loan.LoanResponse("
+            + "l.id, u.id, b.id, u.nombre, b.titulo, l.fechaPrestamo, l.fechaDevolucion)"
+            + " from Loan l join l.usuario u join l.libro b"
+            + " where l.id > :after"
+            + " and (:activo is null"
+            + "      or (:activo = true and l.fechaDevolucion is null)"
+            + "      or (:activo = false and l.fechaDevolucion is not null))"
+            + " and (:desde is null or l.fechaPrestamo >= :desde)"
+            + " and (:hasta is null or l.fechaPrestamo <= :hasta)"
+            + " order by l.id")
+    List<LoanResponse> findPage(@Param("after") long after,
+                                @Param("activo") Boolean activo,
+                                @Param("desde") LocalDate desde,
+                                @Param("hasta") LocalDate hasta,
+                                Limit limit);
+
+    /**
+     * Recorre todo el historial de préstamos con un cursor de base de datos
+     * (fetch size acotado) en lugar de cargarlo completo en memoria.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select l from Loan l join fetch l.usuario join fetch l.libro order by l.id")
+    Stream<Loan> streamAllOrderById();
 }
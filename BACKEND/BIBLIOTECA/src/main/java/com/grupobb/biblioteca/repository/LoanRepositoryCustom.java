@@ -0,0 +1,17 @@
+package com.grupobb.biblioteca.repository;
+
+import com.grupobb.biblioteca.domain.Loan;
+
+import java.util.List;
+
+/**
+ * Operaciones de LoanRepository implementadas a mano (fragmento de Spring Data).
+ */
+public interface LoanRepositoryCustom {
+
+    /**
+     * Inserta varios préstamos nuevos en un único lote JDBC y les asigna el id
+     * generado. Los préstamos no quedan administrados por el EntityManager.
+     */
+    void insertAll(List<Loan> loans);
+}
@@ -0,0 +1,71 @@
+package com.grupobb.biblioteca.repository;
+
+import com.grupobb.biblioteca.domain.Loan;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserción en lote de préstamos con JDBC.
+ *
+ * Loan usa un id IDENTITY, y con IDENTITY Hibernate no puede agrupar los INSERT
+ * (necesita el id de cada fila en cuanto la persiste), así que saveAll hace una
+ * sentencia por préstamo. Aquí se envían todos en un solo executeBatch y los ids
+ * se leen de las claves generadas. Se mantiene IDENTITY para no chocar con los ids
+ * ya existentes en la base de datos.
+ */
+public class LoanRepositoryCustomImpl implements LoanRepositoryCustom {
+
+    private static final String INSERT =
+            "insert into prestamos (usuario_id, libro_id, fecha_prestamo, fecha_devolucion) values (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LoanRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(List<Loan> loans) {
+        if (loans.isEmpty()) {
+            return;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Loan loan = loans.get(i);
+                        ps.setLong(1, loan.getUsuario().getId());
+                        ps.setLong(2, loan.getLibro().getId());
+                        ps.setDate(3, Date.valueOf(loan.getFechaPrestamo()));
+                        if (loan.getFechaDevolucion() == null) {
+                            ps.setNull(4, Types.DATE);
+                        } else {
+                            ps.setDate(4, Date.valueOf(loan.getFechaDevolucion()));
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return loans.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> generados = keys.getKeyList();
+        for (int i = 0; i < loans.size(); i++) {
+            Number id = (Number) generados.get(i).values().iterator().next();
+            loans.get(i).setId(id.longValue());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.grupobb.biblioteca.service;
+
+import com.grupobb.biblioteca.dto.Autocomplete.SuggestionResponse;
+
+import java.util.List;
+
+public interface AutocompleteService {
+
+    // tipo: "libros", "autores" o "usuarios"
+    List<SuggestionResponse> suggest(String tipo, String prefijo, int limit);
+}
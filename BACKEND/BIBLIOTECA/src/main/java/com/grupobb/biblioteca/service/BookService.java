@@ -1,5 +1,8 @@
 package com.grupobb.biblioteca.service;
 
+import com.grupobb.biblioteca.dto.Book.BookAvailabilityResponse;
+import com.grupobb.biblioteca.dto.Book.BookCacheStatsResponse;
+import com.grupobb.biblioteca.dto.Book.BookCountResponse;
 import com.grupobb.biblioteca.dto.Book.BookRequestData;
 import com.grupobb.biblioteca.dto.Book.BookResponse;
 
@@ -9,8 +12,18 @@ public interface BookService {
 
     List<BookResponse> findAll();
 
+    List<BookResponse> findByDisponible(boolean disponible);
+
+    BookCountResponse count();
+
     BookResponse findById(Long id);
 
+    BookAvailabilityResponse availability();
+
+    BookCacheStatsResponse cacheStats();
+
+    List<BookResponse> search(String query, int limit);
+
     BookResponse create(BookRequestData request);
 
     BookResponse update(Long id, BookRequestData request);
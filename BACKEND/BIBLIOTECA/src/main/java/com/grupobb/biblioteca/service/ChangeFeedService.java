@@ -0,0 +1,10 @@
+package com.grupobb.biblioteca.service;
+
+import com.grupobb.biblioteca.dto.Change.ChangeFeedResponse;
+import com.grupobb.biblioteca.service.event.EntityType;
+
+public interface ChangeFeedService {
+
+    // since null: no devuelve cambios, solo la versión actual desde la que empezar
+    ChangeFeedResponse changesSince(EntityType entity, Long since, int limit);
+}
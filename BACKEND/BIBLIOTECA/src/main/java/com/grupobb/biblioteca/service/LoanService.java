@@ -1,17 +1,27 @@
 package com.grupobb.biblioteca.service;
 
+import com.grupobb.biblioteca.dto.Loan.LoanBatchItemResult;
+import com.grupobb.biblioteca.dto.Loan.LoanPageResponse;
 import com.grupobb.biblioteca.dto.Loan.LoanRequestData;
 import com.grupobb.biblioteca.dto.Loan.LoanResponse;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface LoanService {
 
     LoanResponse createLoan(LoanRequestData request);
 
+    List<LoanBatchItemResult> createLoans(List<LoanRequestData> requests);
+
     LoanResponse returnLoan(Long loanId);
 
-    List<LoanResponse> list();
+    List<LoanBatchItemResult> returnLoans(List<Long> loanIds);
+
+    LoanPageResponse list(Long after, int limit, Boolean activo, LocalDate desde, LocalDate hasta);
 
     LoanResponse getById(Long loanId);
+
+    void exportHistory(Consumer<LoanResponse> sink);
 }
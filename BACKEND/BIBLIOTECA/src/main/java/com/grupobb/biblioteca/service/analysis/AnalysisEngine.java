@@ -0,0 +1,329 @@
+package com.grupobb.biblioteca.service.analysis;
+
+import com.grupobb.biblioteca.dto.Analysis.AnalysisStatsResponse;
+import com.grupobb.biblioteca.service.event.EntityType;
+import com.grupobb.biblioteca.service.subscriber.BatchSubscriber;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Motor compartido del análisis reactivo de los listados (antes cada servicio creaba
+ * su propio Flux sin control en cada petición).
+ *
+ * - Como máximo `maxConcurrent` análisis corriendo a la vez; el resto espera en una cola
+ *   acotada (`queueCapacity`) y lo que no entra se rechaza.
+ * - Una sola ejecución pendiente por colección: si llegan varios pedidos mientras espera,
+ *   se queda con los datos del último (se coalescen).
+ * - Un pedido nuevo de una colección que ya se está analizando cancela esa ejecución
+ *   (su Disposable queda registrado) porque sus datos quedaron viejos.
+ * - Cada ejecución parte la colección en lotes de `chunkSize` que se analizan en paralelo
+ *   sobre los rieles del scheduler de análisis, con un límite de tiempo por lote: un lote
+ *   lento se descarta solo, sin cortar ni reintentar toda la colección.
+ * - Como MeterBinder publica la cola y los contadores en Micrometer (biblioteca.analysis.*).
+ */
+@Component
+public class AnalysisEngine implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisEngine.class);
+    // Mensajes por elemento y por lote: se muestrean y limitan en logback-spring.xml
+    private static final Logger elementLog = LoggerFactory.getLogger("biblioteca.analysis.element");
+    private static final Logger batchLog = LoggerFactory.getLogger("biblioteca.analysis.batch");
+
+    private final Scheduler scheduler;
+
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final int chunkSize;
+    private final Duration chunkDelay;
+    private final Duration chunkTimeout;
+    private final int minDemand;
+    private final int maxDemand;
+    private final Duration targetLatency;
+
+    // Estado de la cola (protegido por `this`)
+    private final Map<EntityType, List<?>> pendientes = new EnumMap<>(EntityType.class);
+    private final ArrayDeque<EntityType> cola = new ArrayDeque<>();
+    private final Map<EntityType, Run> enCurso = new EnumMap<>(EntityType.class);
+    private boolean detenido;
+
+    private final AtomicLong solicitadas = new AtomicLong();
+    private final AtomicLong coalescidas = new AtomicLong();
+    private final AtomicLong canceladas = new AtomicLong();
+    private final AtomicLong rechazadas = new AtomicLong();
+    private final AtomicLong completadas = new AtomicLong();
+    private final AtomicLong procesados = new AtomicLong();
+    private final AtomicLong errores = new AtomicLong();
+    private final AtomicLong lotesVencidos = new AtomicLong();
+
+    // Throughput y lag de la última ejecución completada (los reporta su BatchSubscriber)
+    private volatile double ultimoThroughput;
+    private volatile long ultimoLagMs;
+
+    public AnalysisEngine(Scheduler analysisScheduler,
+                          @Value("${analysis.max-concurrent:2}") int maxConcurrent,
+                          @Value("${analysis.queue-capacity:4}") int queueCapacity,
+                          @Value("${analysis.chunk-size:500}") int chunkSize,
+                          @Value("${analysis.chunk-delay-ms:100}") long chunkDelayMs,
+                          @Value("${analysis.chunk-timeout-ms:2000}") long chunkTimeoutMs,
+                          @Value("${analysis.demand.min:1}") int minDemand,
+                          @Value("${analysis.demand.max:32}") int maxDemand,
+                          @Value("${analysis.demand.target-latency-ms:50}") long targetLatencyMs) {
+        this.scheduler = analysisScheduler;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.chunkDelay = Duration.ofMillis(Math.max(0, chunkDelayMs));
+        this.chunkTimeout = Duration.ofMillis(Math.max(1, chunkTimeoutMs));
+        this.minDemand = minDemand;
+        this.maxDemand = maxDemand;
+        this.targetLatency = Duration.ofMillis(Math.max(1, targetLatencyMs));
+    }
+
+    /**
+     * Pide analizar `items` (DTOs de la colección) en segundo plano. No bloquea.
+     */
+    public void submit(EntityType type, List<?> items) {
+        if (type == EntityType.USER) {
+            return; // colección sin análisis (usuarios)
+        }
+        Run superada;
+        synchronized (this) {
+            if (detenido) {
+                rechazadas.incrementAndGet();
+                return;
+            }
+            solicitadas.incrementAndGet();
+            if (pendientes.containsKey(type)) {
+                // Ya hay una ejecución esperando: solo se actualizan sus datos
+                pendientes.put(type, items);
+                coalescidas.incrementAndGet();
+                return;
+            }
+            if (cola.size() >= queueCapacity) {
+                // Sin lugar en la cola: la ejecución en curso (si hay) sigue con sus datos
+                rechazadas.incrementAndGet();
+                return;
+            }
+            pendientes.put(type, items);
+            cola.addLast(type);
+            superada = enCurso.remove(type);
+        }
+        if (superada != null) {
+            canceladas.incrementAndGet();
+            superada.dispose();
+        }
+        iniciarSiguientes();
+    }
+
+    public synchronized AnalysisStatsResponse stats() {
+        return new AnalysisStatsResponse(cola.size(), enCurso.size(), solicitadas.get(), coalescidas.get(),
+                canceladas.get(), rechazadas.get(), completadas.get(), procesados.get(), errores.get(),
+                lotesVencidos.get(), Math.round(ultimoThroughput), ultimoLagMs);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("biblioteca.analysis.queue.depth", this, e -> e.stats().getQueueDepth())
+                .description("Ejecuciones de análisis esperando en la cola")
+                .register(registry);
+        Gauge.builder("biblioteca.analysis.running", this, e -> e.stats().getRunning())
+                .description("Ejecuciones de análisis en curso")
+                .register(registry);
+        contador(registry, "biblioteca.analysis.runs", "submitted", solicitadas);
+        contador(registry, "biblioteca.analysis.runs", "coalesced", coalescidas);
+        contador(registry, "biblioteca.analysis.runs", "cancelled", canceladas);
+        contador(registry, "biblioteca.analysis.runs", "rejected", rechazadas);
+        contador(registry, "biblioteca.analysis.runs", "completed", completadas);
+        contador(registry, "biblioteca.analysis.elements", "processed", procesados);
+        contador(registry, "biblioteca.analysis.elements", "error", errores);
+        contador(registry, "biblioteca.analysis.chunks", "timeout", lotesVencidos);
+        Gauge.builder("biblioteca.analysis.throughput", this, e -> e.ultimoThroughput)
+                .description("Elementos por segundo de la última ejecución completada")
+                .register(registry);
+        Gauge.builder("biblioteca.analysis.queue.lag", this, e -> e.ultimoLagMs)
+                .description("Lag máximo (ms) de la última ejecución completada")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    private static void contador(MeterRegistry registry, String name, String result, AtomicLong value) {
+        FunctionCounter.builder(name, value, AtomicLong::get)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @PreDestroy
+    void stop() {
+        List<Run> activas;
+        synchronized (this) {
+            detenido = true;
+            cola.clear();
+            pendientes.clear();
+            activas = new ArrayList<>(enCurso.values());
+            enCurso.clear();
+        }
+        activas.forEach(Run::dispose);
+    }
+
+    // Arranca ejecuciones mientras haya lugar; la suscripción se hace fuera del lock
+    private void iniciarSiguientes() {
+        List<Run> nuevas = new ArrayList<>();
+        synchronized (this) {
+            while (!detenido && enCurso.size() < maxConcurrent && !cola.isEmpty()) {
+                EntityType type = cola.pollFirst();
+                Run run = new Run(type, subscriberFor(type));
+                enCurso.put(type, run);
+                nuevas.add(run);
+                run.items = pendientes.remove(type);
+            }
+        }
+        nuevas.forEach(Run::start);
+    }
+
+    private void terminar(Run run, SignalType signal) {
+        synchronized (this) {
+            // Si ya no es la ejecución vigente fue cancelada (y contada) al ser superada
+            if (enCurso.get(run.type) != run) {
+                return;
+            }
+            enCurso.remove(run.type);
+        }
+        if (signal == SignalType.ON_COMPLETE) {
+            ultimoThroughput = run.delegate.getThroughput();
+            ultimoLagMs = run.delegate.getMaxLagMs();
+            completadas.incrementAndGet();
+        }
+        iniciarSiguientes();
+    }
+
+    private BatchSubscriber<Object> subscriberFor(EntityType type) {
+        String nombre = nombre(type);
+        return new BatchSubscriber<>(nombre, minDemand, maxDemand, targetLatency, lote ->
+                batchLog.info("[Reactive] Procesando lote de {} {}", lote.size(), nombre));
+    }
+
+    // Lotes de la colección analizados en paralelo; emite los elementos válidos de cada lote
+    private Flux<List<Object>> pipeline(EntityType type, List<?> items) {
+        return Flux.<Object>fromIterable(items)
+                .buffer(chunkSize)
+                .parallel()
+                .runOn(scheduler)
+                .concatMap(chunk -> analizarLote(type, chunk))
+                .sequential()
+                .doOnComplete(() -> log.info("[Métrica] Flujo de {} completado", nombre(type)));
+    }
+
+    // Filtro y validación de un lote (mismas reglas que el análisis incremental)
+    private Mono<List<Object>> analizarLote(EntityType type, List<Object> chunk) {
+        Mono<List<Object>> lote = Mono.fromCallable(() -> {
+            List<Object> validos = new ArrayList<>(chunk.size());
+            for (Object item : chunk) {
+                if (!AnalysisRules.applies(type, item)) {
+                    continue;
+                }
+                String error = AnalysisRules.validate(type, item);
+                if (error != null) {
+                    // Un elemento inválido se cuenta y el análisis sigue con los demás
+                    long count = errores.incrementAndGet();
+                    elementLog.warn("[Métrica] Errores detectados: {} - {}", count, error);
+                } else {
+                    validos.add(item);
+                }
+            }
+            return validos;
+        });
+        if (!chunkDelay.isZero()) {
+            // Simula el tiempo de procesamiento de cada lote
+            lote = lote.delayElement(chunkDelay);
+        }
+        return lote
+                // El límite de tiempo es por lote: uno colgado no arrastra a los demás
+                .timeout(chunkTimeout)
+                .doOnNext(validos -> {
+                    long count = procesados.addAndGet(validos.size());
+                    elementLog.info("[Métrica] {} procesados: {}", nombre(type), count);
+                })
+                .onErrorResume(err -> {
+                    long count = lotesVencidos.incrementAndGet();
+                    log.warn("[Reactive] Lote de {} {} descartado ({}): {}", chunk.size(), nombre(type), count,
+                            err.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private static String nombre(EntityType type) {
+        return switch (type) {
+            case AUTHOR -> "autores";
+            case BOOK -> "libros";
+            case LOAN -> "préstamos";
+            case USER -> "usuarios";
+        };
+    }
+
+    /**
+     * Una ejecución del análisis: reenvía las señales al BatchSubscriber de la colección
+     * (que ajusta su demanda) y, al ser un BaseSubscriber, se puede cancelar.
+     */
+    private final class Run extends BaseSubscriber<List<Object>> {
+
+        private final EntityType type;
+        private final BatchSubscriber<Object> delegate;
+        private List<?> items;
+
+        Run(EntityType type, BatchSubscriber<Object> delegate) {
+            this.type = type;
+            this.delegate = delegate;
+        }
+
+        void start() {
+            pipeline(type, items).subscribe(this);
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            // El BatchSubscriber controla la demanda (backpressure adaptativo)
+            delegate.onSubscribe(subscription);
+        }
+
+        @Override
+        protected void hookOnNext(List<Object> value) {
+            delegate.onNext(value);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            delegate.onComplete();
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            delegate.onError(throwable);
+        }
+
+        @Override
+        protected void hookFinally(SignalType signal) {
+            terminar(this, signal);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.grupobb.biblioteca.service.analysis;
+
+import com.grupobb.biblioteca.dto.Author.AuthorResponse;
+import com.grupobb.biblioteca.dto.Book.BookResponse;
+import com.grupobb.biblioteca.dto.Loan.LoanResponse;
+import com.grupobb.biblioteca.service.event.EntityType;
+
+/**
+ * Reglas del análisis reactivo aplicadas sobre los DTOs de cada colección.
+ *
+ * - applies: filtro del análisis (préstamos activos, libros disponibles, autores con nacionalidad)
+ * - validate: validación simulada; devuelve el motivo del error o null si es válido
+ */
+public final class AnalysisRules {
+
+    private AnalysisRules() {}
+
+    public static boolean applies(EntityType entity, Object payload) {
+        return switch (entity) {
+            case LOAN -> ((LoanResponse) payload).getFechaDevolucion() == null;
+            case BOOK -> ((BookResponse) payload).isDisponible();
+            case AUTHOR -> {
+                String nacionalidad = ((AuthorResponse) payload).getNacionalidad();
+                yield nacionalidad != null && !nacionalidad.isBlank();
+            }
+            case USER -> false;
+        };
+    }
+
+    public static String validate(EntityType entity, Object payload) {
+        return switch (entity) {
+            case LOAN -> {
+                String usuario = ((LoanResponse) payload).getUsuarioNombre();
+                yield "ErrorUser".equals(usuario) ? "Usuario bloqueado detectado: " + usuario : null;
+            }
+            case BOOK -> {
+                String titulo = ((BookResponse) payload).getTitulo();
+                yield titulo != null && titulo.toLowerCase().contains("error")
+                        ? "Libro inválido detectado: " + titulo : null;
+            }
+            case AUTHOR -> {
+                String nombre = ((AuthorResponse) payload).getNombre();
+                yield "ErrorAuthor".equalsIgnoreCase(nombre) ? "Autor inválido detectado: " + nombre : null;
+            }
+            case USER -> null;
+        };
+    }
+}
@@ -0,0 +1,115 @@
+package com.grupobb.biblioteca.service.analysis;
+
+import com.grupobb.biblioteca.service.event.ChangeType;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Análisis reactivo incremental.
+ *
+ * Se suscribe una sola vez al {@link EntityChangeStream} y analiza únicamente la
+ * entidad que cambió, actualizando los agregados de su colección. El costo de cada
+ * escritura es O(1) respecto al tamaño de la tabla (antes se releía con findAll()).
+ * Sus agregados se publican en Micrometer como biblioteca.analysis.delta.
+ */
+@Component
+public class DeltaAnalyzer implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(DeltaAnalyzer.class);
+    // Un mensaje por cambio: se muestrea y limita en logback-spring.xml
+    private static final Logger changeLog = LoggerFactory.getLogger("biblioteca.analysis.delta");
+
+    // Cambios pendientes de analizar; si se llena se descartan los más antiguos
+    private static final int BUFFER_SIZE = 10_000;
+
+    private final EntityChangeStream changeStream;
+    private final Map<EntityType, DeltaStats> stats = new EnumMap<>(EntityType.class);
+    private final Scheduler scheduler = Schedulers.newSingle("analisis-delta");
+    private Disposable subscription;
+
+    public DeltaAnalyzer(EntityChangeStream changeStream) {
+        this.changeStream = changeStream;
+        for (EntityType type : EntityType.values()) {
+            stats.put(type, new DeltaStats());
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        subscription = changeStream.changes()
+                // No frenar a los hilos que publican: el análisis corre en su propio hilo
+                .onBackpressureBuffer(BUFFER_SIZE,
+                        dropped -> stats.get(dropped.getEntity()).registrarDescartado(),
+                        BufferOverflowStrategy.DROP_OLDEST)
+                .publishOn(scheduler)
+                .subscribe(this::analyze,
+                        err -> log.error("[Delta] Error en el análisis incremental: {}", err.getMessage()));
+    }
+
+    @PreDestroy
+    void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        scheduler.dispose();
+    }
+
+    public DeltaStats stats(EntityType type) {
+        return stats.get(type);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        stats.forEach((type, s) -> {
+            contador(registry, type, "processed", s, DeltaStats::getProcesados);
+            contador(registry, type, "error", s, DeltaStats::getErrores);
+            contador(registry, type, "dropped", s, DeltaStats::getDescartados);
+        });
+    }
+
+    private static void contador(MeterRegistry registry, EntityType type, String result, DeltaStats s,
+                                 ToDoubleFunction<DeltaStats> value) {
+        FunctionCounter.builder("biblioteca.analysis.delta", s, value)
+                .description("Cambios analizados por el análisis incremental")
+                .tag("entity", type.name().toLowerCase())
+                .tag("result", result)
+                .register(registry);
+    }
+
+    void analyze(EntityChange change) {
+        DeltaStats s = stats.get(change.getEntity());
+        s.registrarCambio(change.getType());
+
+        // Las eliminaciones solo se cuentan; el resto pasa por el filtro y la validación
+        if (change.getType() == ChangeType.DELETED || change.getPayload() == null
+                || !AnalysisRules.applies(change.getEntity(), change.getPayload())) {
+            return;
+        }
+
+        String error = AnalysisRules.validate(change.getEntity(), change.getPayload());
+        if (error == null) {
+            long count = s.registrarProcesado();
+            changeLog.info("[Delta] {} - procesados: {}", change, count);
+        } else {
+            long count = s.registrarError();
+            changeLog.warn("[Delta] {} - errores: {} - {}", change, count, error);
+        }
+    }
+}
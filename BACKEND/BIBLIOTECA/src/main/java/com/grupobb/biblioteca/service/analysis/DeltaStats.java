@@ -0,0 +1,38 @@
+package com.grupobb.biblioteca.service.analysis;
+
+import com.grupobb.biblioteca.service.event.ChangeType;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agregados del análisis incremental de una colección, acumulados cambio a cambio.
+ */
+public class DeltaStats {
+
+    private final AtomicLong creados = new AtomicLong();
+    private final AtomicLong actualizados = new AtomicLong();
+    private final AtomicLong eliminados = new AtomicLong();
+    private final AtomicLong procesados = new AtomicLong();
+    private final AtomicLong errores = new AtomicLong();
+    private final AtomicLong descartados = new AtomicLong();
+
+    void registrarCambio(ChangeType type) {
+        switch (type) {
+            case CREATED -> creados.incrementAndGet();
+            case UPDATED -> actualizados.incrementAndGet();
+            case DELETED -> eliminados.incrementAndGet();
+        }
+    }
+
+    long registrarProcesado() { return procesados.incrementAndGet(); }
+    long registrarError() { return errores.incrementAndGet(); }
+    void registrarDescartado() { descartados.incrementAndGet(); }
+
+    public long getCreados() { return creados.get(); }
+    public long getActualizados() { return actualizados.get(); }
+    public long getEliminados() { return eliminados.get(); }
+    public long getProcesados() { return procesados.get(); }
+    public long getErrores() { return errores.get(); }
+    // Cambios perdidos porque el buffer del análisis estaba lleno
+    public long getDescartados() { return descartados.get(); }
+}
@@ -0,0 +1,134 @@
+package com.grupobb.biblioteca.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.grupobb.biblioteca.dto.Author.AuthorResponse;
+import com.grupobb.biblioteca.dto.Book.BookCacheStatsResponse;
+import com.grupobb.biblioteca.dto.Book.BookResponse;
+import com.grupobb.biblioteca.service.event.ChangeType;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Caché de lectura de libros por id (BookResponse), acotada por tamaño y por TTL.
+ *
+ * - Invalidación precisa desde el {@link EntityChangeStream}: cada alta, edición o baja
+ *   de un libro, y cada préstamo o devolución (que cambian `disponible`), quita solo
+ *   ese id. Renombrar un autor quita los libros de ese autor.
+ * - Versiones por id (en franjas): una carga que empezó antes de una invalidación no
+ *   deja en la caché un valor viejo que la invalidación ya debía haber borrado.
+ * - Contadores de aciertos, fallos, desalojos e invalidaciones para dimensionarla.
+ */
+@Component
+public class BookCache {
+
+    // Franjas de versiones (potencia de 2); ids distintos pueden compartir franja
+    private static final int FRANJAS = 256;
+
+    private final EntityChangeStream changeStream;
+    private final Cache<Long, BookResponse> cache;
+    private final AtomicLongArray versiones = new AtomicLongArray(FRANJAS);
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    private Disposable subscription;
+
+    public BookCache(EntityChangeStream changeStream,
+                     @Value("${book.cache.max-size:10000}") long maxSize,
+                     @Value("${book.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.changeStream = changeStream;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    @PostConstruct
+    void start() {
+        // Al confirmar, en el hilo de la escritura: la lectura siguiente ya no ve el valor
+        // anterior. Invalidar no depende del orden entre escrituras.
+        subscription = changeStream.onCommit(change -> {
+            if (change.getEntity() == EntityType.BOOK
+                    || (change.getEntity() == EntityType.AUTHOR && change.getType() == ChangeType.UPDATED)) {
+                apply(change);
+            }
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Devuelve el libro en caché o lo carga con `loader`. Si el loader lanza una
+     * excepción (por ejemplo, NotFoundException) no se guarda nada.
+     */
+    public BookResponse get(Long id, Function<Long, BookResponse> loader) {
+        BookResponse cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        int franja = franja(id);
+        long version = versiones.get(franja);
+        BookResponse loaded = loader.apply(id);
+        if (versiones.get(franja) == version) {
+            cache.put(id, loaded);
+            // Una invalidación pudo ocurrir entre la comprobación y el put
+            if (versiones.get(franja) != version) {
+                cache.asMap().remove(id, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate(Long id) {
+        versiones.incrementAndGet(franja(id));
+        cache.invalidate(id);
+        invalidaciones.incrementAndGet();
+    }
+
+    public BookCacheStatsResponse stats() {
+        CacheStats stats = cache.stats();
+        return new BookCacheStatsResponse(cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), invalidaciones.get(), stats.hitRate());
+    }
+
+    // Aplica un cambio publicado por los servicios
+    void apply(EntityChange change) {
+        if (change.getEntity() == EntityType.BOOK) {
+            invalidate(change.getId());
+            return;
+        }
+        // Autor renombrado: su nombre va dentro de cada BookResponse
+        Long autorId = change.payloadAs(AuthorResponse.class).getId();
+        for (int i = 0; i < FRANJAS; i++) {
+            versiones.incrementAndGet(i);
+        }
+        cache.asMap().values().removeIf(book -> {
+            boolean delAutor = autorId.equals(book.getAutorId());
+            if (delAutor) {
+                invalidaciones.incrementAndGet();
+            }
+            return delAutor;
+        });
+    }
+
+    private static int franja(Long id) {
+        return Long.hashCode(id) & (FRANJAS - 1);
+    }
+}
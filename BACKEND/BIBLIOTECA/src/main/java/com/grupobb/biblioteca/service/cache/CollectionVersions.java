@@ -0,0 +1,64 @@
+package com.grupobb.biblioteca.service.cache;
+
+import com.grupobb.biblioteca.service.event.ChangeType;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión de cada colección (libros, autores, usuarios, préstamos).
+ *
+ * Cada método que modifica datos en los servicios publica su cambio en el
+ * {@link EntityChangeStream}; aquí cada cambio sube la versión de su colección. Si la
+ * versión no cambió, el listado tampoco, y se puede responder sin consultar la base.
+ */
+@Component
+public class CollectionVersions {
+
+    private final EntityChangeStream changeStream;
+    private final Map<EntityType, AtomicLong> versiones = new EnumMap<>(EntityType.class);
+
+    private Disposable subscription;
+
+    public CollectionVersions(EntityChangeStream changeStream) {
+        this.changeStream = changeStream;
+        for (EntityType type : EntityType.values()) {
+            versiones.put(type, new AtomicLong());
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        // Al confirmar, en el hilo de la escritura: la versión sube antes de que la
+        // escritura responda al cliente
+        subscription = changeStream.onCommit(this::apply);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    public long current(EntityType type) {
+        return versiones.get(type).get();
+    }
+
+    // Aplica un cambio publicado por los servicios
+    void apply(EntityChange change) {
+        versiones.get(change.getEntity()).incrementAndGet();
+        // El nombre del autor va dentro de cada libro del listado
+        if (change.getEntity() == EntityType.AUTHOR && change.getType() == ChangeType.UPDATED) {
+            versiones.get(EntityType.BOOK).incrementAndGet();
+        }
+    }
+}
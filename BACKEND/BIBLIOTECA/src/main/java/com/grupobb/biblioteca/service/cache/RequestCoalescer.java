@@ -0,0 +1,93 @@
+package com.grupobb.biblioteca.service.cache;
+
+import com.grupobb.biblioteca.service.event.EntityType;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight para lecturas: si llegan varias peticiones idénticas a la vez, solo la
+ * primera ejecuta la consulta y las demás esperan y reciben el mismo resultado (o la
+ * misma excepción). En una ráfaga de N clientes la base recibe 1 consulta, no N.
+ *
+ * La clave incluye la versión de las colecciones de las que depende el resultado
+ * ({@link CollectionVersions}): una petición que llega después de una escritura no se
+ * une a una consulta que empezó antes y devolvería datos anteriores.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final CollectionVersions versions;
+    private final ConcurrentHashMap<List<Object>, CompletableFuture<Object>> enVuelo = new ConcurrentHashMap<>();
+
+    // Consultas ejecutadas y peticiones que reutilizaron una en curso
+    private final AtomicLong ejecutadas = new AtomicLong();
+    private final AtomicLong compartidas = new AtomicLong();
+
+    public RequestCoalescer(CollectionVersions versions) {
+        this.versions = versions;
+    }
+
+    /**
+     * Ejecuta `loader` o se une a una ejecución en curso con la misma clave.
+     *
+     * @param key         operación y parámetros (debe implementar equals/hashCode)
+     * @param colecciones colecciones que leen el resultado
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Object key, Supplier<T> loader, EntityType... colecciones) {
+        List<Object> clave = new ArrayList<>(colecciones.length + 1);
+        clave.add(key);
+        for (EntityType coleccion : colecciones) {
+            clave.add(versions.current(coleccion));
+        }
+
+        CompletableFuture<Object> propio = new CompletableFuture<>();
+        CompletableFuture<Object> enCurso = enVuelo.putIfAbsent(clave, propio);
+        if (enCurso != null) {
+            compartidas.incrementAndGet();
+            return (T) esperar(enCurso);
+        }
+
+        ejecutadas.incrementAndGet();
+        try {
+            T valor = loader.get();
+            propio.complete(valor);
+            return valor;
+        } catch (RuntimeException | Error e) {
+            propio.completeExceptionally(e);
+            throw e;
+        } finally {
+            enVuelo.remove(clave, propio);
+        }
+    }
+
+    public long getEjecutadas() {
+        return ejecutadas.get();
+    }
+
+    public long getCompartidas() {
+        return compartidas.get();
+    }
+
+    // Devuelve el resultado de otra ejecución; sus excepciones se relanzan tal cual (404, 400, ...)
+    private static Object esperar(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.grupobb.biblioteca.service.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grupobb.biblioteca.domain.ChangeLogEntry;
+import com.grupobb.biblioteca.repository.ChangeLogRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Registro persistente de cambios (tabla `cambios`), escrito por el
+ * {@link EntityChangeStream} dentro de la transacción de cada mutación.
+ *
+ * Las versiones (ids) se asignan al insertar, pero las transacciones pueden
+ * confirmarse en otro orden: la versión 9 puede hacerse visible después que la 10.
+ * Para que un cliente que ya leyó hasta la 10 no se salte la 9, las lecturas solo
+ * llegan hasta el "horizonte": la menor versión todavía sin confirmar en esta
+ * instancia (o la última asignada si no hay ninguna pendiente).
+ *
+ * La versión la asigna la base de datos (IDENTITY) fuera del lock, así las
+ * escrituras concurrentes no esperan una a otra durante el INSERT. Los cambios de
+ * una transacción se insertan juntos, en un solo lote, al confirmarla. Antes de
+ * insertar se reserva una cota inferior de la versión que se va a obtener
+ * (última asignada + 1), y el horizonte no pasa de ninguna reserva en curso: un
+ * lector no puede saltarse una versión que todavía no se marcó como pendiente.
+ */
+@Component
+public class ChangeLog {
+
+    private final ChangeLogRepository repository;
+    private final ObjectMapper objectMapper;
+
+    // Versiones insertadas cuya transacción aún no terminó
+    private final ConcurrentSkipListSet<Long> pendientes = new ConcurrentSkipListSet<>();
+    // Cotas inferiores de las versiones que se están insertando (una por INSERT en curso)
+    private final PriorityQueue<Long> reservas = new PriorityQueue<>();
+    // Protege solo el estado en memoria (reservas, pendientes y ultimaAsignada)
+    private final Object lock = new Object();
+    private long ultimaAsignada = -1;
+
+    public ChangeLog(ChangeLogRepository repository, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+    }
+
+    // Inserta el cambio en la transacción actual (si la hay) y devuelve su versión
+    public long record(EntityChange change) {
+        return recordAll(List.of(change))[0];
+    }
+
+    /**
+     * Inserta varios cambios de la transacción actual (si la hay) en un solo lote y
+     * devuelve sus versiones, en el mismo orden.
+     *
+     * El {@link EntityChangeStream} lo llama en el beforeCommit de la transacción:
+     * antes se vuelcan las escrituras pendientes, así la transacción ya tiene
+     * bloqueadas las filas que modificó. Otra transacción que escriba la misma fila
+     * espera a que esta confirme, y recibe una versión mayor: las versiones de una
+     * fila siguen el orden de commit.
+     */
+    public long[] recordAll(List<EntityChange> changes) {
+        List<ChangeLogEntry> entries = new ArrayList<>(changes.size());
+        for (EntityChange change : changes) {
+            entries.add(new ChangeLogEntry(change.getEntity().name(), change.getId(),
+                    change.getType().name(), toJson(change.getPayload()), Instant.now()));
+        }
+        boolean enTransaccion = TransactionSynchronizationManager.isSynchronizationActive();
+        if (enTransaccion) {
+            repository.flush();
+        }
+
+        long reserva;
+        synchronized (lock) {
+            inicializar();
+            reserva = ultimaAsignada + 1;
+            reservas.add(reserva);
+        }
+
+        // El INSERT va fuera del lock; la reserva frena el horizonte mientras tanto
+        long[] versiones = null;
+        try {
+            versiones = repository.insertAll(entries);
+        } finally {
+            synchronized (lock) {
+                reservas.remove(reserva);
+                if (versiones != null) {
+                    for (long version : versiones) {
+                        ultimaAsignada = Math.max(ultimaAsignada, version);
+                        if (enTransaccion) {
+                            pendientes.add(version);
+                        }
+                    }
+                }
+            }
+        }
+
+        if (enTransaccion) {
+            long[] registradas = versiones;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    // Confirmadas o revertidas, ya no pueden aparecer más tarde
+                    for (long version : registradas) {
+                        pendientes.remove(version);
+                    }
+                }
+            });
+        }
+        return versiones;
+    }
+
+    /**
+     * Versión exclusiva hasta la que es seguro leer: todas las menores ya están
+     * confirmadas (o revertidas) y ninguna nueva podrá tener un número menor.
+     */
+    public long horizon() {
+        synchronized (lock) {
+            inicializar();
+            long horizonte = ultimaAsignada + 1;
+            if (!pendientes.isEmpty()) {
+                horizonte = Math.min(horizonte, pendientes.first());
+            }
+            if (!reservas.isEmpty()) {
+                horizonte = Math.min(horizonte, reservas.peek());
+            }
+            return horizonte;
+        }
+    }
+
+    // Tras un reinicio todo lo que ya está en la tabla está confirmado
+    private void inicializar() {
+        if (ultimaAsignada < 0) {
+            ultimaAsignada = repository.maxVersion();
+        }
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo registrar el cambio", e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.grupobb.biblioteca.service.event;
+
+/**
+ * Tipo de mutación aplicada a una entidad.
+ */
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
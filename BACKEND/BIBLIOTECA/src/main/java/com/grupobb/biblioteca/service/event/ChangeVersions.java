@@ -0,0 +1,42 @@
+package com.grupobb.biblioteca.service.event;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Última versión aplicada de cada fila, para los consumidores con estado en memoria
+ * (índices, canales WebSocket).
+ *
+ * Los cambios se emiten en el orden de sus afterCommit, que no siempre es el orden
+ * de commit: dos escrituras sobre el mismo libro pueden llegar invertidas. Cada
+ * consumidor lleva su propio ChangeVersions y descarta el cambio cuya versión no
+ * supera la del último que aplicó para ese id. Las bajas también se recuerdan, así
+ * una edición vieja que llega tarde no revive un libro eliminado.
+ *
+ * Los cambios sin versión (0, publicados sin {@link ChangeLog} en pruebas) se
+ * aceptan siempre.
+ */
+public final class ChangeVersions {
+
+    private final Map<EntityType, Map<Long, Long>> versiones = new EnumMap<>(EntityType.class);
+
+    /**
+     * Registra el cambio si es más nuevo que el último aplicado para su id.
+     *
+     * @return false si es un cambio viejo que el consumidor debe ignorar
+     */
+    public synchronized boolean accept(EntityChange change) {
+        long version = change.getVersion();
+        if (version <= 0 || change.getId() == null) {
+            return true;
+        }
+        Map<Long, Long> porId = versiones.computeIfAbsent(change.getEntity(), k -> new HashMap<>());
+        Long actual = porId.get(change.getId());
+        if (actual != null && actual >= version) {
+            return false;
+        }
+        porId.put(change.getId(), version);
+        return true;
+    }
+}
@@ -0,0 +1,79 @@
+package com.grupobb.biblioteca.service.event;
+
+/**
+ * Cambio de una sola entidad publicado por los servicios tras una escritura.
+ *
+ * El payload es el DTO de respuesta de la entidad (BookResponse, AuthorResponse,
+ * LoanResponse, ...) con su estado después del cambio; en DELETED es el último
+ * estado conocido. Se publica el DTO y no la entidad JPA para que los consumidores
+ * no dependan del contexto de persistencia de la transacción que lo originó.
+ *
+ * `sequence` la asigna el {@link EntityChangeStream} al emitir (0 hasta entonces):
+ * crece de a uno en el orden en que los suscriptores reciben los cambios.
+ *
+ * `version` es la versión del {@link ChangeLog} (0 hasta que se registra). Los
+ * cambios de una misma fila tienen versiones en el orden en que se confirmaron,
+ * aunque se emitan en otro: un consumidor descarta el que sea más viejo que el
+ * último que aplicó para ese id (ver {@link ChangeVersions}).
+ */
+public final class EntityChange {
+
+    private final EntityType entity;
+    private final ChangeType type;
+    private final Long id;
+    private final Object payload;
+    private final long sequence;
+    private final long version;
+
+    public EntityChange(EntityType entity, ChangeType type, Long id, Object payload) {
+        this(entity, type, id, payload, 0, 0);
+    }
+
+    private EntityChange(EntityType entity, ChangeType type, Long id, Object payload, long sequence, long version) {
+        this.entity = entity;
+        this.type = type;
+        this.id = id;
+        this.payload = payload;
+        this.sequence = sequence;
+        this.version = version;
+    }
+
+    public static EntityChange created(EntityType entity, Long id, Object payload) {
+        return new EntityChange(entity, ChangeType.CREATED, id, payload);
+    }
+
+    public static EntityChange updated(EntityType entity, Long id, Object payload) {
+        return new EntityChange(entity, ChangeType.UPDATED, id, payload);
+    }
+
+    public static EntityChange deleted(EntityType entity, Long id, Object payload) {
+        return new EntityChange(entity, ChangeType.DELETED, id, payload);
+    }
+
+    public EntityType getEntity() { return entity; }
+    public ChangeType getType() { return type; }
+    public Long getId() { return id; }
+    public Object getPayload() { return payload; }
+    public long getSequence() { return sequence; }
+    public long getVersion() { return version; }
+
+    // Copia con el número de secuencia asignado al emitir
+    EntityChange withSequence(long sequence) {
+        return new EntityChange(entity, type, id, payload, sequence, version);
+    }
+
+    // Copia con la versión asignada al registrar el cambio
+    EntityChange withVersion(long version) {
+        return new EntityChange(entity, type, id, payload, sequence, version);
+    }
+
+    // Devuelve el payload con el tipo esperado por el consumidor
+    public <T> T payloadAs(Class<T> type) {
+        return type.cast(payload);
+    }
+
+    @Override
+    public String toString() {
+        return entity + " " + type + " id=" + id;
+    }
+}
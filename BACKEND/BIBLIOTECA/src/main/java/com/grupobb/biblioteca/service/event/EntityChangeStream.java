@@ -0,0 +1,206 @@
+package com.grupobb.biblioteca.service.event;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Flujo caliente (hot) y de larga vida con los cambios de entidades.
+ *
+ * Los servicios publican solo la entidad modificada en cada escritura; los
+ * consumidores (análisis incremental, índices, cachés, ...) se suscriben una vez
+ * al arrancar en lugar de volver a leer la tabla completa tras cada cambio.
+ *
+ * Si hay una transacción activa los cambios se juntan y se emiten después del commit,
+ * así nadie observa cambios que luego se revierten. Antes del commit se guardan en el
+ * {@link ChangeLog} en esa misma transacción (feed GET /api/.../changes), que les
+ * asigna su versión.
+ *
+ * Los suscriptores de {@link #changes()} reciben los cambios en un único hilo
+ * ("cambios"), en el orden de emisión: la escritura no espera a los consumidores ni
+ * compite con otras escrituras por un lock. Ese orden es el de los afterCommit, que
+ * puede diferir del de commit; los consumidores con estado por id comparan versiones
+ * (ver {@link ChangeVersions}). Lo que debe verse antes de que la escritura responda
+ * (invalidar la caché, subir la versión de un listado) se registra con
+ * {@link #onCommit(Consumer)}.
+ *
+ * Cada cambio emitido lleva un número de secuencia en memoria, consecutivo en el orden
+ * de emisión. Se reinicia con la aplicación: `epoch` identifica la ejecución actual para
+ * que un cliente no mezcle secuencias de dos arranques distintos.
+ */
+@Component
+public class EntityChangeStream {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityChangeStream.class);
+
+    // multicast sin buffer: un suscriptor lento no retiene a los demás ni acumula memoria
+    private final Sinks.Many<EntityChange> sink = Sinks.many().multicast().directBestEffort();
+
+    // Registro persistente; null en pruebas unitarias que usan el flujo solo en memoria
+    private final ChangeLog changeLog;
+    // Versiones en memoria cuando no hay registro persistente
+    private final AtomicLong versiones = new AtomicLong();
+
+    // Hilo único que entrega los cambios a los suscriptores
+    private final Scheduler dispatcher;
+    // Oyentes que corren en el hilo de la escritura al confirmar
+    private final List<Consumer<EntityChange>> commitListeners = new CopyOnWriteArrayList<>();
+
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    // Última secuencia emitida (se escribe bajo el lock del sink)
+    private volatile long sequence;
+
+    // Sin registro ni hilo propio: se emite en el hilo que publica (pruebas unitarias)
+    public EntityChangeStream() {
+        this(null, Schedulers.immediate());
+    }
+
+    @Autowired
+    public EntityChangeStream(ChangeLog changeLog) {
+        this(changeLog, Schedulers.newSingle("cambios"));
+    }
+
+    EntityChangeStream(ChangeLog changeLog, Scheduler dispatcher) {
+        this.changeLog = changeLog;
+        this.dispatcher = dispatcher;
+    }
+
+    @PreDestroy
+    void stop() {
+        dispatcher.dispose();
+    }
+
+    public void publish(EntityChange change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            lote().cambios.add(change);
+        } else {
+            dispatch(versionar(List.of(change)));
+        }
+    }
+
+    public Flux<EntityChange> changes() {
+        return sink.asFlux();
+    }
+
+    public Flux<EntityChange> changes(EntityType entity) {
+        return sink.asFlux().filter(change -> change.getEntity() == entity);
+    }
+
+    /**
+     * Registra un oyente que recibe cada cambio en el hilo de la escritura, después
+     * del commit y antes de que la escritura responda. Solo para trabajo breve que no
+     * dependa del orden entre escrituras (invalidar, contar); el resto usa changes().
+     */
+    public Disposable onCommit(Consumer<EntityChange> listener) {
+        commitListeners.add(listener);
+        return () -> commitListeners.remove(listener);
+    }
+
+    /**
+     * Última secuencia emitida. Leída antes de una consulta, todo cambio con secuencia
+     * menor o igual ya estaba confirmado y es visible para esa consulta.
+     */
+    public long lastSequence() {
+        return sequence;
+    }
+
+    public String epoch() {
+        return epoch;
+    }
+
+    // Cambios de la transacción actual (uno por transacción, se crea con el primero)
+    private Lote lote() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Lote lote && lote.esDe(this)) {
+                return lote;
+            }
+        }
+        Lote lote = new Lote();
+        TransactionSynchronizationManager.registerSynchronization(lote);
+        return lote;
+    }
+
+    // Asigna la versión de cada cambio (registrándolos en el ChangeLog si lo hay)
+    private List<EntityChange> versionar(List<EntityChange> cambios) {
+        List<EntityChange> versionados = new ArrayList<>(cambios.size());
+        if (changeLog == null) {
+            cambios.forEach(change -> versionados.add(change.withVersion(versiones.incrementAndGet())));
+            return versionados;
+        }
+        long[] asignadas = changeLog.recordAll(cambios);
+        for (int i = 0; i < cambios.size(); i++) {
+            versionados.add(cambios.get(i).withVersion(asignadas[i]));
+        }
+        return versionados;
+    }
+
+    // Un consumidor que falla nunca debe hacer fallar la escritura ya confirmada
+    private void dispatch(List<EntityChange> cambios) {
+        for (EntityChange change : cambios) {
+            for (Consumer<EntityChange> listener : commitListeners) {
+                try {
+                    listener.accept(change);
+                } catch (RuntimeException ex) {
+                    log.warn("[Cambios] Error en un oyente de {}: {}", change, ex.getMessage());
+                }
+            }
+        }
+        try {
+            dispatcher.schedule(() -> cambios.forEach(this::emit));
+        } catch (RejectedExecutionException ex) {
+            log.warn("[Cambios] No se pudieron emitir {} cambios: {}", cambios.size(), ex.getMessage());
+        }
+    }
+
+    private void emit(EntityChange change) {
+        // En producción solo emite el hilo "cambios" y el lock nunca se disputa; sin hilo
+        // propio (pruebas) varios hilos pueden emitir a la vez y el sink exige emisiones
+        // serializadas.
+        synchronized (sink) {
+            try {
+                sequence++;
+                sink.emitNext(change.withSequence(sequence), Sinks.EmitFailureHandler.FAIL_FAST);
+            } catch (RuntimeException ex) {
+                log.warn("[Cambios] No se pudo emitir {}: {}", change, ex.getMessage());
+            }
+        }
+    }
+
+    // Cambios publicados en una transacción: se versionan antes del commit y se emiten después
+    private final class Lote implements TransactionSynchronization {
+
+        private final List<EntityChange> cambios = new ArrayList<>();
+        private List<EntityChange> versionados = List.of();
+
+        boolean esDe(EntityChangeStream stream) {
+            return EntityChangeStream.this == stream;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            versionados = versionar(cambios);
+        }
+
+        @Override
+        public void afterCommit() {
+            dispatch(versionados);
+        }
+    }
+}
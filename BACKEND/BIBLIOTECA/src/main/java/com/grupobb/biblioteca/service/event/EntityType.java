@@ -0,0 +1,11 @@
+package com.grupobb.biblioteca.service.event;
+
+/**
+ * Colecciones del dominio que publican cambios en el {@link EntityChangeStream}.
+ */
+public enum EntityType {
+    AUTHOR,
+    BOOK,
+    USER,
+    LOAN
+}
@@ -6,18 +6,15 @@ import com.grupobb.biblioteca.dto.Author.AuthorResponse;
 import com.grupobb.biblioteca.repository.AuthorRepository;
 import com.grupobb.biblioteca.repository.BookRepository;
 import com.grupobb.biblioteca.service.AuthorService;
-import com.grupobb.biblioteca.service.subscriber.AuthorSubscriber;
+import com.grupobb.biblioteca.service.analysis.AnalysisEngine;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
 import com.grupobb.biblioteca.web.advice.BadRequestException;
 import com.grupobb.biblioteca.web.advice.NotFoundException;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import reactor.core.publisher.Flux;
-import reactor.core.scheduler.Schedulers;
-
-import java.time.Duration;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class AuthorServiceImpl implements AuthorService {
@@ -25,72 +22,32 @@ public class AuthorServiceImpl implements AuthorService {
     private final AuthorRepository repository;
     private final BookRepository bookRepository;
 
-    @Value("${author.batch-size:2}")
-    private int authorBatchSize;
+    // Flujo de cambios: las escrituras publican solo el autor afectado
+    private final EntityChangeStream changeStream;
+
+    // Motor compartido del análisis en segundo plano (acotado y con coalescencia)
+    private final AnalysisEngine analysisEngine;
 
-    public AuthorServiceImpl(AuthorRepository repository, BookRepository bookRepository) {
+    public AuthorServiceImpl(AuthorRepository repository, BookRepository bookRepository,
+                             EntityChangeStream changeStream, AnalysisEngine analysisEngine) {
         this.repository = repository;
         this.bookRepository = bookRepository;
+        this.changeStream = changeStream;
+        this.analysisEngine = analysisEngine;
     }
 
     @Override
     public List<AuthorResponse> findAll() {
         // 1) Traer sincrónico
-        List<Author> authors = repository.findAll();
-
-        // 2) Side-effect reactivo (sin bloquear)
-        ejecutarAnalisisReactivo(authors);
-
-        // 3) Retornar normal al frontend
-        return authors.stream()
+        List<AuthorResponse> authors = repository.findAll().stream()
                 .map(this::toResponse)
                 .toList();
-    }
 
-    private void ejecutarAnalisisReactivo(List<Author> authors) {
-        AtomicInteger metricProcessed = new AtomicInteger(0);
-        AtomicInteger metricErrores = new AtomicInteger(0);
-
-        Flux.fromIterable(authors)
-                .parallel()
-                .runOn(Schedulers.parallel())
-                .sequential()
-                .subscribeOn(Schedulers.boundedElastic())
-
-                // Simular retardo como en loans
-                .delayElements(Duration.ofMillis(100))
-
-                // Filtro ejemplo: solo analizar autores con nacionalidad (puedes cambiarlo)
-                .filter(a -> a.getNacionalidad() != null && !a.getNacionalidad().isBlank())
-
-                // Map ejemplo: disparar error si nombre es "ErrorAuthor" (puedes cambiarlo)
-                .map(a -> {
-                    if ("ErrorAuthor".equalsIgnoreCase(a.getNombre())) {
-                        throw new RuntimeException("Autor inválido detectado: " + a.getNombre());
-                    }
-                    return a;
-                })
-
-                .timeout(Duration.ofSeconds(2))
-
-                .doOnNext(a -> {
-                    int count = metricProcessed.incrementAndGet();
-                    System.out.println("[Métrica] Autores procesados: " + count);
-                })
-                .doOnError(err -> {
-                    int count = metricErrores.incrementAndGet();
-                    System.out.println("[Métrica] Errores detectados: " + count + " - " + err.getMessage());
-                })
-                .doOnComplete(() -> System.out.println("[Métrica] Flujo de autores completado"))
-
-                .retry(3)
-
-                .onErrorResume(err -> {
-                    System.out.println("[Reactive] Error en el flujo de autores: " + err.getMessage());
-                    return Flux.empty();
-                })
-
-                .subscribe(new AuthorSubscriber(authorBatchSize));
+        // 2) Encolar el análisis reactivo (sin bloquear)
+        analysisEngine.submit(EntityType.AUTHOR, authors);
+
+        // 3) Retornar normal al frontend
+        return authors;
     }
 
     @Override
@@ -108,11 +65,12 @@ public class AuthorServiceImpl implements AuthorService {
         author.setNacionalidad(request.getNacionalidad());
 
         Author saved = repository.save(author);
+        AuthorResponse response = toResponse(saved);
 
-        // Disparar análisis reactivo tras crear
-        ejecutarAnalisisReactivo(repository.findAll());
+        // Publicar el cambio para el análisis incremental
+        changeStream.publish(EntityChange.created(EntityType.AUTHOR, saved.getId(), response));
 
-        return toResponse(saved);
+        return response;
     }
 
     @Override
@@ -125,11 +83,12 @@ public class AuthorServiceImpl implements AuthorService {
         author.setNacionalidad(request.getNacionalidad());
 
         Author updated = repository.save(author);
+        AuthorResponse response = toResponse(updated);
 
-        // Disparar análisis reactivo tras actualizar
-        ejecutarAnalisisReactivo(repository.findAll());
+        // Publicar el cambio para el análisis incremental
+        changeStream.publish(EntityChange.updated(EntityType.AUTHOR, updated.getId(), response));
 
-        return toResponse(updated);
+        return response;
     }
 
     @Override
@@ -144,8 +103,8 @@ public class AuthorServiceImpl implements AuthorService {
 
         repository.deleteById(id);
 
-        // Disparar análisis reactivo tras eliminar
-        ejecutarAnalisisReactivo(repository.findAll());
+        // Publicar la última foto del autor eliminado
+        changeStream.publish(EntityChange.deleted(EntityType.AUTHOR, id, toResponse(author)));
     }
 
     private AuthorResponse toResponse(Author author) {
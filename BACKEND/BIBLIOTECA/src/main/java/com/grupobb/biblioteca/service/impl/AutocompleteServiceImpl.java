@@ -0,0 +1,221 @@
+package com.grupobb.biblioteca.service.impl;
+
+import com.grupobb.biblioteca.domain.Author;
+import com.grupobb.biblioteca.domain.User;
+import com.grupobb.biblioteca.dto.Author.AuthorResponse;
+import com.grupobb.biblioteca.dto.Autocomplete.SuggestionResponse;
+import com.grupobb.biblioteca.dto.Book.BookResponse;
+import com.grupobb.biblioteca.dto.User.UserResponseData;
+import com.grupobb.biblioteca.repository.AuthorRepository;
+import com.grupobb.biblioteca.repository.BookRepository;
+import com.grupobb.biblioteca.repository.UserRepository;
+import com.grupobb.biblioteca.service.AutocompleteService;
+import com.grupobb.biblioteca.service.event.ChangeType;
+import com.grupobb.biblioteca.service.event.ChangeVersions;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.search.PrefixIndex;
+import com.grupobb.biblioteca.web.advice.BadRequestException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Autocompletado de títulos, autores y usuarios servido desde memoria.
+ *
+ * Mantiene un {@link PrefixIndex} por colección: se carga al arrancar y luego se
+ * actualiza con el flujo de cambios que publican los servicios en cada alta,
+ * edición o baja, sin consultar la base en cada tecla. Los cambios que llegan mientras
+ * corren las consultas de una recarga se guardan y se vuelven a aplicar sobre lo cargado.
+ */
+@Service
+public class AutocompleteServiceImpl implements AutocompleteService {
+
+    private static final Logger log = LoggerFactory.getLogger(AutocompleteServiceImpl.class);
+
+    // Máximo de sugerencias por consulta
+    private static final int MAX_SUGERENCIAS = 50;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final UserRepository userRepository;
+    private final EntityChangeStream changeStream;
+
+    private final PrefixIndex libros = new PrefixIndex();
+    private final PrefixIndex autores = new PrefixIndex();
+    private final PrefixIndex usuarios = new PrefixIndex();
+    // Última versión aplicada de cada fila. No se reinicia al recargar: las consultas ya
+    // reflejan todo lo aceptado antes, y un cambio más viejo sigue siendo viejo
+    private final ChangeVersions versiones = new ChangeVersions();
+
+    // Protege `versiones` y `durante`, y ordena cada cambio respecto de la carga de los índices
+    private final Object lock = new Object();
+    // Cambios aplicados mientras corren las consultas de una recarga (null fuera de ella)
+    private List<EntityChange> durante;
+
+    private Disposable subscription;
+
+    public AutocompleteServiceImpl(BookRepository bookRepository,
+                                   AuthorRepository authorRepository,
+                                   UserRepository userRepository,
+                                   EntityChangeStream changeStream) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.userRepository = userRepository;
+        this.changeStream = changeStream;
+    }
+
+    @PostConstruct
+    public void start() {
+        // Los cambios llegan en el hilo "cambios"; uno más viejo que el último aplicado
+        // para esa fila se descarta
+        subscription = changeStream.changes()
+                .subscribe(this::apply,
+                        err -> log.warn("[Autocompletado] Error actualizando índices: {}", err.getMessage()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    // Carga inicial de las tres colecciones al terminar de arrancar
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        synchronized (lock) {
+            durante = new ArrayList<>();
+        }
+
+        // La secuencia se lee antes de las consultas: todo cambio hasta ella ya está incluido
+        long desde = changeStream.lastSequence();
+        Map<Long, List<String>> textosLibros = new HashMap<>();
+        Map<Long, String> etiquetasLibros = new HashMap<>();
+        Map<Long, List<String>> textosAutores = new HashMap<>();
+        Map<Long, String> etiquetasAutores = new HashMap<>();
+        Map<Long, List<String>> textosUsuarios = new HashMap<>();
+        Map<Long, String> etiquetasUsuarios = new HashMap<>();
+        try {
+            for (BookResponse book : bookRepository.findAllResponses()) {
+                textosLibros.put(book.getId(), List.of(book.getTitulo()));
+                etiquetasLibros.put(book.getId(), book.getTitulo());
+            }
+            for (Author author : authorRepository.findAll()) {
+                textosAutores.put(author.getId(), List.of(author.getNombre()));
+                etiquetasAutores.put(author.getId(), author.getNombre());
+            }
+            for (User user : userRepository.findAll()) {
+                textosUsuarios.put(user.getId(), List.of(user.getNombre(), user.getEmail()));
+                etiquetasUsuarios.put(user.getId(), etiquetaUsuario(user.getNombre(), user.getEmail()));
+            }
+        } catch (RuntimeException ex) {
+            synchronized (lock) {
+                durante = null;
+            }
+            throw ex;
+        }
+
+        synchronized (lock) {
+            libros.load(textosLibros, etiquetasLibros);
+            autores.load(textosAutores, etiquetasAutores);
+            usuarios.load(textosUsuarios, etiquetasUsuarios);
+            // Lo emitido después de `desde` puede faltar en las consultas: se aplica encima
+            for (EntityChange change : durante) {
+                if (change.getSequence() > desde) {
+                    aplicar(change);
+                }
+            }
+            durante = null;
+        }
+
+        log.info("[Autocompletado] Índices construidos - libros: {}, autores: {}, usuarios: {} claves",
+                libros.size(), autores.size(), usuarios.size());
+    }
+
+    @Override
+    public List<SuggestionResponse> suggest(String tipo, String prefijo, int limit) {
+        PrefixIndex index = switch (tipo == null ? "" : tipo) {
+            case "libros" -> libros;
+            case "autores" -> autores;
+            case "usuarios" -> usuarios;
+            default -> throw new BadRequestException("Tipo de autocompletado inválido: use libros, autores o usuarios");
+        };
+        if (prefijo == null || prefijo.isBlank()) {
+            return List.of();
+        }
+        return index.search(prefijo, Math.max(1, Math.min(limit, MAX_SUGERENCIAS))).stream()
+                .map(id -> {
+                    String texto = index.etiqueta(id);
+                    // Puede haberse eliminado entre la búsqueda y la lectura de la etiqueta
+                    return texto == null ? null : new SuggestionResponse(id, texto);
+                })
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // Aplica un cambio publicado por los servicios
+    void apply(EntityChange change) {
+        synchronized (lock) {
+            if (!versiones.accept(change)) {
+                return;
+            }
+            aplicar(change);
+            if (durante != null) {
+                durante.add(change);
+            }
+        }
+    }
+
+    // Con `lock` tomado
+    private void aplicar(EntityChange change) {
+        switch (change.getEntity()) {
+            case BOOK -> {
+                if (change.getType() == ChangeType.DELETED) {
+                    libros.remove(change.getId());
+                } else {
+                    // Los préstamos solo cambian la disponibilidad: no hace falta reindexar
+                    BookResponse book = change.payloadAs(BookResponse.class);
+                    if (!book.getTitulo().equals(libros.etiqueta(book.getId()))) {
+                        libros.put(book.getId(), List.of(book.getTitulo()), book.getTitulo());
+                    }
+                }
+            }
+            case AUTHOR -> {
+                if (change.getType() == ChangeType.DELETED) {
+                    autores.remove(change.getId());
+                } else {
+                    AuthorResponse author = change.payloadAs(AuthorResponse.class);
+                    autores.put(author.getId(), List.of(author.getNombre()), author.getNombre());
+                }
+            }
+            case USER -> {
+                if (change.getType() == ChangeType.DELETED) {
+                    usuarios.remove(change.getId());
+                } else {
+                    UserResponseData user = change.payloadAs(UserResponseData.class);
+                    usuarios.put(user.getId(), List.of(user.getNombre(), user.getEmail()),
+                            etiquetaUsuario(user.getNombre(), user.getEmail()));
+                }
+            }
+            case LOAN -> {
+                // Los préstamos no tienen autocompletado
+            }
+        }
+    }
+
+    private static String etiquetaUsuario(String nombre, String email) {
+        return nombre + " <" + email + ">";
+    }
+}
@@ -2,24 +2,27 @@ package com.grupobb.biblioteca.service.impl;
 
 import com.grupobb.biblioteca.domain.Author;
 import com.grupobb.biblioteca.domain.Book;
+import com.grupobb.biblioteca.dto.Book.BookAvailabilityResponse;
+import com.grupobb.biblioteca.dto.Book.BookCacheStatsResponse;
+import com.grupobb.biblioteca.dto.Book.BookCountResponse;
 import com.grupobb.biblioteca.dto.Book.BookRequestData;
 import com.grupobb.biblioteca.dto.Book.BookResponse;
 import com.grupobb.biblioteca.repository.AuthorRepository;
 import com.grupobb.biblioteca.repository.BookRepository;
 import com.grupobb.biblioteca.repository.LoanRepository;
 import com.grupobb.biblioteca.service.BookService;
-import com.grupobb.biblioteca.service.subscriber.BookSubscriber;
+import com.grupobb.biblioteca.service.analysis.AnalysisEngine;
+import com.grupobb.biblioteca.service.cache.BookCache;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
+import com.grupobb.biblioteca.service.search.AvailabilityIndex;
+import com.grupobb.biblioteca.service.search.BookSearchIndex;
 import com.grupobb.biblioteca.web.advice.BadRequestException;
 import com.grupobb.biblioteca.web.advice.NotFoundException;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import reactor.core.publisher.Flux;
-import reactor.core.scheduler.Schedulers;
-
-import java.time.Duration;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class BookServiceImpl implements BookService {
@@ -28,92 +31,93 @@ public class BookServiceImpl implements BookService {
     private final AuthorRepository authorRepository;
     private final LoanRepository loanRepository;
 
-    // Tamaño del lote configurado en application.properties
-    @Value("${book.batch-size:2}")
-    private int bookBatchSize;
+    // Flujo de cambios: las escrituras publican solo el libro afectado
+    private final EntityChangeStream changeStream;
+
+    // Índice invertido en memoria (se mantiene solo a partir del flujo de cambios)
+    private final BookSearchIndex searchIndex;
+
+    // Bitmap de libros disponibles (mismo flujo de cambios que el índice de búsqueda)
+    private final AvailabilityIndex availabilityIndex;
+
+    // Caché de lecturas por id (se invalida sola a partir del flujo de cambios)
+    private final BookCache bookCache;
+
+    // Máximo de resultados por búsqueda
+    private static final int MAX_SEARCH_RESULTS = 100;
+
+    // Motor compartido del análisis en segundo plano (acotado y con coalescencia)
+    private final AnalysisEngine analysisEngine;
 
     public BookServiceImpl(BookRepository bookRepository,
                            AuthorRepository authorRepository,
-                           LoanRepository loanRepository) {
+                           LoanRepository loanRepository,
+                           EntityChangeStream changeStream,
+                           BookSearchIndex searchIndex,
+                           AvailabilityIndex availabilityIndex,
+                           BookCache bookCache,
+                           AnalysisEngine analysisEngine) {
         this.bookRepository = bookRepository;
         this.authorRepository = authorRepository;
         this.loanRepository = loanRepository;
+        this.changeStream = changeStream;
+        this.searchIndex = searchIndex;
+        this.availabilityIndex = availabilityIndex;
+        this.bookCache = bookCache;
+        this.analysisEngine = analysisEngine;
     }
 
     @Override
     public List<BookResponse> findAll() {
-        List<Book> books = bookRepository.findAll();
-        // Dispara el análisis reactivo de fondo
-        ejecutarAnalisisReactivoLibros(books);
+        // Proyección directa a DTO: no se cargan entidades para solo copiar campos
+        List<BookResponse> books = bookRepository.findAllResponses();
+        // Encola el análisis reactivo de fondo
+        analysisEngine.submit(EntityType.BOOK, books);
 
-        return books.stream()
-                .map(this::toResponse)
-                .toList();
+        return books;
     }
 
-    private void ejecutarAnalisisReactivoLibros(List<Book> books) {
-        // Contadores atómicos para métricas en hilos paralelos
-        AtomicInteger metricProcessed = new AtomicInteger(0);
-        AtomicInteger metricErrores = new AtomicInteger(0);
-
-        Flux.fromIterable(books)
-                // Inicia procesamiento paralelo
-                .parallel()
-                .runOn(Schedulers.parallel())
-                .sequential()
-                // Define el hilo de ejecución elástico para no bloquear el principal
-                .subscribeOn(Schedulers.boundedElastic())
-
-                // Simular retraso de procesamiento (100ms por libro)
-                .delayElements(Duration.ofMillis(100))
-
-                // Solo procesa los que están disponibles
-                .filter(Book::isDisponible)
-
-                // Lógica de validación: si el título contiene "error", lanza excepción
-                .map(book -> {
-                    if (book.getTitulo().toLowerCase().contains("error")) {
-                        throw new RuntimeException("Libro inválido detectado: " + book.getTitulo());
-                    }
-                    return book;
-                })
-
-                // Si el flujo tarda más de 2 segundos, corta la ejecución
-                .timeout(Duration.ofSeconds(2))
-
-                // Efectos secundarios: registro de métricas y logs
-                .doOnNext(book -> {
-                    int count = metricProcessed.incrementAndGet();
-                    System.out.println("[Métrica] Libros procesados: " + count);
-                })
-                .doOnError(err -> {
-                    int count = metricErrores.incrementAndGet();
-                    System.out.println("[Métrica] Errores libros: " + count + " - " + err.getMessage());
-                })
-                .doOnComplete(() ->
-                        System.out.println("[Métrica] Flujo de libros completado")
-                )
-
-                // En caso de error, reintenta el flujo hasta 3 veces
-                .retry(3)
-
-                // Si después de reintentar sigue fallando, devuelve un flujo vacío para no romper la app
-                .onErrorResume(err -> {
-                    System.out.println("[Reactive] Error en análisis de libros: " + err.getMessage());
-                    return Flux.empty();
-                })
-                // Se suscribe usando el BookSubscriber personalizado (maneja Backpressure)
-                .subscribe(new BookSubscriber(bookBatchSize));
+    // Ids del bitmap resueltos contra el índice en memoria: no consulta la base
+    @Override
+    public List<BookResponse> findByDisponible(boolean disponible) {
+        return searchIndex.findAll(availabilityIndex.ids(disponible));
+    }
+
+    @Override
+    public BookCountResponse count() {
+        int total = availabilityIndex.size();
+        int disponibles = availabilityIndex.countAvailable();
+        return new BookCountResponse(total, disponibles, total - disponibles);
     }
 
     @Override
     public BookResponse findById(Long id) {
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Libro no encontrado con id " + id));
+        return bookCache.get(id, key -> {
+            Book book = bookRepository.findWithAutorById(key)
+                    .orElseThrow(() -> new NotFoundException("Libro no encontrado con id " + key));
+            return toResponse(book);
+        });
+    }
 
-        ejecutarAnalisisReactivoLibros(bookRepository.findAll());
+    @Override
+    public BookAvailabilityResponse availability() {
+        // La secuencia se lee antes de la consulta: todo cambio hasta ella ya está incluido
+        long seq = changeStream.lastSequence();
+        return new BookAvailabilityResponse(seq, changeStream.epoch(), bookRepository.findAvailability());
+    }
 
-        return toResponse(book);
+    @Override
+    public BookCacheStatsResponse cacheStats() {
+        return bookCache.stats();
+    }
+
+    // Búsqueda por título y autor sobre el índice en memoria (sin LIKE '%..%' en la base)
+    @Override
+    public List<BookResponse> search(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("El parámetro 'q' es obligatorio");
+        }
+        return searchIndex.search(query, Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS)));
     }
 
     @Override
@@ -129,15 +133,16 @@ public class BookServiceImpl implements BookService {
         book.setDisponible(request.getDisponible() != null ? request.getDisponible() : true);
 
         Book saved = bookRepository.save(book);
-        ejecutarAnalisisReactivoLibros(bookRepository.findAll());
+        BookResponse response = toResponse(saved);
+        changeStream.publish(EntityChange.created(EntityType.BOOK, saved.getId(), response));
 
-        return toResponse(saved);
+        return response;
     }
 
     @Override
     @Transactional
     public BookResponse update(Long id, BookRequestData request) {
-        Book book = bookRepository.findById(id)
+        Book book = bookRepository.findWithAutorById(id)
                 .orElseThrow(() -> new NotFoundException("Libro no encontrado con id " + id));
 
         book.setTitulo(request.getTitulo());
@@ -154,24 +159,26 @@ public class BookServiceImpl implements BookService {
         }
 
         Book updated = bookRepository.save(book);
-        ejecutarAnalisisReactivoLibros(bookRepository.findAll());
+        BookResponse response = toResponse(updated);
+        changeStream.publish(EntityChange.updated(EntityType.BOOK, updated.getId(), response));
 
-        return toResponse(updated);
+        return response;
     }
 
     @Override
     @Transactional
     public void delete(Long id) {
-        Book book = bookRepository.findById(id)
+        Book book = bookRepository.findWithAutorById(id)
                 .orElseThrow(() -> new NotFoundException("Libro no encontrado con id " + id));
 
         // Regla de negocio: No eliminar si hay préstamos sin devolver
         if (loanRepository.existsByLibroAndFechaDevolucionIsNull(book)) {
             throw new BadRequestException("No se puede eliminar el libro porque tiene préstamos activos");
         }
-        ejecutarAnalisisReactivoLibros(bookRepository.findAll());
 
         bookRepository.deleteById(id);
+        // Se publica la última foto del libro para que los consumidores puedan descontarlo
+        changeStream.publish(EntityChange.deleted(EntityType.BOOK, id, toResponse(book)));
     }
 
     // Convierte la entidad de BD a un objeto de respuesta (DTO)
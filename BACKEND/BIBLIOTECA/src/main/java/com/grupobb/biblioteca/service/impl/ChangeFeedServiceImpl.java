@@ -0,0 +1,99 @@
+package com.grupobb.biblioteca.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grupobb.biblioteca.domain.ChangeLogEntry;
+import com.grupobb.biblioteca.dto.Change.ChangeFeedItem;
+import com.grupobb.biblioteca.dto.Change.ChangeFeedResponse;
+import com.grupobb.biblioteca.repository.ChangeLogRepository;
+import com.grupobb.biblioteca.service.ChangeFeedService;
+import com.grupobb.biblioteca.service.event.ChangeLog;
+import com.grupobb.biblioteca.service.event.ChangeType;
+import com.grupobb.biblioteca.service.event.EntityType;
+import com.grupobb.biblioteca.web.advice.BadRequestException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Feed incremental de cambios por colección a partir del registro `cambios`.
+ *
+ * Flujo del cliente:
+ * 1. GET /api/{coleccion}/changes (sin since) -> versión actual
+ * 2. GET /api/{coleccion} -> listado completo
+ * 3. GET /api/{coleccion}/changes?since=N en cada sincronización, usando nextSince
+ *
+ * Los cambios entre 1 y 2 se vuelven a recibir como upsert, que es idempotente.
+ */
+@Service
+public class ChangeFeedServiceImpl implements ChangeFeedService {
+
+    // Máximo de filas del registro por página
+    private static final int MAX_LIMIT = 1000;
+
+    private final ChangeLogRepository repository;
+    private final ChangeLog changeLog;
+    private final ObjectMapper objectMapper;
+
+    public ChangeFeedServiceImpl(ChangeLogRepository repository, ChangeLog changeLog, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.changeLog = changeLog;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ChangeFeedResponse changesSince(EntityType entity, Long since, int limit) {
+        if (since != null && since < 0) {
+            throw new BadRequestException("El parámetro 'since' no puede ser negativo");
+        }
+        // Solo versiones ya confirmadas y sin huecos que puedan llenarse después
+        long hasta = changeLog.horizon();
+        if (since == null) {
+            return new ChangeFeedResponse(List.of(), hasta - 1, false);
+        }
+
+        int tope = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<ChangeLogEntry> page = repository.findPage(entity.name(), since, hasta, Limit.of(tope + 1));
+        boolean hasMore = page.size() > tope;
+        if (hasMore) {
+            page = page.subList(0, tope);
+        }
+        // Sin más páginas todo lo anterior al horizonte ya fue leído: se avanza hasta ahí
+        // para que la próxima consulta no vuelva a recorrer cambios de otras colecciones.
+        long nextSince = hasMore ? page.get(page.size() - 1).getId() : Math.max(since, hasta - 1);
+
+        // Si una fila cambió varias veces en la página basta con su último estado
+        Map<Long, ChangeLogEntry> ultimos = new LinkedHashMap<>();
+        for (ChangeLogEntry entry : page) {
+            ultimos.remove(entry.getEntidadId());
+            ultimos.put(entry.getEntidadId(), entry);
+        }
+        List<ChangeFeedItem> items = new ArrayList<>(ultimos.size());
+        for (ChangeLogEntry entry : ultimos.values()) {
+            items.add(toItem(entry));
+        }
+        return new ChangeFeedResponse(items, nextSince, hasMore);
+    }
+
+    private ChangeFeedItem toItem(ChangeLogEntry entry) {
+        if (ChangeType.DELETED.name().equals(entry.getTipo())) {
+            return new ChangeFeedItem(entry.getId(), entry.getEntidadId(), "delete", null);
+        }
+        return new ChangeFeedItem(entry.getId(), entry.getEntidadId(), "upsert", readJson(entry.getPayload()));
+    }
+
+    private JsonNode readJson(String payload) {
+        try {
+            return objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cambio registrado con JSON inválido", e);
+        }
+    }
+}
@@ -3,26 +3,39 @@ package com.grupobb.biblioteca.service.impl;
 import com.grupobb.biblioteca.domain.Book;
 import com.grupobb.biblioteca.domain.Loan;
 import com.grupobb.biblioteca.domain.User;
+import com.grupobb.biblioteca.dto.Book.BookResponse;
+import com.grupobb.biblioteca.dto.Loan.LoanBatchItemResult;
+import com.grupobb.biblioteca.dto.Loan.LoanPageResponse;
 import com.grupobb.biblioteca.dto.Loan.LoanRequestData;
 import com.grupobb.biblioteca.dto.Loan.LoanResponse;
 import com.grupobb.biblioteca.repository.BookRepository;
 import com.grupobb.biblioteca.repository.LoanRepository;
 import com.grupobb.biblioteca.repository.UserRepository;
 import com.grupobb.biblioteca.service.LoanService;
-import com.grupobb.biblioteca.service.subscriber.LoanSubscriber;
+import com.grupobb.biblioteca.service.analysis.AnalysisEngine;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
 import com.grupobb.biblioteca.web.advice.AlreadyReturnedException;
+import com.grupobb.biblioteca.web.advice.BadRequestException;
 import com.grupobb.biblioteca.web.advice.BookNotAvailableException;
 import com.grupobb.biblioteca.web.advice.NotFoundException;
-import org.springframework.beans.factory.annotation.Value;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import reactor.core.publisher.Flux;
-import reactor.core.scheduler.Schedulers;
 
-import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class LoanServiceImpl implements LoanService {
@@ -32,102 +45,55 @@ public class LoanServiceImpl implements LoanService {
     private final UserRepository userRepository;
     private final BookRepository bookRepository;
 
-    // Tamaño del lote para el procesamiento reactivo (configurable)
-    @Value("${loan.batch-size:2}")
-    private int loanBatchSize;
+    // Flujo de cambios: cada escritura publica solo las entidades que modificó
+    private final EntityChangeStream changeStream;
+
+    // Usado por la exportación para desvincular entidades ya procesadas
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Tamaño máximo de página para el listado por cursor
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // Motor compartido del análisis en segundo plano (acotado y con coalescencia)
+    private final AnalysisEngine analysisEngine;
 
     // Inyección de dependencias
     public LoanServiceImpl(LoanRepository loanRepository,
                            UserRepository userRepository,
-                           BookRepository bookRepository) {
+                           BookRepository bookRepository,
+                           EntityChangeStream changeStream,
+                           AnalysisEngine analysisEngine) {
         this.loanRepository = loanRepository;
         this.userRepository = userRepository;
         this.bookRepository = bookRepository;
+        this.changeStream = changeStream;
+        this.analysisEngine = analysisEngine;
     }
 
-    // Listar préstamos (método clásico + análisis reactivo en segundo plano)
+    // Listar préstamos por cursor (página acotada + análisis reactivo en segundo plano)
     @Override
-    public List<LoanResponse> list() {
+    public LoanPageResponse list(Long after, int limit, Boolean activo, LocalDate desde, LocalDate hasta) {
 
-        // 1. Obtener los préstamos de la base de datos (sincrónico)
-        List<Loan> loans = loanRepository.findAll();
-
-        // 2. Ejecutar análisis reactivo SIN bloquear la respuesta HTTP
-        ejecutarAnalisisReactivo(loans);
+        if (desde != null && hasta != null && desde.isAfter(hasta)) {
+            throw new BadRequestException("La fecha 'desde' no puede ser posterior a 'hasta'");
+        }
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // 1. Pedir una fila extra para saber si existe una página siguiente
+        List<LoanResponse> loans = loanRepository.findPage(
+                after != null ? after : 0L, activo, desde, hasta, Limit.of(size + 1));
+        boolean hayMas = loans.size() > size;
+        if (hayMas) {
+            loans = loans.subList(0, size);
+        }
 
-        // 3. Retornar la respuesta normal al frontend
-        return loans.stream()
-                .map(this::toResponse)
-                .toList();
-    }
+        // 2. Encolar el análisis reactivo SIN bloquear la respuesta HTTP
+        analysisEngine.submit(EntityType.LOAN, loans);
 
-    /**
-     * Método que ejecuta el análisis reactivo de los préstamos.
-     * Se ejecuta en segundo plano (no afecta al usuario).
-     */
-    private void ejecutarAnalisisReactivo(List<Loan> loans) {//Recibe los préstamos
-
-        // Métricas simples para monitoreo
-        AtomicInteger metricProcessed = new AtomicInteger(0);
-        AtomicInteger metricErrores = new AtomicInteger(0);
-
-        Flux.fromIterable(loans)//Los convierte en un flujo reactivo
-
-                // Ejecutar en hilos separados para no bloquear la app
-                .parallel()//Se ejecuta en segundo plano
-                .runOn(Schedulers.parallel())//Se ejecuta en segundo plano
-                .sequential()
-                .subscribeOn(Schedulers.boundedElastic())
-
-                // Simular tiempo de procesamiento
-                .delayElements(Duration.ofMillis(100))
-
-                // Filtrar solo préstamos NO devueltos
-                .filter(loan -> loan.getFechaDevolucion() == null)
-
-                // Simular validación
-                .map(loan -> {
-                    if ("ErrorUser".equals(loan.getUsuario().getNombre())) {
-                        throw new RuntimeException(
-                                "Usuario bloqueado detectado: " + loan.getUsuario().getNombre()
-                        );
-                    }
-                    return loan;
-                })
-
-                // Evitar que el flujo se quede colgado
-                .timeout(Duration.ofSeconds(2))
-
-                // Contar préstamos procesados
-                .doOnNext(loan -> {
-                    int count = metricProcessed.incrementAndGet();
-                    System.out.println("[Métrica] Préstamos procesados: " + count);
-                })
-
-                // Contar errores
-                .doOnError(err -> {
-                    int count = metricErrores.incrementAndGet();
-                    System.out.println("[Métrica] Errores detectados: " + count
-                            + " - " + err.getMessage());
-                })
-
-                // Mensaje al finalizar el flujo
-                .doOnComplete(() ->
-                        System.out.println("[Métrica] Flujo de préstamos completado")
-                )
-
-                // Reintentar hasta 3 veces si ocurre un error
-                .retry(3)
-
-                // Manejo final del error para evitar que la app se caiga
-                .onErrorResume(err -> {
-                    System.out.println("[Reactive] Error en el flujo de préstamos: "
-                            + err.getMessage());
-                    return Flux.empty();
-                })
-
-                // Suscribirse usando el Subscriber personalizado
-                .subscribe(new LoanSubscriber(loanBatchSize));
+        // 3. Retornar la página con el cursor de la siguiente
+        Long nextCursor = hayMas ? loans.get(loans.size() - 1).getId() : null;
+        return new LoanPageResponse(loans, nextCursor);
     }
 
     // Crear un nuevo préstamo
@@ -139,15 +105,20 @@ public class LoanServiceImpl implements LoanService {
         User user = userRepository.findById(request.getUsuarioId())
                 .orElseThrow(() -> new NotFoundException("Usuario no encontrado"));
 
-        // Validar libro
-        Book book = bookRepository.findById(request.getLibroId())
-                .orElseThrow(() -> new NotFoundException("Libro no encontrado"));
-
-        // Verificar disponibilidad
-        if (!book.isDisponible()) {
+        // Reclamar el libro con una escritura condicional (disponible -> no disponible).
+        // Así dos préstamos concurrentes del mismo libro no pueden leer ambos
+        // "disponible" y crear dos préstamos: solo uno actualiza la fila.
+        if (bookRepository.claimIfAvailable(request.getLibroId()) == 0) {
+            if (!bookRepository.existsById(request.getLibroId())) {
+                throw new NotFoundException("Libro no encontrado");
+            }
             throw new BookNotAvailableException("El libro no está disponible");
         }
 
+        // El libro se carga después de reclamarlo, ya con disponible = false
+        Book book = bookRepository.findWithAutorById(request.getLibroId())
+                .orElseThrow(() -> new NotFoundException("Libro no encontrado"));
+
         // Crear préstamo
         Loan loan = new Loan();
         loan.setUsuario(user);
@@ -155,17 +126,88 @@ public class LoanServiceImpl implements LoanService {
         loan.setFechaPrestamo(LocalDate.now());
         loan.setFechaDevolucion(null);
 
-        // Marcar libro como no disponible
-        book.setDisponible(false);
-        bookRepository.save(book);
-
         // Guardar préstamo
         Loan saved = loanRepository.save(loan);
+        LoanResponse response = toResponse(saved);
+
+        // Publicar solo lo que cambió (el préstamo nuevo y el libro ahora prestado)
+        publicarCambios(EntityChange.created(EntityType.LOAN, saved.getId(), response), book);
+
+        return response;
+    }
+
+    // Crear varios préstamos en una sola transacción
+    @Override
+    @Transactional
+    public List<LoanBatchItemResult> createLoans(List<LoanRequestData> requests) {
+
+        // 1. Resolver usuarios y libros en bloque (una consulta IN por tabla).
+        // Los libros quedan bloqueados hasta el commit para que ningún otro
+        // préstamo los reclame mientras se procesa el lote.
+        Set<Long> userIds = requests.stream()
+                .map(LoanRequestData::getUsuarioId)
+                .collect(Collectors.toSet());
+        Set<Long> bookIds = requests.stream()
+                .map(LoanRequestData::getLibroId)
+                .collect(Collectors.toSet());
+
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, Book> books = bookRepository.findAllByIdForUpdate(bookIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        // 2. Validar cada elemento; los errores se informan sin abortar el lote
+        List<LoanBatchItemResult> results = new ArrayList<>(requests.size());
+        List<Loan> nuevos = new ArrayList<>();
+        LocalDate hoy = LocalDate.now();
+
+        for (LoanRequestData request : requests) {
+            User user = users.get(request.getUsuarioId());
+            Book book = books.get(request.getLibroId());
+
+            if (user == null) {
+                results.add(LoanBatchItemResult.failed(request.getUsuarioId(), request.getLibroId(), "Usuario no encontrado"));
+                continue;
+            }
+            if (book == null) {
+                results.add(LoanBatchItemResult.failed(request.getUsuarioId(), request.getLibroId(), "Libro no encontrado"));
+                continue;
+            }
+            // También cubre el mismo libro repetido dentro del lote
+            if (!book.isDisponible()) {
+                results.add(LoanBatchItemResult.failed(request.getUsuarioId(), request.getLibroId(), "El libro no está disponible"));
+                continue;
+            }
+
+            // Marcar libro como no disponible (se escribe en el flush con JDBC batching)
+            book.setDisponible(false);
+
+            Loan loan = new Loan();
+            loan.setUsuario(user);
+            loan.setLibro(book);
+            loan.setFechaPrestamo(hoy);
+            loan.setFechaDevolucion(null);
+            nuevos.add(loan);
+            results.add(null); // se completa tras guardar
+        }
 
-        // Ejecutar análisis reactivo tras crear el préstamo
-        ejecutarAnalisisReactivo(loanRepository.findAll());
+        // 3. Guardar todos los préstamos juntos (un solo lote JDBC; con IDENTITY
+        // saveAll haría un INSERT por préstamo)
+        loanRepository.insertAll(nuevos);
 
-        return toResponse(saved);
+        int next = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                LoanRequestData request = requests.get(i);
+                Loan loan = nuevos.get(next++);
+                LoanResponse response = toResponse(loan);
+                results.set(i, LoanBatchItemResult.ok(request.getUsuarioId(), request.getLibroId(), response));
+
+                publicarCambios(EntityChange.created(EntityType.LOAN, loan.getId(), response), loan.getLibro());
+            }
+        }
+
+        return results;
     }
 
     // Devolver un libro
@@ -174,7 +216,7 @@ public class LoanServiceImpl implements LoanService {
     public LoanResponse returnLoan(Long loanId) {
 
         // Buscar préstamo
-        Loan loan = loanRepository.findById(loanId)
+        Loan loan = loanRepository.findWithDetailsById(loanId)
                 .orElseThrow(() -> new NotFoundException("Préstamo no encontrado"));
 
         // Validar que no haya sido devuelto antes
@@ -192,29 +234,116 @@ public class LoanServiceImpl implements LoanService {
 
         // Guardar cambios
         Loan updated = loanRepository.save(loan);
+        LoanResponse response = toResponse(updated);
+
+        // Publicar solo lo que cambió (el préstamo cerrado y el libro otra vez disponible)
+        publicarCambios(EntityChange.updated(EntityType.LOAN, updated.getId(), response), book);
+
+        return response;
+    }
+
+    // Devolver varios préstamos en una sola transacción
+    @Override
+    @Transactional
+    public List<LoanBatchItemResult> returnLoans(List<Long> loanIds) {
+
+        // 1. Cargar y bloquear los préstamos en una sola consulta IN
+        Map<Long, Loan> loans = loanRepository.findAllByIdForUpdate(new HashSet<>(loanIds)).stream()
+                .collect(Collectors.toMap(Loan::getId, Function.identity()));
+
+        // 2. Clasificar cada id: no encontrado, ya devuelto o a devolver
+        List<LoanBatchItemResult> results = new ArrayList<>(loanIds.size());
+        Set<Long> aDevolver = new HashSet<>();
+        Set<Long> librosLiberados = new HashSet<>();
+        LocalDate hoy = LocalDate.now();
+
+        for (Long loanId : loanIds) {
+            Loan loan = loans.get(loanId);
+            if (loan == null) {
+                results.add(LoanBatchItemResult.returnFailed(loanId, "Préstamo no encontrado"));
+                continue;
+            }
+            // Misma regla que AlreadyReturnedException, sin abortar el lote
+            // (también cubre el mismo id repetido dentro del lote)
+            if (loan.getFechaDevolucion() != null || !aDevolver.add(loanId)) {
+                results.add(LoanBatchItemResult.returnFailed(loanId, "El libro ya fue devuelto"));
+                continue;
+            }
+            librosLiberados.add(loan.getLibro().getId());
+
+            LoanResponse response = toResponse(loan);
+            response.setFechaDevolucion(hoy);
+            results.add(LoanBatchItemResult.returned(loanId, response));
+
+            // Los UPDATE por conjunto no tocan las entidades cargadas: el DTO refleja el estado final
+            BookResponse libro = toBookResponse(loan.getLibro());
+            libro.setDisponible(true);
+            changeStream.publish(EntityChange.updated(EntityType.LOAN, loanId, response));
+            changeStream.publish(EntityChange.updated(EntityType.BOOK, libro.getId(), libro));
+        }
 
-        // Ejecutar análisis reactivo tras la devolución
-        ejecutarAnalisisReactivo(loanRepository.findAll());//Para analizar datos actualizados.
+        // 3. Dos UPDATE por conjunto en lugar de guardar entidad por entidad
+        if (!aDevolver.isEmpty()) {
+            loanRepository.markReturned(aDevolver, hoy);
+            bookRepository.markAvailable(librosLiberados);
+        }
 
-        return toResponse(updated);
+        return results;
     }
 
     // Obtener préstamo por ID
     @Override
     public LoanResponse getById(Long loanId) {
-        Loan loan = loanRepository.findById(loanId)
+        Loan loan = loanRepository.findWithDetailsById(loanId)
                 .orElseThrow(() -> new NotFoundException("Préstamo no encontrado"));
         return toResponse(loan);
     }
 
+    // Exportar todo el historial de préstamos fila por fila (memoria constante)
+    @Override
+    @Transactional(readOnly = true)
+    public void exportHistory(Consumer<LoanResponse> sink) {
+        try (Stream<Loan> loans = loanRepository.streamAllOrderById()) {
+            loans.forEach(loan -> {
+                sink.accept(toResponse(loan));
+
+                // Desvincular lo ya procesado para que el contexto de persistencia no crezca
+                entityManager.detach(loan);
+                entityManager.detach(loan.getUsuario());
+                entityManager.detach(loan.getLibro());
+            });
+        }
+    }
+
+    // Publica el cambio del préstamo junto con el nuevo estado de disponibilidad del libro
+    private void publicarCambios(EntityChange loanChange, Book book) {
+        changeStream.publish(loanChange);
+        changeStream.publish(EntityChange.updated(EntityType.BOOK, book.getId(), toBookResponse(book)));
+    }
+
     // Convertir entidad Loan a DTO de respuesta
     private LoanResponse toResponse(Loan loan) {
         LoanResponse r = new LoanResponse();
         r.setId(loan.getId());
+        r.setUsuarioId(loan.getUsuario().getId());
+        r.setLibroId(loan.getLibro().getId());
         r.setUsuarioNombre(loan.getUsuario().getNombre());
         r.setLibroTitulo(loan.getLibro().getTitulo());
         r.setFechaPrestamo(loan.getFechaPrestamo());
         r.setFechaDevolucion(loan.getFechaDevolucion());
         return r;
     }
+
+    // Mismo mapeo que BookServiceImpl; se usa para publicar el cambio de disponibilidad del libro
+    private BookResponse toBookResponse(Book book) {
+        BookResponse dto = new BookResponse();
+        dto.setId(book.getId());
+        dto.setTitulo(book.getTitulo());
+        if (book.getAutor() != null) {
+            dto.setAutorId(book.getAutor().getId());
+            dto.setAutorNombre(book.getAutor().getNombre());
+        }
+        dto.setDisponible(book.isDisponible());
+        return dto;
+    }
 }
@@ -6,6 +6,9 @@ import com.grupobb.biblioteca.dto.User.UserResponseData;
 import com.grupobb.biblioteca.repository.LoanRepository;
 import com.grupobb.biblioteca.repository.UserRepository;
 import com.grupobb.biblioteca.service.UserService;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
 import com.grupobb.biblioteca.web.advice.BadRequestException;
 import com.grupobb.biblioteca.web.advice.ConflictException;
 import com.grupobb.biblioteca.web.advice.NotFoundException;
@@ -19,10 +22,13 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository repo;
     private final LoanRepository loanRepository;
+    private final EntityChangeStream changeStream;
 
-    public UserServiceImpl(UserRepository repo, LoanRepository loanRepository) {
+    public UserServiceImpl(UserRepository repo, LoanRepository loanRepository,
+                           EntityChangeStream changeStream) {
         this.repo = repo;
         this.loanRepository = loanRepository;
+        this.changeStream = changeStream;
     }
 
     @Override
@@ -40,7 +46,9 @@ public class UserServiceImpl implements UserService {
 
         User saved = repo.save(user);
 
-        return toResponse(saved);
+        UserResponseData response = toResponse(saved);
+        changeStream.publish(EntityChange.created(EntityType.USER, saved.getId(), response));
+        return response;
     }
 
     @Override
@@ -77,7 +85,9 @@ public class UserServiceImpl implements UserService {
 
         User updated = repo.save(user);
 
-        return toResponse(updated);
+        UserResponseData response = toResponse(updated);
+        changeStream.publish(EntityChange.updated(EntityType.USER, updated.getId(), response));
+        return response;
     }
 
     @Override
@@ -93,6 +103,7 @@ public class UserServiceImpl implements UserService {
         }
 
         repo.delete(user);
+        changeStream.publish(EntityChange.deleted(EntityType.USER, id, toResponse(user)));
     }
 
     private UserResponseData toResponse(User user) {
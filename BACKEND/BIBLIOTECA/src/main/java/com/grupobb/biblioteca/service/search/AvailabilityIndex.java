@@ -0,0 +1,300 @@
+package com.grupobb.biblioteca.service.search;
+
+import com.grupobb.biblioteca.dto.Book.BookAvailabilityItem;
+import com.grupobb.biblioteca.dto.Book.BookResponse;
+import com.grupobb.biblioteca.repository.BookRepository;
+import com.grupobb.biblioteca.service.event.ChangeType;
+import com.grupobb.biblioteca.service.event.ChangeVersions;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap en memoria de los libros existentes y disponibles, indexado por Book.id.
+ *
+ * - Dos arreglos de palabras long (bit `id % 64` de la palabra `id / 64`): uno con los
+ *   libros que existen y otro con los disponibles. Los ids son autoincrementales y
+ *   densos, así que 100.000 libros ocupan ~25 KB sin necesidad de compresión por bloques.
+ * - Se carga una vez al arrancar y luego se mantiene con el {@link EntityChangeStream}
+ *   (alta, baja, préstamo y devolución publican el libro después del commit). Los cambios
+ *   que llegan mientras corre la consulta de una recarga se guardan y se vuelven a
+ *   aplicar sobre el bitmap nuevo, así el reemplazo no los pierde.
+ * - Es la única copia del bitmap: el canal /ws/availability envía {@link #snapshot()} a
+ *   cada sesión nueva y difunde {@link #flips()}, los cambios de disponibilidad en el
+ *   orden en que se aplicaron aquí.
+ * - Los conteos se llevan al día en cada cambio: contar es O(1) y listar ids recorre
+ *   solo las palabras con algún bit encendido.
+ */
+@Component
+public class AvailabilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    /**
+     * Un libro que pasó a disponible o dejó de estarlo, con la secuencia del cambio que lo
+     * provocó. Con `id` negativo indica que el bitmap se recargó completo.
+     */
+    public record Flip(long seq, long id, boolean disponible) {
+
+        static Flip recarga(long seq) {
+            return new Flip(seq, -1, false);
+        }
+
+        public boolean esRecarga() {
+            return id < 0;
+        }
+    }
+
+    /**
+     * Copia de los disponibles (bit = Book.id) que refleja todos los cambios de libros con
+     * secuencia menor o igual a `seq`.
+     */
+    public record Snapshot(long seq, BitSet disponibles) {}
+
+    private final BookRepository bookRepository;
+    private final EntityChangeStream changeStream;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] libros = new long[16];
+    private long[] disponibles = new long[16];
+    private int total;
+    private int totalDisponibles;
+    // Secuencia del último cambio de libro aplicado
+    private long secuencia;
+    // Última versión aplicada de cada libro
+    private final ChangeVersions versiones = new ChangeVersions();
+    // Cambios aplicados durante la consulta de rebuild(); null fuera de una recarga
+    private List<EntityChange> durante;
+
+    private Disposable subscription;
+    // Se emite con el write lock tomado, nunca desde dos hilos a la vez
+    private final Sinks.Many<Flip> flips = Sinks.many().multicast().directBestEffort();
+
+    public AvailabilityIndex(BookRepository bookRepository, EntityChangeStream changeStream) {
+        this.bookRepository = bookRepository;
+        this.changeStream = changeStream;
+    }
+
+    @PostConstruct
+    public void start() {
+        // Los cambios llegan en el hilo "cambios"; uno más viejo que el último aplicado
+        // para ese libro se descarta
+        subscription = changeStream.changes(EntityType.BOOK)
+                .subscribe(this::apply,
+                        err -> log.warn("[Disponibilidad] Error actualizando el bitmap: {}", err.getMessage()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    // Carga completa (id y disponible, sin join) al terminar de arrancar la aplicación
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            durante = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // La secuencia se lee antes de la consulta: todo cambio hasta ella ya está incluido
+        long desde = changeStream.lastSequence();
+        List<BookAvailabilityItem> items;
+        try {
+            items = bookRepository.findAvailability();
+        } catch (RuntimeException ex) {
+            lock.writeLock().lock();
+            try {
+                durante = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+
+        lock.writeLock().lock();
+        try {
+            libros = new long[16];
+            disponibles = new long[16];
+            total = 0;
+            totalDisponibles = 0;
+            for (BookAvailabilityItem item : items) {
+                set(item.getId(), true, item.isDisponible());
+            }
+            // Lo emitido después de `desde` puede faltar en la consulta: se aplica encima
+            for (EntityChange change : durante) {
+                if (change.getSequence() > desde) {
+                    aplicar(change);
+                }
+            }
+            durante = null;
+            secuencia = Math.max(secuencia, desde);
+            flips.tryEmitNext(Flip.recarga(secuencia));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("[Disponibilidad] Bitmap construido: {} libros, {} disponibles", total, totalDisponibles);
+    }
+
+    // Aplica un cambio de libro publicado por los servicios
+    void apply(EntityChange change) {
+        lock.writeLock().lock();
+        try {
+            secuencia = Math.max(secuencia, change.getSequence());
+            if (!versiones.accept(change)) {
+                return;
+            }
+            int bit = indice(change.getId());
+            boolean antes = bit >= 0 && get(disponibles, bit);
+            aplicar(change);
+            if (durante != null) {
+                durante.add(change);
+            }
+            boolean ahora = bit >= 0 && get(disponibles, bit);
+            if (antes != ahora) {
+                flips.tryEmitNext(new Flip(change.getSequence(), change.getId(), ahora));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Con el write lock tomado
+    private void aplicar(EntityChange change) {
+        if (change.getType() == ChangeType.DELETED) {
+            set(change.getId(), false, false);
+        } else {
+            set(change.getId(), true, change.payloadAs(BookResponse.class).isDisponible());
+        }
+    }
+
+    /**
+     * Cambios de disponibilidad en el orden en que se aplicaron al bitmap. Flujo caliente:
+     * quien se suscribe toma antes una {@link #snapshot()} y descarta los flips con
+     * secuencia menor o igual a la suya.
+     */
+    public Flux<Flip> flips() {
+        return flips.asFlux();
+    }
+
+    public Snapshot snapshot() {
+        lock.readLock().lock();
+        try {
+            return new Snapshot(secuencia, BitSet.valueOf(disponibles));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Secuencia de la próxima snapshot(), sin copiar el bitmap
+    public long sequence() {
+        lock.readLock().lock();
+        try {
+            return secuencia;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isAvailable(Long id) {
+        int bit = indice(id);
+        lock.readLock().lock();
+        try {
+            return bit >= 0 && get(disponibles, bit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countAvailable() {
+        lock.readLock().lock();
+        try {
+            return totalDisponibles;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids de los libros disponibles (o prestados, con `disponible` = false) en orden ascendente.
+     */
+    public long[] ids(boolean disponible) {
+        lock.readLock().lock();
+        try {
+            long[] ids = new long[disponible ? totalDisponibles : total - totalDisponibles];
+            int n = 0;
+            for (int i = 0; i < libros.length; i++) {
+                long palabra = disponible ? disponibles[i] : libros[i] & ~disponibles[i];
+                while (palabra != 0) {
+                    ids[n++] = ((long) i << 6) | Long.numberOfTrailingZeros(palabra);
+                    palabra &= palabra - 1;
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Actualiza los dos bitmaps y los conteos (con el write lock tomado)
+    private void set(Long id, boolean existe, boolean disponible) {
+        int bit = indice(id);
+        if (bit < 0) {
+            return;
+        }
+        int palabra = bit >>> 6;
+        if (palabra >= libros.length) {
+            if (!existe) {
+                return;
+            }
+            int largo = Math.max(palabra + 1, libros.length * 2);
+            libros = Arrays.copyOf(libros, largo);
+            disponibles = Arrays.copyOf(disponibles, largo);
+        }
+        disponible &= existe;
+        long mascara = 1L << bit;
+        total += (existe ? 1 : 0) - (get(libros, bit) ? 1 : 0);
+        totalDisponibles += (disponible ? 1 : 0) - (get(disponibles, bit) ? 1 : 0);
+        libros[palabra] = existe ? libros[palabra] | mascara : libros[palabra] & ~mascara;
+        disponibles[palabra] = disponible ? disponibles[palabra] | mascara : disponibles[palabra] & ~mascara;
+    }
+
+    private static boolean get(long[] palabras, int bit) {
+        int palabra = bit >>> 6;
+        return palabra < palabras.length && (palabras[palabra] & (1L << bit)) != 0;
+    }
+
+    // Ids fuera del rango int no se pueden representar en el bitmap
+    private static int indice(Long id) {
+        return id != null && id >= 0 && id < Integer.MAX_VALUE ? id.intValue() : -1;
+    }
+}
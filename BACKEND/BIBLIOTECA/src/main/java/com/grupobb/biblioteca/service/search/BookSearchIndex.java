@@ -0,0 +1,505 @@
+package com.grupobb.biblioteca.service.search;
+
+import com.grupobb.biblioteca.dto.Author.AuthorResponse;
+import com.grupobb.biblioteca.dto.Book.BookResponse;
+import com.grupobb.biblioteca.repository.BookRepository;
+import com.grupobb.biblioteca.service.event.ChangeType;
+import com.grupobb.biblioteca.service.event.ChangeVersions;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria para buscar libros por título y nombre de autor.
+ *
+ * - Términos sin tildes y en minúsculas (ver {@link TextNormalizer}).
+ * - Se carga una vez al arrancar y luego se mantiene con el {@link EntityChangeStream}:
+ *   cada alta, edición o baja de libro (y cada cambio de nombre de autor) solo
+ *   reindexa los libros afectados, y solo los términos que cambiaron. Un préstamo o
+ *   una devolución (solo cambia `disponible`) reemplaza el libro sin reindexar. Los
+ *   cambios que llegan mientras corre la consulta de una recarga se guardan y se
+ *   vuelven a aplicar sobre el índice nuevo, así el reemplazo no los pierde.
+ * - Ranking: coincidencia en el título pesa más que en el autor, y la palabra exacta
+ *   más que el prefijo. Los libros que contienen todas las palabras van primero.
+ *
+ * Cada libro ocupa una posición (slot) entera; las listas de términos guardan slots
+ * en arreglos de int y la puntuación usa arreglos reutilizados por hilo, de modo que
+ * una consulta no crea objetos por cada libro candidato.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private static final int TITULO_EXACTO = 4;
+    private static final int TITULO_PREFIJO = 2;
+    private static final int AUTOR_EXACTO = 2;
+    private static final int AUTOR_PREFIJO = 1;
+
+    // La última palabra de la consulta se completa como prefijo a partir de este largo
+    private static final int MIN_PREFIJO = 2;
+
+    // Palabras de la consulta que se consideran (acota el puntaje y el trabajo por consulta)
+    private static final int MAX_PALABRAS = 16;
+
+    private final BookRepository bookRepository;
+    private final EntityChangeStream changeStream;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // término -> slots de los libros (ordenado para resolver prefijos con subMap)
+    private final NavigableMap<String, Postings> porTitulo = new TreeMap<>();
+    private final NavigableMap<String, Postings> porAutor = new TreeMap<>();
+    // slot -> libro, id -> slot, y slots libres para reutilizar tras una baja
+    private BookResponse[] libros = new BookResponse[1024];
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final ArrayDeque<Integer> libres = new ArrayDeque<>();
+    private int siguienteSlot;
+    // Libros de cada autor (para reindexar al renombrar un autor)
+    private final Map<Long, Set<Long>> librosPorAutor = new HashMap<>();
+    // Última versión aplicada de cada libro y autor. No se reinicia al recargar: la
+    // consulta ya refleja todo lo aceptado antes, y un cambio más viejo sigue siendo viejo.
+    private final ChangeVersions versiones = new ChangeVersions();
+    // Cambios aplicados durante la consulta de rebuild(); null fuera de una recarga
+    private List<EntityChange> durante;
+
+    // Arreglos de puntuación por hilo; se limpian solo en las posiciones tocadas
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    private Disposable subscription;
+
+    public BookSearchIndex(BookRepository bookRepository, EntityChangeStream changeStream) {
+        this.bookRepository = bookRepository;
+        this.changeStream = changeStream;
+    }
+
+    @PostConstruct
+    public void start() {
+        // Los cambios llegan en el hilo "cambios"; uno más viejo que el último aplicado
+        // para ese libro o autor se descarta
+        subscription = changeStream.changes()
+                .filter(change -> change.getEntity() == EntityType.BOOK || change.getEntity() == EntityType.AUTHOR)
+                .subscribe(this::apply,
+                        err -> log.warn("[Búsqueda] Error actualizando el índice: {}", err.getMessage()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    // Carga completa (una sola consulta de proyección) al terminar de arrancar la aplicación
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            durante = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // La secuencia se lee antes de la consulta: todo cambio hasta ella ya está incluido
+        long desde = changeStream.lastSequence();
+        List<BookResponse> todos;
+        try {
+            todos = bookRepository.findAllResponses();
+        } catch (RuntimeException ex) {
+            lock.writeLock().lock();
+            try {
+                durante = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+
+        lock.writeLock().lock();
+        try {
+            porTitulo.clear();
+            porAutor.clear();
+            libros = new BookResponse[Math.max(1024, todos.size())];
+            slots.clear();
+            libres.clear();
+            siguienteSlot = 0;
+            librosPorAutor.clear();
+            todos.forEach(this::add);
+            // Lo emitido después de `desde` puede faltar en la consulta: se aplica encima
+            for (EntityChange change : durante) {
+                if (change.getSequence() > desde) {
+                    aplicar(change);
+                }
+            }
+            durante = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("[Búsqueda] Índice de libros construido: {} libros", todos.size());
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Libros indexados con esos ids, en el mismo orden (los que no están se omiten).
+     */
+    public List<BookResponse> findAll(long[] ids) {
+        lock.readLock().lock();
+        try {
+            List<BookResponse> resultado = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                Integer slot = slots.get(id);
+                if (slot != null) {
+                    resultado.add(libros[slot]);
+                }
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Devuelve hasta `limit` libros ordenados por relevancia para la consulta.
+     */
+    public List<BookResponse> search(String query, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.tokens(query)));
+        if (tokens.size() > MAX_PALABRAS) {
+            tokens = tokens.subList(0, MAX_PALABRAS);
+        }
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        Scratch s = scratch.get();
+        s.ensureCapacity(siguienteSlot);
+        try {
+            for (int i = 0; i < tokens.size(); i++) {
+                boolean prefijo = i == tokens.size() - 1 && tokens.get(i).length() >= MIN_PREFIJO;
+                puntuar(porTitulo, tokens.get(i), prefijo, TITULO_EXACTO, TITULO_PREFIJO, s);
+                puntuar(porAutor, tokens.get(i), prefijo, AUTOR_EXACTO, AUTOR_PREFIJO, s);
+                s.cerrarToken();
+            }
+            return mejores(s, limit);
+        } finally {
+            s.limpiar();
+            lock.readLock().unlock();
+        }
+    }
+
+    // Aplica un cambio publicado por los servicios
+    void apply(EntityChange change) {
+        lock.writeLock().lock();
+        try {
+            if (!versiones.accept(change)) {
+                return;
+            }
+            aplicar(change);
+            if (durante != null) {
+                durante.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Con el write lock tomado
+    private void aplicar(EntityChange change) {
+        if (change.getEntity() == EntityType.BOOK) {
+            if (change.getType() == ChangeType.DELETED) {
+                remove(change.getId());
+            } else {
+                put(change.payloadAs(BookResponse.class));
+            }
+        } else if (change.getType() == ChangeType.UPDATED) {
+            renombrarAutor(change.payloadAs(AuthorResponse.class));
+        }
+    }
+
+    // Alta o edición. Si no cambió ningún campo indexado (un préstamo o una devolución
+    // solo cambian `disponible`) se reemplaza el libro en su slot sin tocar los términos.
+    private void put(BookResponse book) {
+        Integer slot = slots.get(book.getId());
+        if (slot == null) {
+            add(book);
+            return;
+        }
+        BookResponse anterior = libros[slot];
+        if (!Objects.equals(anterior.getAutorId(), book.getAutorId())) {
+            remove(book.getId());
+            add(book);
+            return;
+        }
+        if (!Objects.equals(anterior.getTitulo(), book.getTitulo())) {
+            removeTerms(porTitulo, TextNormalizer.tokens(anterior.getTitulo()), slot);
+            addTerms(porTitulo, TextNormalizer.tokens(book.getTitulo()), slot);
+        }
+        if (!Objects.equals(anterior.getAutorNombre(), book.getAutorNombre())) {
+            removeTerms(porAutor, TextNormalizer.tokens(anterior.getAutorNombre()), slot);
+            addTerms(porAutor, TextNormalizer.tokens(book.getAutorNombre()), slot);
+        }
+        libros[slot] = book;
+    }
+
+    private void renombrarAutor(AuthorResponse autor) {
+        Set<Long> ids = librosPorAutor.get(autor.getId());
+        if (ids == null) {
+            return;
+        }
+        for (Long id : List.copyOf(ids)) {
+            BookResponse anterior = libros[slots.get(id)];
+            put(new BookResponse(anterior.getId(), anterior.getTitulo(),
+                    anterior.getAutorId(), autor.getNombre(), anterior.isDisponible()));
+        }
+    }
+
+    private void add(BookResponse book) {
+        int slot = libres.isEmpty() ? siguienteSlot++ : libres.pop();
+        if (slot >= libros.length) {
+            libros = Arrays.copyOf(libros, libros.length * 2);
+        }
+        libros[slot] = book;
+        slots.put(book.getId(), slot);
+
+        addTerms(porTitulo, TextNormalizer.tokens(book.getTitulo()), slot);
+        addTerms(porAutor, TextNormalizer.tokens(book.getAutorNombre()), slot);
+        if (book.getAutorId() != null) {
+            librosPorAutor.computeIfAbsent(book.getAutorId(), k -> new HashSet<>()).add(book.getId());
+        }
+    }
+
+    private void remove(Long id) {
+        Integer slot = slots.remove(id);
+        if (slot == null) {
+            return;
+        }
+        BookResponse book = libros[slot];
+        libros[slot] = null;
+        libres.push(slot);
+
+        removeTerms(porTitulo, TextNormalizer.tokens(book.getTitulo()), slot);
+        removeTerms(porAutor, TextNormalizer.tokens(book.getAutorNombre()), slot);
+        if (book.getAutorId() != null) {
+            Set<Long> ids = librosPorAutor.get(book.getAutorId());
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                librosPorAutor.remove(book.getAutorId());
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Postings> postings, List<String> terms, int slot) {
+        for (String term : new LinkedHashSet<>(terms)) {
+            postings.computeIfAbsent(term, k -> new Postings()).add(slot);
+        }
+    }
+
+    private static void removeTerms(Map<String, Postings> postings, List<String> terms, int slot) {
+        for (String term : terms) {
+            Postings p = postings.get(term);
+            if (p != null && p.remove(slot) && p.size == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    // Registra el mejor puntaje de cada libro para una palabra de la consulta
+    private static void puntuar(NavigableMap<String, Postings> postings, String token, boolean prefijo,
+                                int exacto, int porPrefijo, Scratch s) {
+        if (prefijo) {
+            for (Map.Entry<String, Postings> entry
+                    : postings.subMap(token, true, token + Character.MAX_VALUE, true).entrySet()) {
+                int puntaje = entry.getKey().equals(token) ? exacto : porPrefijo;
+                Postings p = entry.getValue();
+                for (int i = 0; i < p.size; i++) {
+                    s.marcar(p.slots[i], puntaje);
+                }
+            }
+        } else {
+            Postings p = postings.get(token);
+            if (p != null) {
+                for (int i = 0; i < p.size; i++) {
+                    s.marcar(p.slots[i], exacto);
+                }
+            }
+        }
+    }
+
+    // Top-k con un min-heap acotado de claves long: O(n log k) sin crear objetos por candidato
+    private List<BookResponse> mejores(Scratch s, int limit) {
+        long[] heap = new long[Math.min(limit, s.candidatos)];
+        int size = 0;
+        for (int i = 0; i < s.candidatos; i++) {
+            long clave = clave(s, s.tocados[i]);
+            if (size < heap.length) {
+                heap[size++] = clave;
+                subir(heap, size - 1);
+            } else if (clave > heap[0]) {
+                heap[0] = clave;
+                bajar(heap, size);
+            }
+        }
+
+        Arrays.sort(heap, 0, size);
+        List<BookResponse> resultado = new ArrayList<>(size);
+        for (int i = size - 1; i >= 0; i--) {
+            resultado.add(libros[Integer.MAX_VALUE - (int) heap[i]]);
+        }
+        return resultado;
+    }
+
+    // Mayor clave = más relevante: palabras encontradas, luego puntaje, luego el slot más antiguo
+    private static long clave(Scratch s, int slot) {
+        return ((long) s.encontradas[slot] << 48) | ((long) s.puntaje[slot] << 32) | (Integer.MAX_VALUE - slot);
+    }
+
+    private static void subir(long[] heap, int i) {
+        while (i > 0) {
+            int padre = (i - 1) / 2;
+            if (heap[padre] <= heap[i]) {
+                return;
+            }
+            long tmp = heap[padre];
+            heap[padre] = heap[i];
+            heap[i] = tmp;
+            i = padre;
+        }
+    }
+
+    private static void bajar(long[] heap, int size) {
+        int i = 0;
+        while (true) {
+            int menor = i;
+            int izq = 2 * i + 1;
+            int der = izq + 1;
+            if (izq < size && heap[izq] < heap[menor]) {
+                menor = izq;
+            }
+            if (der < size && heap[der] < heap[menor]) {
+                menor = der;
+            }
+            if (menor == i) {
+                return;
+            }
+            long tmp = heap[menor];
+            heap[menor] = heap[i];
+            heap[i] = tmp;
+            i = menor;
+        }
+    }
+
+    // Slots de un término, ordenados (arreglo de int que crece al doble). Alta y baja
+    // encuentran la posición por búsqueda binaria y solo desplazan la cola del arreglo.
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            int i = Arrays.binarySearch(slots, 0, size, slot);
+            if (i >= 0) {
+                return;
+            }
+            i = -i - 1;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(slots, i, slots, i + 1, size - i);
+            slots[i] = slot;
+            size++;
+        }
+
+        boolean remove(int slot) {
+            int i = Arrays.binarySearch(slots, 0, size, slot);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(slots, i + 1, slots, i, size - i - 1);
+            size--;
+            return true;
+        }
+    }
+
+    // Estado de una consulta: puntaje acumulado, palabras encontradas y mejor puntaje de la palabra actual
+    private static final class Scratch {
+        private int[] encontradas = new int[0];
+        private int[] puntaje = new int[0];
+        private int[] mejorDelToken = new int[0];
+        private int[] tocados = new int[0];       // slots con al menos una palabra encontrada
+        private int[] tocadosToken = new int[0];  // slots encontrados por la palabra actual
+        private int candidatos;
+        private int candidatosToken;
+
+        void ensureCapacity(int n) {
+            if (encontradas.length < n) {
+                int capacidad = Math.max(n, encontradas.length * 2);
+                encontradas = new int[capacidad];
+                puntaje = new int[capacidad];
+                mejorDelToken = new int[capacidad];
+                tocados = new int[capacidad];
+                tocadosToken = new int[capacidad];
+            }
+        }
+
+        void marcar(int slot, int peso) {
+            if (mejorDelToken[slot] == 0) {
+                tocadosToken[candidatosToken++] = slot;
+            }
+            if (peso > mejorDelToken[slot]) {
+                mejorDelToken[slot] = peso;
+            }
+        }
+
+        void cerrarToken() {
+            for (int i = 0; i < candidatosToken; i++) {
+                int slot = tocadosToken[i];
+                if (encontradas[slot] == 0) {
+                    tocados[candidatos++] = slot;
+                }
+                encontradas[slot]++;
+                puntaje[slot] += mejorDelToken[slot];
+                mejorDelToken[slot] = 0;
+            }
+            candidatosToken = 0;
+        }
+
+        void limpiar() {
+            for (int i = 0; i < candidatosToken; i++) {
+                mejorDelToken[tocadosToken[i]] = 0;
+            }
+            candidatosToken = 0;
+            for (int i = 0; i < candidatos; i++) {
+                encontradas[tocados[i]] = 0;
+                puntaje[tocados[i]] = 0;
+            }
+            candidatos = 0;
+        }
+    }
+}
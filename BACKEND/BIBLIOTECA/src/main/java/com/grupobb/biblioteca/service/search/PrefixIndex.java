@@ -0,0 +1,168 @@
+package com.grupobb.biblioteca.service.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice de prefijos compacto: un arreglo ordenado de claves con búsqueda binaria.
+ *
+ * Por cada texto se guarda una clave por palabra (el texto normalizado a partir de esa
+ * palabra), así "marq" encuentra "Gabriel García Márquez". Las lecturas no toman
+ * locks: trabajan sobre una foto inmutable de los arreglos. Cada escritura arma una
+ * foto nueva (copia O(n)), lo que es barato para el ritmo de altas y ediciones de la
+ * biblioteca y deja las consultas en O(log n + k).
+ */
+public final class PrefixIndex {
+
+    // Claves por texto (palabras iniciales); acota el tamaño de textos muy largos
+    private static final int MAX_CLAVES_POR_TEXTO = 8;
+
+    private record Snapshot(String[] claves, long[] ids) {}
+
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new long[0]);
+    // Texto a mostrar de cada id (también indica qué ids están indexados)
+    private final Map<Long, String> etiquetas = new ConcurrentHashMap<>();
+
+    /**
+     * Reemplaza el contenido completo del índice.
+     *
+     * @param textos id -> textos indexables (por ejemplo nombre y email)
+     * @param etiquetasPorId id -> texto a mostrar en la sugerencia
+     */
+    public synchronized void load(Map<Long, List<String>> textos, Map<Long, String> etiquetasPorId) {
+        List<Map.Entry<String, Long>> entradas = new ArrayList<>();
+        textos.forEach((id, valores) -> claves(valores).forEach(clave -> entradas.add(Map.entry(clave, id))));
+        entradas.sort(Map.Entry.<String, Long>comparingByKey().thenComparing(Map.Entry.comparingByValue()));
+
+        String[] claves = new String[entradas.size()];
+        long[] ids = new long[entradas.size()];
+        for (int i = 0; i < entradas.size(); i++) {
+            claves[i] = entradas.get(i).getKey();
+            ids[i] = entradas.get(i).getValue();
+        }
+        etiquetas.clear();
+        etiquetas.putAll(etiquetasPorId);
+        snapshot = new Snapshot(claves, ids);
+    }
+
+    // Agrega o reemplaza los textos de un id
+    public synchronized void put(long id, List<String> textos, String etiqueta) {
+        Snapshot base = sinId(snapshot, id);
+        List<String> nuevas = new ArrayList<>(claves(textos));
+        nuevas.sort(Comparator.naturalOrder());
+
+        int n = base.claves().length;
+        String[] claves = new String[n + nuevas.size()];
+        long[] ids = new long[n + nuevas.size()];
+        // Mezcla de dos listas ordenadas
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < n || j < nuevas.size()) {
+            if (j == nuevas.size() || (i < n && base.claves()[i].compareTo(nuevas.get(j)) <= 0)) {
+                claves[k] = base.claves()[i];
+                ids[k++] = base.ids()[i++];
+            } else {
+                claves[k] = nuevas.get(j++);
+                ids[k++] = id;
+            }
+        }
+        etiquetas.put(id, etiqueta);
+        snapshot = new Snapshot(claves, ids);
+    }
+
+    public synchronized void remove(long id) {
+        if (etiquetas.remove(id) != null) {
+            snapshot = sinId(snapshot, id);
+        }
+    }
+
+    public String etiqueta(long id) {
+        return etiquetas.get(id);
+    }
+
+    public int size() {
+        return snapshot.claves().length;
+    }
+
+    /**
+     * Ids (sin repetir) cuyos textos tienen alguna palabra que empieza con `prefijo`,
+     * en orden alfabético de la coincidencia; como máximo `limit`.
+     */
+    public List<Long> search(String prefijo, int limit) {
+        String normalizado = TextNormalizer.normalize(prefijo);
+        if (normalizado.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Snapshot s = snapshot;
+        Set<Long> encontrados = new LinkedHashSet<>();
+        for (int i = primeraMayorOIgual(s.claves(), normalizado);
+             i < s.claves().length && s.claves()[i].startsWith(normalizado) && encontrados.size() < limit;
+             i++) {
+            encontrados.add(s.ids()[i]);
+        }
+        return List.copyOf(encontrados);
+    }
+
+    // Claves de un conjunto de textos: el texto normalizado desde cada palabra
+    private static Set<String> claves(List<String> textos) {
+        Set<String> claves = new LinkedHashSet<>();
+        for (String texto : textos) {
+            String normalizado = TextNormalizer.normalize(texto);
+            int inicio = 0;
+            int agregadas = 0;
+            while (inicio < normalizado.length() && agregadas < MAX_CLAVES_POR_TEXTO) {
+                claves.add(normalizado.substring(inicio));
+                agregadas++;
+                int espacio = normalizado.indexOf(' ', inicio);
+                if (espacio < 0) {
+                    break;
+                }
+                inicio = espacio + 1;
+            }
+        }
+        return claves;
+    }
+
+    private static Snapshot sinId(Snapshot s, long id) {
+        int quedan = 0;
+        for (long actual : s.ids()) {
+            if (actual != id) {
+                quedan++;
+            }
+        }
+        if (quedan == s.ids().length) {
+            return s;
+        }
+        String[] claves = new String[quedan];
+        long[] ids = new long[quedan];
+        int k = 0;
+        for (int i = 0; i < s.ids().length; i++) {
+            if (s.ids()[i] != id) {
+                claves[k] = s.claves()[i];
+                ids[k++] = s.ids()[i];
+            }
+        }
+        return new Snapshot(claves, ids);
+    }
+
+    // Búsqueda binaria de la primera clave >= valor
+    private static int primeraMayorOIgual(String[] claves, String valor) {
+        int lo = 0;
+        int hi = claves.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (claves[mid].compareTo(valor) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,51 @@
+package com.grupobb.biblioteca.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de texto para los índices en memoria.
+ *
+ * Quita tildes y diéresis ("García" -> "garcia", "Ñandú" -> "nandu"), pasa a
+ * minúsculas y separa en palabras por cualquier carácter que no sea letra o dígito.
+ */
+public final class TextNormalizer {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    // Palabras vacías del español que no aportan a la búsqueda
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "al", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "o", "por", "que", "se", "su", "un", "una", "y");
+
+    private TextNormalizer() {}
+
+    // Texto completo normalizado (sin tildes, en minúsculas, espacios simples)
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(sinMarcas.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // Palabras normalizadas, sin palabras vacías
+    public static List<String> tokens(String text) {
+        String normalized = normalize(text);
+        List<String> tokens = new ArrayList<>();
+        if (normalized.isEmpty()) {
+            return tokens;
+        }
+        for (String token : normalized.split(" ")) {
+            if (!STOPWORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
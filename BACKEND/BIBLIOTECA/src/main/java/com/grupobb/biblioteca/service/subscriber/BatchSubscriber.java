@@ -0,0 +1,135 @@
+package com.grupobb.biblioteca.service.subscriber;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Subscriber genérico con backpressure adaptativo (reemplaza a Author/Book/LoanSubscriber).
+ *
+ * - Recibe lotes (chunks) y los procesa juntos: junta tantos como pidió con request(n)
+ *   y le pasa la lista completa al `processor` de una sola vez.
+ * - Ajusta la demanda según lo que tardó el último procesamiento: si fue rápido (menos de
+ *   la mitad de `targetLatency`) la duplica, si se pasó del objetivo la reduce a la mitad,
+ *   siempre entre `minDemand` y `maxDemand`.
+ * - Reporta el throughput (elementos por segundo) y el lag de la cola: cuánto esperó el
+ *   lote más antiguo desde que llegó hasta que se procesó.
+ */
+public class BatchSubscriber<T> implements Subscriber<List<T>> {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchSubscriber.class);
+
+    private final String nombre;
+    private final int minDemand;
+    private final int maxDemand;
+    private final long targetLatencyNanos;
+    private final Consumer<List<T>> processor;
+
+    private Subscription subscription;
+
+    // Lotes recibidos que esperan ser procesados (onNext nunca se llama en paralelo)
+    private final List<T> pendientes = new ArrayList<>();
+    private int recibidos;
+    private long primeraLlegada;
+    private long inicio;
+
+    // Métricas (se leen desde otros hilos)
+    private volatile int demand;
+    private volatile long procesados;
+    private volatile long maxLagNanos;
+    private volatile double throughput;
+
+    public BatchSubscriber(String nombre, int minDemand, int maxDemand, Duration targetLatency,
+                           Consumer<List<T>> processor) {
+        this.nombre = nombre;
+        this.minDemand = Math.max(1, minDemand);
+        this.maxDemand = Math.max(this.minDemand, maxDemand);
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.processor = processor;
+        this.demand = this.minDemand;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        this.subscription = subscription;
+        this.inicio = System.nanoTime();
+        log.info("[Reactive] onSubscribe: análisis de {} iniciado, demanda inicial {}", nombre, demand);
+        subscription.request(demand);
+    }
+
+    @Override
+    public void onNext(List<T> chunk) {
+        if (recibidos == 0) {
+            primeraLlegada = System.nanoTime();
+        }
+        pendientes.addAll(chunk);
+        recibidos++;
+        // Cuando llegó todo lo pedido se procesa el lote y se pide el siguiente
+        if (recibidos >= demand) {
+            procesar();
+            subscription.request(demand);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log.warn("[Reactive] onError en {}: {}", nombre, t.getMessage());
+    }
+
+    @Override
+    public void onComplete() {
+        if (recibidos > 0) {
+            procesar();
+        }
+        long nanos = Math.max(1, System.nanoTime() - inicio);
+        throughput = procesados * 1_000_000_000d / nanos;
+        log.info("[Reactive] onComplete: {} {} en {} ms ({}/s), lag máximo {} ms, demanda final {}",
+                procesados, nombre, nanos / 1_000_000, Math.round(throughput), getMaxLagMs(), demand);
+    }
+
+    private void procesar() {
+        long start = System.nanoTime();
+        maxLagNanos = Math.max(maxLagNanos, start - primeraLlegada);
+
+        List<T> lote = new ArrayList<>(pendientes);
+        pendientes.clear();
+        recibidos = 0;
+        processor.accept(lote);
+
+        long latency = System.nanoTime() - start;
+        procesados += lote.size();
+        ajustarDemanda(latency);
+    }
+
+    // Sube la demanda mientras el procesamiento sea rápido y la baja si se pasa del objetivo
+    private void ajustarDemanda(long latencyNanos) {
+        if (latencyNanos > targetLatencyNanos) {
+            demand = Math.max(minDemand, demand / 2);
+        } else if (latencyNanos < targetLatencyNanos / 2) {
+            demand = Math.min(maxDemand, demand * 2);
+        }
+    }
+
+    public int getDemand() {
+        return demand;
+    }
+
+    public long getProcesados() {
+        return procesados;
+    }
+
+    // Elementos por segundo del análisis completo (0 hasta que termina)
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public long getMaxLagMs() {
+        return maxLagNanos / 1_000_000;
+    }
+}
@@ -1,5 +1,7 @@
 package com.grupobb.biblioteca.web.advice;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -14,6 +16,8 @@ import java.util.Map;
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+
     //404 cuando no se encuentra un recurso
     @ExceptionHandler(NotFoundException.class)
     public ResponseEntity<?> handleNotFound(NotFoundException ex){
@@ -47,8 +51,8 @@ public class GlobalExceptionHandler {
     //400 por validaciones
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<?> handleValidation(MethodArgumentNotValidException ex){
-        // Imprimimos la traza de la excepción en la consola del servidor para depuración
-        ex.printStackTrace();
+        // Registramos el error de validación para depuración (sin la traza completa)
+        log.debug("Validación fallida: {}", ex.getMessage());
 
         Map<String, Object> body = new HashMap<>();
         body.put("timestamp", LocalDateTime.now());
@@ -63,8 +67,8 @@ public class GlobalExceptionHandler {
     //500 generico
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleAll(Exception ex) {
-        // Imprimimos la traza de la excepción en la consola del servidor para depuración
-        ex.printStackTrace();
+        // Registramos la traza de la excepción (se escribe en segundo plano, ver logback-spring.xml)
+        log.error("Error no manejado", ex);
 
         // Atrapa cualquier excepción no manejada y devuelve una respuesta 500 simple.
         // En una aplicación real podrías mapear distintas excepciones a códigos HTTP más precisos
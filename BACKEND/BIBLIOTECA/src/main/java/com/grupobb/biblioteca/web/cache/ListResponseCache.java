@@ -0,0 +1,91 @@
+package com.grupobb.biblioteca.web.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grupobb.biblioteca.service.cache.CollectionVersions;
+import com.grupobb.biblioteca.service.cache.RequestCoalescer;
+import com.grupobb.biblioteca.service.event.EntityType;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Respuestas de los listados completos (GET /api/books, /api/authors, /api/users)
+ * guardadas ya serializadas, una por colección y versión.
+ *
+ * - ETag = colección + arranque + versión ({@link CollectionVersions}).
+ * - If-None-Match con el ETag vigente -> 304 sin consultar ni serializar.
+ * - Versión sin cambios -> se devuelven los mismos bytes sin consultar la base.
+ * - Versión nueva pedida por muchos clientes a la vez -> una sola consulta y una sola
+ *   serialización ({@link RequestCoalescer}).
+ * - Cache-Control: no-cache hace que el navegador revalide en cada sondeo.
+ */
+@Component
+public class ListResponseCache {
+
+    private record Entry(long version, byte[] body) {}
+
+    // Identifica este arranque: un ETag de una ejecución anterior no debe coincidir
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+
+    private final CollectionVersions versions;
+    private final ObjectMapper objectMapper;
+    private final RequestCoalescer coalescer;
+    private final Map<EntityType, Entry> entries = new ConcurrentHashMap<>();
+
+    public ListResponseCache(CollectionVersions versions, ObjectMapper objectMapper,
+                             RequestCoalescer coalescer) {
+        this.versions = versions;
+        this.objectMapper = objectMapper;
+        this.coalescer = coalescer;
+    }
+
+    /**
+     * Responde el listado de `type`: 304 si el cliente ya tiene la versión vigente,
+     * los bytes guardados si la versión no cambió, o carga y serializa con `loader`.
+     */
+    public ResponseEntity<byte[]> respond(EntityType type, WebRequest request, Supplier<List<?>> loader) {
+        // La versión se lee antes de consultar: si una escritura llega en medio, el
+        // cliente recibe datos más nuevos con un ETag viejo y solo vuelve a pedirlos.
+        long version = versions.current(type);
+        String etag = "\"" + type.name().toLowerCase(Locale.ROOT) + "-" + arranque + "-" + version + "\"";
+
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+
+        Entry entry = entries.get(type);
+        if (entry == null || entry.version() < version) {
+            Entry loaded = coalescer.execute(List.of("listado", type),
+                    () -> new Entry(version, serialize(loader.get())), type);
+            // Se conserva la versión más nueva si otro hilo guardó una en medio
+            entry = entries.merge(type, loaded, (actual, nuevo) -> nuevo.version() > actual.version() ? nuevo : actual);
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(entry.body());
+    }
+
+    private byte[] serialize(List<?> list) {
+        try {
+            return objectMapper.writeValueAsBytes(list);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el listado", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.grupobb.biblioteca.web.controller;
+
+import com.grupobb.biblioteca.dto.Analysis.AnalysisStatsResponse;
+import com.grupobb.biblioteca.service.analysis.AnalysisEngine;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controlador REST del análisis en segundo plano.
+ *
+ * Rutas base: /api/analysis
+ * - GET /api/analysis/stats -> profundidad de la cola, ejecuciones activas y contadores
+ *   (coalescidas, canceladas, rechazadas, completadas)
+ */
+@RestController
+@RequestMapping("/api/analysis")
+public class AnalysisController {
+
+    private final AnalysisEngine analysisEngine;
+
+    public AnalysisController(AnalysisEngine analysisEngine) {
+        this.analysisEngine = analysisEngine;
+    }
+
+    // Estado actual del motor de análisis
+    @GetMapping("/stats")
+    public AnalysisStatsResponse stats() {
+        return analysisEngine.stats();
+    }
+}
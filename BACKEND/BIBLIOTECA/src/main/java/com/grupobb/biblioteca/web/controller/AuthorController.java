@@ -2,10 +2,16 @@ package com.grupobb.biblioteca.web.controller;
 
 import com.grupobb.biblioteca.dto.Author.AuthorRequestData;
 import com.grupobb.biblioteca.dto.Author.AuthorResponse;
+import com.grupobb.biblioteca.dto.Change.ChangeFeedResponse;
 import com.grupobb.biblioteca.service.AuthorService;
+import com.grupobb.biblioteca.service.ChangeFeedService;
+import com.grupobb.biblioteca.service.cache.RequestCoalescer;
+import com.grupobb.biblioteca.service.event.EntityType;
+import com.grupobb.biblioteca.web.cache.ListResponseCache;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
 import java.util.List;
@@ -14,7 +20,8 @@ import java.util.List;
  * Controlador REST para operaciones CRUD sobre autores.
  *
  * Rutas base: /api/authors
- * - GET    /api/authors         -> lista todos los autores
+ * - GET    /api/authors         -> lista todos los autores (ETag/304)
+ * - GET    /api/authors/changes -> cambios desde una versión (?since=...&limit=...)
  * - GET    /api/authors/{id}    -> obtiene un autor por id
  * - POST   /api/authors         -> crea un nuevo autor
  * - PUT    /api/authors/{id}    -> actualiza un autor existente
@@ -25,21 +32,37 @@ import java.util.List;
 public class AuthorController {
 
     private final AuthorService authorService;
+    private final ListResponseCache listCache;
+    private final ChangeFeedService changeFeedService;
+    private final RequestCoalescer coalescer;
 
-    public AuthorController(AuthorService authorService) {
+    public AuthorController(AuthorService authorService, ListResponseCache listCache,
+                            ChangeFeedService changeFeedService, RequestCoalescer coalescer) {
         this.authorService = authorService;
+        this.listCache = listCache;
+        this.changeFeedService = changeFeedService;
+        this.coalescer = coalescer;
     }
 
-    // Lista todos los autores
+    // Lista todos los autores (304 si el cliente ya tiene la versión vigente)
     @GetMapping
-    public List<AuthorResponse> list() {
-        return authorService.findAll();
+    public ResponseEntity<byte[]> list(WebRequest request) {
+        return listCache.respond(EntityType.AUTHOR, request, authorService::findAll);
+    }
+
+    // Cambios desde una versión: ?since=<versión>&limit= (upserts y tombstones)
+    @GetMapping("/changes")
+    public ChangeFeedResponse changes(@RequestParam(required = false) Long since,
+                                      @RequestParam(defaultValue = "100") int limit) {
+        return changeFeedService.changesSince(EntityType.AUTHOR, since, limit);
     }
 
     // Obtiene un autor por ID
     @GetMapping("/{id}")
     public ResponseEntity<AuthorResponse> get(@PathVariable Long id) {
-        AuthorResponse author = authorService.findById(id);
+        // Peticiones simultáneas por el mismo autor comparten una sola lectura
+        AuthorResponse author = coalescer.execute(List.of("autor", id), () -> authorService.findById(id),
+                EntityType.AUTHOR);
         return ResponseEntity.ok(author);
     }
 
@@ -0,0 +1,34 @@
+package com.grupobb.biblioteca.web.controller;
+
+import com.grupobb.biblioteca.dto.Autocomplete.SuggestionResponse;
+import com.grupobb.biblioteca.service.AutocompleteService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controlador REST de autocompletado.
+ *
+ * Rutas base: /api/autocomplete
+ * - GET /api/autocomplete?tipo=libros&q=cien   -> títulos que empiezan (en alguna palabra) con "cien"
+ * - GET /api/autocomplete?tipo=autores&q=gar   -> nombres de autores
+ * - GET /api/autocomplete?tipo=usuarios&q=ana  -> nombres y emails de usuarios
+ */
+@RestController
+@RequestMapping("/api/autocomplete")
+public class AutocompleteController {
+
+    private final AutocompleteService autocompleteService;
+
+    public AutocompleteController(AutocompleteService autocompleteService) {
+        this.autocompleteService = autocompleteService;
+    }
+
+    // Sugerencias por prefijo para el tipo indicado
+    @GetMapping
+    public List<SuggestionResponse> suggest(@RequestParam("tipo") String tipo,
+                                            @RequestParam(value = "q", defaultValue = "") String prefijo,
+                                            @RequestParam(defaultValue = "10") int limit) {
+        return autocompleteService.suggest(tipo, prefijo, limit);
+    }
+}
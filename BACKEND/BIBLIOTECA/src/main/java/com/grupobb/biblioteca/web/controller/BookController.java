@@ -1,11 +1,20 @@
 package com.grupobb.biblioteca.web.controller;
 
+import com.grupobb.biblioteca.dto.Book.BookAvailabilityResponse;
+import com.grupobb.biblioteca.dto.Book.BookCacheStatsResponse;
+import com.grupobb.biblioteca.dto.Book.BookCountResponse;
 import com.grupobb.biblioteca.dto.Book.BookRequestData;
 import com.grupobb.biblioteca.dto.Book.BookResponse;
+import com.grupobb.biblioteca.dto.Change.ChangeFeedResponse;
 import com.grupobb.biblioteca.service.BookService;
+import com.grupobb.biblioteca.service.ChangeFeedService;
+import com.grupobb.biblioteca.service.cache.RequestCoalescer;
+import com.grupobb.biblioteca.service.event.EntityType;
+import com.grupobb.biblioteca.web.cache.ListResponseCache;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
 import java.util.List;
@@ -14,7 +23,13 @@ import java.util.List;
  * Controlador REST para operaciones CRUD sobre libros.
  *
  * Rutas base: /api/books
- * - GET    /api/books         -> lista todos los libros (incluye campo 'disponible')
+ * - GET    /api/books         -> lista todos los libros (incluye campo 'disponible'; ETag/304)
+ * - GET    /api/books?disponible=true|false -> solo disponibles o prestados (bitmap en memoria)
+ * - GET    /api/books/count   -> cantidad de libros, disponibles y prestados
+ * - GET    /api/books/search  -> busca libros por título o autor (?q=...&limit=...)
+ * - GET    /api/books/cache/stats -> contadores de la caché de libros por id
+ * - GET    /api/books/changes -> cambios desde una versión (?since=...&limit=...)
+ * - GET    /api/books/availability -> instantánea compacta de disponibilidad (resync de /ws)
  * - GET    /api/books/{id}    -> obtiene un libro por id
  * - POST   /api/books         -> crea un nuevo libro
  * - PUT    /api/books/{id}    -> actualiza un libro existente
@@ -25,21 +40,68 @@ import java.util.List;
 public class BookController {
 
     private final BookService bookService;
+    private final ListResponseCache listCache;
+    private final ChangeFeedService changeFeedService;
+    private final RequestCoalescer coalescer;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, ListResponseCache listCache,
+                          ChangeFeedService changeFeedService, RequestCoalescer coalescer) {
         this.bookService = bookService;
+        this.listCache = listCache;
+        this.changeFeedService = changeFeedService;
+        this.coalescer = coalescer;
     }
 
-    // Lista todos los libros
+    // Lista todos los libros (304 si el cliente ya tiene la versión vigente)
     @GetMapping
-    public List<BookResponse> list() {
-        return bookService.findAll();
+    public ResponseEntity<byte[]> list(WebRequest request) {
+        return listCache.respond(EntityType.BOOK, request, bookService::findAll);
+    }
+
+    // Filtra por disponibilidad desde el bitmap en memoria, sin consultar la base
+    @GetMapping(params = "disponible")
+    public List<BookResponse> listByDisponible(@RequestParam boolean disponible) {
+        return bookService.findByDisponible(disponible);
+    }
+
+    // Conteos del bitmap de disponibilidad (sin consultar la base)
+    @GetMapping("/count")
+    public BookCountResponse count() {
+        return bookService.count();
+    }
+
+    // Busca libros por título o autor, ordenados por relevancia
+    @GetMapping("/search")
+    public List<BookResponse> search(@RequestParam("q") String query,
+                                     @RequestParam(defaultValue = "20") int limit) {
+        return bookService.search(query, limit);
+    }
+
+    // Cambios desde una versión: ?since=<versión>&limit= (upserts y tombstones)
+    @GetMapping("/changes")
+    public ChangeFeedResponse changes(@RequestParam(required = false) Long since,
+                                      @RequestParam(defaultValue = "100") int limit) {
+        return changeFeedService.changesSince(EntityType.BOOK, since, limit);
+    }
+
+    // Id y disponibilidad de todos los libros, con la secuencia de /ws desde la que seguir
+    @GetMapping("/availability")
+    public BookAvailabilityResponse availability() {
+        return bookService.availability();
+    }
+
+    // Aciertos, fallos y desalojos de la caché de libros por id
+    @GetMapping("/cache/stats")
+    public BookCacheStatsResponse cacheStats() {
+        return bookService.cacheStats();
     }
 
     // Obtiene un libro por ID
     @GetMapping("/{id}")
     public ResponseEntity<BookResponse> get(@PathVariable Long id) {
-        BookResponse book = bookService.findById(id);
+        // Peticiones simultáneas por el mismo libro comparten una sola lectura
+        BookResponse book = coalescer.execute(List.of("libro", id), () -> bookService.findById(id),
+                EntityType.BOOK);
         return ResponseEntity.ok(book);
     }
 
@@ -1,23 +1,59 @@
 package com.grupobb.biblioteca.web.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grupobb.biblioteca.dto.Change.ChangeFeedResponse;
+import com.grupobb.biblioteca.dto.Loan.LoanBatchItemResult;
+import com.grupobb.biblioteca.dto.Loan.LoanBatchRequestData;
+import com.grupobb.biblioteca.dto.Loan.LoanBatchReturnRequestData;
+import com.grupobb.biblioteca.dto.Loan.LoanPageResponse;
 import com.grupobb.biblioteca.dto.Loan.LoanRequestData;
 import com.grupobb.biblioteca.dto.Loan.LoanResponse;
+import com.grupobb.biblioteca.service.ChangeFeedService;
 import com.grupobb.biblioteca.service.LoanService;
+import com.grupobb.biblioteca.service.cache.RequestCoalescer;
+import com.grupobb.biblioteca.service.event.EntityType;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/loans")
 public class LoanController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final LoanService loanService;
+    private final ObjectMapper objectMapper;
+    private final ChangeFeedService changeFeedService;
+    private final RequestCoalescer coalescer;
+    private final Duration exportTimeout;
 
-    public LoanController(LoanService loanService) {
+    public LoanController(LoanService loanService, ObjectMapper objectMapper,
+                          ChangeFeedService changeFeedService, RequestCoalescer coalescer,
+                          @Value("${loan.export.timeout:10m}") Duration exportTimeout) {
         this.loanService = loanService;
+        this.objectMapper = objectMapper;
+        this.changeFeedService = changeFeedService;
+        this.coalescer = coalescer;
+        this.exportTimeout = exportTimeout;
     }
 
     // Crear préstamo
@@ -30,16 +66,76 @@ public class LoanController {
                 .body(loanService.createLoan(request));
     }
 
-    // Listar todos los préstamos
+    // Crear varios préstamos en una sola petición (resultado por elemento)
+    @PostMapping("/batch")
+    public ResponseEntity<List<LoanBatchItemResult>> createBatch(
+            @Valid @RequestBody LoanBatchRequestData request) {
+
+        return ResponseEntity.ok(loanService.createLoans(request.getItems()));
+    }
+
+    // Listar préstamos por cursor: ?after=<id>&limit=&activo=&desde=&hasta=
     @GetMapping
-    public ResponseEntity<List<LoanResponse>> list() {
-        return ResponseEntity.ok(loanService.list());
+    public ResponseEntity<LoanPageResponse> list(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) Boolean activo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        // Páginas idénticas pedidas a la vez comparten una sola consulta (incluye nombres
+        // de usuario y títulos, por eso depende también de esas colecciones)
+        LoanPageResponse page = coalescer.execute(Arrays.asList("prestamos", after, limit, activo, desde, hasta),
+                () -> loanService.list(after, limit, activo, desde, hasta),
+                EntityType.LOAN, EntityType.USER, EntityType.BOOK);
+        return ResponseEntity.ok(page);
+    }
+
+    // Cambios desde una versión: ?since=<versión>&limit= (upserts y tombstones)
+    @GetMapping("/changes")
+    public ChangeFeedResponse changes(@RequestParam(required = false) Long since,
+                                      @RequestParam(defaultValue = "100") int limit) {
+        return changeFeedService.changesSince(EntityType.LOAN, since, limit);
+    }
+
+    // Exportar el historial completo como NDJSON (un préstamo por línea), opcionalmente gzip.
+    // Se escribe directo al stream de la respuesta, sin cargar la lista en memoria.
+    // Corre como tarea asíncrona con su propio límite (loan.export.timeout), sin
+    // alargar el timeout global de las demás peticiones asíncronas.
+    @GetMapping("/export")
+    public WebAsyncTask<Void> export(@RequestParam(defaultValue = "false") boolean gzip,
+                                     HttpServletResponse response) {
+        Callable<Void> escribir = () -> {
+            response.setContentType(NDJSON.toString());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"prestamos.ndjson" + (gzip ? ".gz" : "") + "\"");
+            if (gzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+
+            OutputStream out = response.getOutputStream();
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(target)) {
+                generator.setRootValueSeparator(null);
+                loanService.exportHistory(loan -> {
+                    try {
+                        objectMapper.writeValue(generator, loan);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            return null;
+        };
+        return new WebAsyncTask<>(exportTimeout.toMillis(), escribir);
     }
 
     // Obtener préstamo por ID
     @GetMapping("/{id}")
     public ResponseEntity<LoanResponse> getById(@PathVariable Long id) {
-        return ResponseEntity.ok(loanService.getById(id));
+        LoanResponse loan = coalescer.execute(List.of("prestamo", id), () -> loanService.getById(id),
+                EntityType.LOAN, EntityType.USER, EntityType.BOOK);
+        return ResponseEntity.ok(loan);
     }
 
     // Devolver libro
@@ -47,4 +143,11 @@ public class LoanController {
     public ResponseEntity<LoanResponse> returnLoan(@PathVariable Long id) {
         return ResponseEntity.ok(loanService.returnLoan(id));
     }
+
+    // Devolver varios libros en una sola petición (resultado por elemento)
+    @PostMapping("/batch/return")
+    public ResponseEntity<List<LoanBatchItemResult>> returnBatch(
+            @Valid @RequestBody LoanBatchReturnRequestData request) {
+        return ResponseEntity.ok(loanService.returnLoans(request.getIds()));
+    }
 }
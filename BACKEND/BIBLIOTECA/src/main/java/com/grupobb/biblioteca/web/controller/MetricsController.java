@@ -0,0 +1,31 @@
+package com.grupobb.biblioteca.web.controller;
+
+import com.grupobb.biblioteca.web.metrics.ServerMetricsStream;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * Controlador REST de métricas del servidor en vivo.
+ *
+ * Rutas base: /api/metrics
+ * - GET /api/metrics/stream -> Server-Sent Events "metrics" con una muestra periódica
+ *   (tasas de peticiones y errores, rutas más lentas, análisis, pools y sesiones WebSocket)
+ */
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    private final ServerMetricsStream metricsStream;
+
+    public MetricsController(ServerMetricsStream metricsStream) {
+        this.metricsStream = metricsStream;
+    }
+
+    // Todos los clientes comparten la misma fuente de muestras
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> stream() {
+        return metricsStream.stream();
+    }
+}
@@ -1,12 +1,18 @@
 package com.grupobb.biblioteca.web.controller;
 
+import com.grupobb.biblioteca.dto.Change.ChangeFeedResponse;
 import com.grupobb.biblioteca.dto.User.UserRequestData;
 import com.grupobb.biblioteca.dto.User.UserResponseData;
+import com.grupobb.biblioteca.service.ChangeFeedService;
+import com.grupobb.biblioteca.service.cache.RequestCoalescer;
 import com.grupobb.biblioteca.service.UserService;
+import com.grupobb.biblioteca.service.event.EntityType;
+import com.grupobb.biblioteca.web.cache.ListResponseCache;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -15,9 +21,16 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final ListResponseCache listCache;
+    private final ChangeFeedService changeFeedService;
+    private final RequestCoalescer coalescer;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, ListResponseCache listCache,
+                          ChangeFeedService changeFeedService, RequestCoalescer coalescer) {
         this.userService = userService;
+        this.listCache = listCache;
+        this.changeFeedService = changeFeedService;
+        this.coalescer = coalescer;
     }
 
     // Crear usuario
@@ -30,16 +43,26 @@ public class UserController {
                 .body(userService.create(request));
     }
 
+    // Cambios desde una versión: ?since=<versión>&limit= (upserts y tombstones)
+    @GetMapping("/changes")
+    public ChangeFeedResponse changes(@RequestParam(required = false) Long since,
+                                      @RequestParam(defaultValue = "100") int limit) {
+        return changeFeedService.changesSince(EntityType.USER, since, limit);
+    }
+
     // Obtener usuario por ID
     @GetMapping("/{id}")
     public ResponseEntity<UserResponseData> getById(@PathVariable Long id) {
-        return ResponseEntity.ok(userService.getById(id));
+        // Peticiones simultáneas por el mismo usuario comparten una sola lectura
+        UserResponseData user = coalescer.execute(List.of("usuario", id), () -> userService.getById(id),
+                EntityType.USER);
+        return ResponseEntity.ok(user);
     }
 
-    // Listar usuarios
+    // Listar usuarios (304 si el cliente ya tiene la versión vigente)
     @GetMapping
-    public ResponseEntity<List<UserResponseData>> list() {
-        return ResponseEntity.ok(userService.list());
+    public ResponseEntity<byte[]> list(WebRequest request) {
+        return listCache.respond(EntityType.USER, request, userService::list);
     }
 
     // Actualizar usuario
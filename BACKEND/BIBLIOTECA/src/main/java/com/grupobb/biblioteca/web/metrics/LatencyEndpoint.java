@@ -0,0 +1,57 @@
+package com.grupobb.biblioteca.web.metrics;
+
+import com.grupobb.biblioteca.dto.Metrics.RouteLatencyResponse;
+import com.grupobb.biblioteca.interceptor.RequestLoggingInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Endpoint de actuator con la latencia por ruta: GET /actuator/latency
+ *
+ * Una fila por método + patrón de ruta con p50/p95/p99 y máximo (ms) de la ventana
+ * deslizante del histograma, ordenadas por p99 descendente (las rutas más lentas primero).
+ */
+@Component
+@Endpoint(id = "latency")
+public class LatencyEndpoint {
+
+    private final MeterRegistry registry;
+
+    public LatencyEndpoint(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @ReadOperation
+    public List<RouteLatencyResponse> routes() {
+        return registry.find(RequestLoggingInterceptor.METRIC).timers().stream()
+                .map(LatencyEndpoint::toResponse)
+                .sorted(Comparator.comparingDouble(RouteLatencyResponse::getP99).reversed())
+                .toList();
+    }
+
+    static RouteLatencyResponse toResponse(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        double p50 = 0, p95 = 0, p99 = 0;
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            double ms = value.value(TimeUnit.MILLISECONDS);
+            if (value.percentile() == 0.5) {
+                p50 = ms;
+            } else if (value.percentile() == 0.95) {
+                p95 = ms;
+            } else if (value.percentile() == 0.99) {
+                p99 = ms;
+            }
+        }
+        return new RouteLatencyResponse(timer.getId().getTag("method"), timer.getId().getTag("uri"),
+                snapshot.count(), p50, p95, p99, snapshot.max(TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,194 @@
+package com.grupobb.biblioteca.web.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grupobb.biblioteca.config.MetricsConfig;
+import com.grupobb.biblioteca.dto.Metrics.PoolUsageResponse;
+import com.grupobb.biblioteca.dto.Metrics.RouteLatencyResponse;
+import com.grupobb.biblioteca.dto.Metrics.ServerMetricsResponse;
+import com.grupobb.biblioteca.interceptor.RequestLoggingInterceptor;
+import com.grupobb.biblioteca.service.analysis.AnalysisEngine;
+import com.grupobb.biblioteca.websocket.ChangeEventHub;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fuente compartida del stream de métricas del servidor (GET /api/metrics/stream).
+ *
+ * Cada `period` toma una muestra del registro de Micrometer (tasa de peticiones y de
+ * errores, rutas más lentas por p99, pools de conexiones y del análisis), la serializa
+ * una sola vez y la difunde a todos los suscriptores. Con N dashboards abiertos el costo
+ * sigue siendo una muestra por período; sin ninguno el intervalo se detiene y al volver
+ * las tasas arrancan de cero en vez de promediar el tiempo inactivo. Un cliente nuevo
+ * recibe enseguida la última muestra y uno lento se saltea las intermedias.
+ *
+ * Peticiones y errores salen de los mismos timers `http.server.requests` de /api/**,
+ * leídos en una sola pasada, así los errores son siempre una parte de las peticiones.
+ */
+@Component
+public class ServerMetricsStream {
+
+    private static final Logger log = LoggerFactory.getLogger(ServerMetricsStream.class);
+
+    static final String EVENT = "metrics";
+    private static final String HTTP_SERVER = "http.server.requests";
+    private static final String API = "/api/";
+    private static final String ANALYSIS_POOL = "analisis";
+    private static final int TOP_ROUTES = 5;
+    private static final Duration RETRY = Duration.ofSeconds(1);
+
+    private final MeterRegistry registry;
+    private final AnalysisEngine analysisEngine;
+    private final ChangeEventHub changeEventHub;
+    private final ObjectMapper objectMapper;
+    private final Flux<ServerSentEvent<String>> shared;
+
+    private final AtomicLong muestras = new AtomicLong();
+
+    // Muestra anterior, para calcular las tasas (protegidos por `this`)
+    private boolean inicializado;
+    private long lastNanos;
+    private double lastRequests;
+    private double lastErrors;
+
+    public ServerMetricsStream(MeterRegistry registry, AnalysisEngine analysisEngine,
+                               ChangeEventHub changeEventHub, ObjectMapper objectMapper,
+                               @Value("${metrics.stream.period:2s}") Duration period) {
+        this.registry = registry;
+        this.analysisEngine = analysisEngine;
+        this.changeEventHub = changeEventHub;
+        this.objectMapper = objectMapper;
+        this.shared = Flux.interval(period)
+                // Se vuelve a suscribir cada vez que refCount pasa de 0 a 1
+                .doOnSubscribe(s -> reiniciar())
+                .onBackpressureDrop()
+                .<ServerSentEvent<String>>handle((tick, sink) -> {
+                    // Un fallo puntual saltea la muestra en vez de cortar el stream a todos
+                    try {
+                        sink.next(event());
+                    } catch (Exception e) {
+                        log.warn("[Métricas] No se pudo tomar la muestra: {}", e.getMessage());
+                    }
+                })
+                .replay(1)
+                .refCount();
+    }
+
+    // Cada suscriptor se queda con la muestra más reciente si no alcanza a consumirlas
+    public Flux<ServerSentEvent<String>> stream() {
+        return shared.onBackpressureLatest();
+    }
+
+    private ServerSentEvent<String> event() throws Exception {
+        ServerMetricsResponse muestra = collect();
+        return ServerSentEvent.builder(objectMapper.writeValueAsString(muestra))
+                .id(Long.toString(muestras.get()))
+                .event(EVENT)
+                .retry(RETRY)
+                .build();
+    }
+
+    ServerMetricsResponse collect() {
+        return collect(System.nanoTime());
+    }
+
+    synchronized ServerMetricsResponse collect(long nanos) {
+        double requests = 0;
+        double errors = 0;
+        for (Timer timer : registry.find(HTTP_SERVER).timers()) {
+            String uri = timer.getId().getTag("uri");
+            if (uri == null || !uri.startsWith(API)) {
+                continue;
+            }
+            long count = timer.count();
+            requests += count;
+            if ("SERVER_ERROR".equals(timer.getId().getTag("outcome"))) {
+                errors += count;
+            }
+        }
+
+        double seconds = inicializado ? (nanos - lastNanos) / 1e9 : 0;
+        double requestsPerSecond = seconds > 0 ? Math.max(0, requests - lastRequests) / seconds : 0;
+        double errorsPerSecond = seconds > 0 ? Math.max(0, errors - lastErrors) / seconds : 0;
+        inicializado = true;
+        lastNanos = nanos;
+        lastRequests = requests;
+        lastErrors = errors;
+        muestras.incrementAndGet();
+
+        List<RouteLatencyResponse> routes = registry.find(RequestLoggingInterceptor.METRIC).timers().stream()
+                .map(LatencyEndpoint::toResponse)
+                .sorted(Comparator.comparingDouble(RouteLatencyResponse::getP99).reversed())
+                .limit(TOP_ROUTES)
+                .toList();
+
+        return new ServerMetricsResponse(System.currentTimeMillis(), requestsPerSecond, errorsPerSecond,
+                routes, analysisEngine.stats(), pools(), changeEventHub.getSesiones());
+    }
+
+    // Sin muestra anterior la próxima reporta tasas en 0 y queda como nueva base
+    synchronized void reiniciar() {
+        inicializado = false;
+    }
+
+    private List<PoolUsageResponse> pools() {
+        List<PoolUsageResponse> pools = new ArrayList<>();
+
+        // HikariCP publica un gauge por pool (tag "pool")
+        for (Gauge active : registry.find("hikaricp.connections.active").gauges()) {
+            String pool = active.getId().getTag("pool");
+            pools.add(new PoolUsageResponse(pool, active.value(),
+                    gauge("hikaricp.connections.idle", pool),
+                    gauge("hikaricp.connections.pending", pool),
+                    gauge("hikaricp.connections.max", pool)));
+        }
+
+        // Scheduler del análisis (newParallel: un hilo por núcleo)
+        double max = Schedulers.DEFAULT_POOL_SIZE;
+        double active = schedulerTasks(".tasks.active");
+        pools.add(new PoolUsageResponse(ANALYSIS_POOL, active, Math.max(0, max - active),
+                schedulerTasks(".tasks.pending"), max));
+        return pools;
+    }
+
+    private double gauge(String name, String pool) {
+        Gauge gauge = registry.find(name).tag("pool", pool).gauge();
+        return gauge != null ? gauge.value() : 0;
+    }
+
+    // Los nombres exactos los arma reactor-core-micrometer a partir del prefijo
+    private double schedulerTasks(String suffix) {
+        for (Meter meter : registry.getMeters()) {
+            String name = meter.getId().getName();
+            if (name.startsWith(MetricsConfig.SCHEDULER_METRICS) && name.endsWith(suffix)
+                    && ANALYSIS_POOL.equals(meter.getId().getTag("name"))) {
+                if (meter instanceof LongTaskTimer timer) {
+                    return timer.activeTasks();
+                }
+                if (meter instanceof Gauge gauge) {
+                    return gauge.value();
+                }
+            }
+        }
+        return 0;
+    }
+
+    public long getMuestras() {
+        return muestras.get();
+    }
+}
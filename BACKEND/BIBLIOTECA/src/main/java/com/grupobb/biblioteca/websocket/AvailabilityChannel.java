@@ -0,0 +1,204 @@
+package com.grupobb.biblioteca.websocket;
+
+import com.grupobb.biblioteca.service.search.AvailabilityIndex;
+import com.grupobb.biblioteca.service.search.AvailabilityIndex.Flip;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketSession;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Canal binario opcional /ws/availability: solo "qué ids de libro están disponibles".
+ *
+ * No guarda un bitmap propio: cada sesión recibe primero la instantánea comprimida del
+ * {@link AvailabilityIndex} y después frames delta con sus flips (préstamos y
+ * devoluciones que cambiaron la disponibilidad); los flips que llegan juntos (p. ej. una
+ * devolución en lote) van en un mismo frame. Cuando el índice se recarga, o este canal
+ * pierde flips, todas las sesiones reciben una instantánea nueva. Formato en
+ * {@link AvailabilityFrames}.
+ */
+@Component
+public class AvailabilityChannel {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityChannel.class);
+
+    private static final int BUFFER_SIZE = 10_000;
+    private static final String SNAPSHOT_KEY = "SNAPSHOT";
+
+    private final AvailabilityIndex index;
+    private final int queueCapacity;
+    private final int maxChangesPerFrame;
+    private final Duration frameDelay;
+    private final ExecutorService senders;
+    private final Scheduler scheduler = Schedulers.newSingle("ws-availability");
+    private Disposable subscription;
+
+    // Protegidos por `lock`: alta de sesiones y difusión de frames no se intercalan
+    private final Object lock = new Object();
+    private final Map<String, Sesion> sesiones = new ConcurrentHashMap<>();
+    private long snapshotSeq = -1;
+    private byte[] snapshotCache;
+
+    // El buffer de entrada descartó flips: hay que reenviar la instantánea completa
+    private final AtomicBoolean desincronizado = new AtomicBoolean();
+
+    private final AtomicLong deltas = new AtomicLong();
+    private final AtomicLong recargas = new AtomicLong();
+
+    // `desde`: secuencia de la última instantánea enviada a la sesión
+    private static final class Sesion {
+        private final SessionOutbox outbox;
+        private long desde;
+
+        private Sesion(SessionOutbox outbox, long desde) {
+            this.outbox = outbox;
+            this.desde = desde;
+        }
+    }
+
+    public AvailabilityChannel(AvailabilityIndex index,
+                               @Value("${ws.session.queue-capacity:256}") int queueCapacity,
+                               @Value("${ws.availability.max-changes-per-frame:512}") int maxChangesPerFrame,
+                               @Value("${ws.availability.frame-delay-ms:10}") long frameDelayMs) {
+        this.index = index;
+        this.queueCapacity = queueCapacity;
+        this.maxChangesPerFrame = Math.max(1, maxChangesPerFrame);
+        this.frameDelay = Duration.ofMillis(Math.max(1, frameDelayMs));
+        this.senders = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ws-availability-send");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PostConstruct
+    void start() {
+        // La carga del bitmap es del índice (al terminar de arrancar); cuando termina llega
+        // como un flip de recarga y se reenvía la instantánea
+        subscription = index.flips()
+                .onBackpressureBuffer(BUFFER_SIZE, dropped -> desincronizado.set(true),
+                        BufferOverflowStrategy.DROP_OLDEST)
+                .bufferTimeout(maxChangesPerFrame, frameDelay, scheduler)
+                .publishOn(scheduler)
+                .subscribe(this::aplicar,
+                        err -> log.error("[Disponibilidad] Error difundiendo cambios: {}", err.getMessage()));
+    }
+
+    @PreDestroy
+    void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        scheduler.dispose();
+        senders.shutdownNow();
+    }
+
+    void register(WebSocketSession session) {
+        SessionOutbox outbox = new SessionOutbox(session, Set.of(), queueCapacity, 32, senders);
+        // Bajo el lock: todo frame difundido después trae flips posteriores a la instantánea
+        synchronized (lock) {
+            byte[] snapshot = snapshot();
+            outbox.offer(SNAPSHOT_KEY, new BinaryMessage(snapshot));
+            sesiones.put(session.getId(), new Sesion(outbox, snapshotSeq));
+        }
+    }
+
+    void unregister(WebSocketSession session) {
+        sesiones.remove(session.getId());
+    }
+
+    void aplicar(List<Flip> lote) {
+        boolean recargar = desincronizado.getAndSet(false);
+        long[] flips = new long[lote.size()];
+        int n = 0;
+        long version = 0;
+        for (Flip flip : lote) {
+            version = Math.max(version, flip.seq());
+            if (flip.esRecarga()) {
+                recargar = true;
+            } else {
+                flips[n++] = (flip.id() << 1) | (flip.disponible() ? 1 : 0);
+            }
+        }
+
+        synchronized (lock) {
+            if (recargar) {
+                // La instantánea ya incluye los flips de este lote; tras una recarga del
+                // índice la secuencia puede no haber cambiado, así que no se reutiliza
+                recargas.incrementAndGet();
+                snapshotCache = null;
+                byte[] snapshot = snapshot();
+                for (Sesion sesion : sesiones.values()) {
+                    sesion.desde = snapshotSeq;
+                    enviar(sesion, SNAPSHOT_KEY, snapshot);
+                }
+                return;
+            }
+            if (n == 0) {
+                return;
+            }
+            deltas.incrementAndGet();
+            byte[] frame = AvailabilityFrames.delta(version, Arrays.copyOf(flips, n));
+            // Clave única por frame: los deltas no se coalescen entre sí
+            String key = "DELTA:" + version;
+            for (Sesion sesion : sesiones.values()) {
+                // Una sesión cuya instantánea ya incluye todo el lote no lo necesita
+                if (version > sesion.desde) {
+                    enviar(sesion, key, frame);
+                }
+            }
+        }
+    }
+
+    // Un BinaryMessage por sesión: el envío avanza la posición de su ByteBuffer
+    private void enviar(Sesion sesion, String key, byte[] frame) {
+        if (sesion.outbox.offer(key, new BinaryMessage(frame)) == SessionOutbox.Result.OVERFLOW) {
+            // Al reconectar el cliente recibe una instantánea nueva
+            sesiones.remove(sesion.outbox.id());
+        }
+    }
+
+    // Se comprime una vez por secuencia del índice y se reutiliza en cada conexión nueva
+    // (con el lock tomado)
+    private byte[] snapshot() {
+        if (snapshotCache == null || snapshotSeq != index.sequence()) {
+            AvailabilityIndex.Snapshot snapshot = index.snapshot();
+            snapshotCache = AvailabilityFrames.snapshot(snapshot.seq(), snapshot.disponibles());
+            snapshotSeq = snapshot.seq();
+            log.debug("[Disponibilidad] Instantánea de {} bits en {} bytes",
+                    snapshot.disponibles().length(), snapshotCache.length);
+        }
+        return snapshotCache;
+    }
+
+    public int getSesiones() {
+        return sesiones.size();
+    }
+
+    public long getDeltas() {
+        return deltas.get();
+    }
+
+    public long getRecargas() {
+        return recargas.get();
+    }
+}
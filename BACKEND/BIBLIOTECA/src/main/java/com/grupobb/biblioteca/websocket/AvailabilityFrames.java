@@ -0,0 +1,68 @@
+package com.grupobb.biblioteca.websocket;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.zip.Deflater;
+
+/**
+ * Formato binario del canal /ws/availability (big-endian).
+ *
+ * Instantánea: [0x01][seq: int64][bits: int32][bitmap comprimido con zlib]
+ *   El bitmap es BitSet.toByteArray(): el bit `id % 8` del byte `id / 8` vale 1 si el
+ *   libro con ese id está disponible. `bits` es el mayor id + 1 (largo sin comprimir).
+ *
+ * Delta: [0x02][seq: int64][n: varint][n x varint(id << 1 | disponible)]
+ *   Solo los libros cuya disponibilidad cambió desde el frame anterior.
+ *
+ * Los varint son LEB128 sin signo (7 bits por byte, el bit alto indica que sigue otro).
+ */
+final class AvailabilityFrames {
+
+    static final byte SNAPSHOT = 0x01;
+    static final byte DELTA = 0x02;
+
+    private AvailabilityFrames() {
+    }
+
+    static byte[] snapshot(long seq, BitSet disponibles) {
+        byte[] bitmap = disponibles.toByteArray();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(bitmap);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(13 + bitmap.length / 4 + 16);
+            out.write(SNAPSHOT);
+            out.writeBytes(ByteBuffer.allocate(12).putLong(seq).putInt(disponibles.length()).array());
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // cambios: id << 1 | (disponible ? 1 : 0), en el orden en que ocurrieron
+    static byte[] delta(long seq, long[] cambios) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 + 10 + cambios.length * 10);
+        buffer.put(DELTA).putLong(seq);
+        putVarint(buffer, cambios.length);
+        for (long cambio : cambios) {
+            putVarint(buffer, cambio);
+        }
+        byte[] frame = new byte[buffer.position()];
+        buffer.flip().get(frame);
+        return frame;
+    }
+
+    private static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+}
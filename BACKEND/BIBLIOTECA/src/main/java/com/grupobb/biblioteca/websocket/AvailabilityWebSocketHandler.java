@@ -0,0 +1,35 @@
+package com.grupobb.biblioteca.websocket;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+/**
+ * Handler de /ws/availability: el bitmap de disponibilidad y sus deltas en frames
+ * binarios (ver {@link AvailabilityChannel}). El canal es de solo lectura.
+ */
+@Component
+public class AvailabilityWebSocketHandler extends BinaryWebSocketHandler {
+
+    private final AvailabilityChannel channel;
+
+    public AvailabilityWebSocketHandler(AvailabilityChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        channel.register(session);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        channel.unregister(session);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        channel.unregister(session);
+    }
+}
@@ -0,0 +1,371 @@
+package com.grupobb.biblioteca.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.grupobb.biblioteca.dto.Loan.LoanResponse;
+import com.grupobb.biblioteca.service.event.ChangeType;
+import com.grupobb.biblioteca.service.event.ChangeVersions;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Difusión de los cambios de libros, préstamos y autores a las sesiones WebSocket (/ws).
+ *
+ * Se suscribe una sola vez al {@link EntityChangeStream}; cada cambio se serializa una vez
+ * y se encola en la {@link SessionOutbox} de cada sesión suscrita a su tema. Los envíos
+ * corren en un pool propio: ni el hilo que confirmó la escritura ni un cliente lento
+ * frenan al resto.
+ *
+ * Formato: {"type":"BOOK_UPDATED","payload":{"bookId":7,"data":{...}},"seq":42,"timestamp":...,"id":"..."}
+ *
+ * Sincronización por secuencia:
+ * - Cada delta lleva el `seq` del flujo de cambios; una sesión los recibe en orden creciente
+ *   (puede saltear secuencias de otros temas o ya reemplazadas por un estado más nuevo).
+ * - Los últimos deltas se guardan en un buffer circular. Al reconectar con
+ *   /ws?fromSeq=N&epoch=E se reenvían los posteriores a N antes que cualquier delta nuevo
+ *   (SYNC_READY, con la cantidad reenviada).
+ * - Si N ya salió del buffer, el hueco supera `ws.replay.max-gap`, el epoch no coincide
+ *   (reinicio del servidor) o el hub perdió cambios, se responde SYNC_SNAPSHOT_REQUIRED:
+ *   el cliente toma la instantánea compacta GET /api/books/availability y sigue desde su seq.
+ */
+@Component
+public class ChangeEventHub {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeEventHub.class);
+
+    // Temas difundidos (los usuarios no se publican por WebSocket)
+    static final Set<String> TOPICS = Set.of("BOOK", "LOAN", "AUTHOR");
+
+    // Cambios pendientes de difundir; si se llena se descartan los más antiguos
+    private static final int BUFFER_SIZE = 10_000;
+
+    // Clave de los mensajes de control: uno nuevo reemplaza al anterior aún no enviado
+    private static final String SYNC_KEY = "SYNC";
+    static final String SNAPSHOT_URL = "/api/books/availability";
+
+    // Delta ya serializado, tal como se reenvía al reconectar
+    private record Delta(long seq, String topic, String key, TextMessage message) {}
+
+    private final EntityChangeStream changeStream;
+    private final ObjectMapper objectMapper;
+    private final int queueCapacity;
+    private final int drainBatch;
+    private final int replayCapacity;
+    private final int maxGap;
+    private final ExecutorService senders;
+    private final Scheduler scheduler = Schedulers.newSingle("ws-hub");
+    private final Map<String, SessionOutbox> sesiones = new ConcurrentHashMap<>();
+    private Disposable subscription;
+
+    // Protegidos por `lock`: difusión y altas con reenvío no se intercalan
+    private final Object lock = new Object();
+    private final ArrayDeque<Delta> recientes = new ArrayDeque<>();
+    // Los deltas con seq mayor a `piso` (y hasta `ultima`) están todos en `recientes`
+    private long piso;
+    private long ultima;
+
+    // Última versión difundida de cada entidad (los cambios más viejos no se difunden)
+    private final ChangeVersions versiones = new ChangeVersions();
+
+    // Mayor secuencia descartada por el buffer de entrada (hueco para todas las sesiones)
+    private final AtomicLong perdidaHasta = new AtomicLong();
+
+    private final AtomicLong secuencia = new AtomicLong();
+    private final AtomicLong encolados = new AtomicLong();
+    private final AtomicLong coalescidos = new AtomicLong();
+    private final AtomicLong desbordados = new AtomicLong();
+    private final AtomicLong reenviados = new AtomicLong();
+    private final AtomicLong resincronizaciones = new AtomicLong();
+
+    public ChangeEventHub(EntityChangeStream changeStream, ObjectMapper objectMapper,
+                          @Value("${ws.session.queue-capacity:256}") int queueCapacity,
+                          @Value("${ws.session.drain-batch:32}") int drainBatch,
+                          @Value("${ws.send-threads:4}") int sendThreads,
+                          @Value("${ws.replay.capacity:4096}") int replayCapacity,
+                          @Value("${ws.replay.max-gap:128}") int maxGap) {
+        this.changeStream = changeStream;
+        this.objectMapper = objectMapper;
+        this.queueCapacity = queueCapacity;
+        this.drainBatch = drainBatch;
+        this.replayCapacity = Math.max(1, replayCapacity);
+        this.maxGap = Math.max(0, maxGap);
+        AtomicInteger hilos = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(Math.max(1, sendThreads), r -> {
+            Thread t = new Thread(r, "ws-send-" + hilos.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PostConstruct
+    void start() {
+        synchronized (lock) {
+            // Lo emitido antes de suscribirse no está en el buffer
+            piso = changeStream.lastSequence();
+            ultima = piso;
+        }
+        subscription = changeStream.changes()
+                .filter(change -> TOPICS.contains(change.getEntity().name()))
+                .onBackpressureBuffer(BUFFER_SIZE,
+                        dropped -> perdidaHasta.accumulateAndGet(dropped.getSequence(), Math::max),
+                        BufferOverflowStrategy.DROP_OLDEST)
+                .publishOn(scheduler)
+                .subscribe(this::broadcast,
+                        err -> log.error("[WebSocket] Error difundiendo cambios: {}", err.getMessage()));
+    }
+
+    @PreDestroy
+    void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        scheduler.dispose();
+        senders.shutdownNow();
+    }
+
+    void register(WebSocketSession session) {
+        register(session, null, null);
+    }
+
+    /**
+     * Alta de una sesión. Sin `fromSeq` recibe los deltas desde ahora; con `fromSeq`
+     * primero se le reenvían los que se perdió, o se le pide una instantánea.
+     */
+    void register(WebSocketSession session, Long fromSeq, String epoch) {
+        SessionOutbox outbox = new SessionOutbox(session, TOPICS, queueCapacity, drainBatch, senders);
+        synchronized (lock) {
+            if (fromSeq == null) {
+                outbox.offer(SYNC_KEY, sync("SYNC_READY", ultima, 0));
+            } else {
+                List<Delta> faltantes = faltantes(outbox, fromSeq, epoch);
+                if (faltantes == null) {
+                    resincronizaciones.incrementAndGet();
+                    outbox.offer(SYNC_KEY, sync("SYNC_SNAPSHOT_REQUIRED", ultima, 0));
+                } else {
+                    outbox.offer(SYNC_KEY, sync("SYNC_READY", ultima, faltantes.size()));
+                    for (Delta delta : faltantes) {
+                        outbox.offer(delta.key(), delta.message());
+                    }
+                    reenviados.addAndGet(faltantes.size());
+                }
+            }
+            sesiones.put(session.getId(), outbox);
+        }
+    }
+
+    // Deltas posteriores a fromSeq para la sesión, o null si no se pueden reenviar
+    private List<Delta> faltantes(SessionOutbox outbox, long fromSeq, String epoch) {
+        if (!changeStream.epoch().equals(epoch) || fromSeq < piso || fromSeq > changeStream.lastSequence()) {
+            return null;
+        }
+        List<Delta> faltantes = new ArrayList<>();
+        Iterator<Delta> it = recientes.descendingIterator();
+        while (it.hasNext()) {
+            Delta delta = it.next();
+            if (delta.seq() <= fromSeq) {
+                break;
+            }
+            if (outbox.wants(delta.topic())) {
+                if (faltantes.size() == maxGap) {
+                    return null;
+                }
+                faltantes.add(delta);
+            }
+        }
+        Collections.reverse(faltantes);
+        return faltantes;
+    }
+
+    void unregister(WebSocketSession session) {
+        sesiones.remove(session.getId());
+    }
+
+    // Reemplaza los temas de la sesión; los desconocidos se ignoran
+    void subscribe(WebSocketSession session, Collection<String> topics) {
+        SessionOutbox outbox = sesiones.get(session.getId());
+        if (outbox != null) {
+            outbox.setTopics(topics.stream()
+                    .map(topic -> topic.toUpperCase(Locale.ROOT))
+                    .filter(TOPICS::contains)
+                    .collect(Collectors.toSet()));
+        }
+    }
+
+    void broadcast(EntityChange change) {
+        if (!versiones.accept(change)) {
+            // Llegó después de un cambio más nuevo de la misma entidad: reenviarlo dejaría
+            // al cliente con el estado viejo. Los clientes toleran huecos de seq.
+            synchronized (lock) {
+                ultima = Math.max(ultima, change.getSequence());
+            }
+            return;
+        }
+        String topic = change.getEntity().name();
+        TextMessage message;
+        try {
+            message = new TextMessage(toJson(change));
+        } catch (JsonProcessingException ex) {
+            log.warn("[WebSocket] No se pudo serializar {}: {}", change, ex.getMessage());
+            return;
+        }
+        String key = topic + ":" + change.getId();
+        synchronized (lock) {
+            long perdida = perdidaHasta.get();
+            if (perdida > piso) {
+                descartarHistorial(perdida);
+            }
+            recientes.addLast(new Delta(change.getSequence(), topic, key, message));
+            if (recientes.size() > replayCapacity) {
+                piso = recientes.removeFirst().seq();
+            }
+            ultima = Math.max(ultima, change.getSequence());
+
+            for (SessionOutbox outbox : sesiones.values()) {
+                if (outbox.wants(topic)) {
+                    contar(outbox, outbox.offer(key, message));
+                }
+            }
+        }
+    }
+
+    // El hub perdió cambios: nadie puede reanudar desde antes y todos deben resincronizar
+    private void descartarHistorial(long perdida) {
+        log.warn("[WebSocket] Se descartaron cambios hasta seq={}, se pide resincronizar a {} sesiones",
+                perdida, sesiones.size());
+        recientes.clear();
+        piso = perdida;
+        ultima = Math.max(ultima, perdida);
+        TextMessage reset = sync("SYNC_SNAPSHOT_REQUIRED", ultima, 0);
+        for (SessionOutbox outbox : sesiones.values()) {
+            resincronizaciones.incrementAndGet();
+            contar(outbox, outbox.offer(SYNC_KEY, reset));
+        }
+    }
+
+    private void contar(SessionOutbox outbox, SessionOutbox.Result result) {
+        switch (result) {
+            case QUEUED -> encolados.incrementAndGet();
+            case COALESCED -> coalescidos.incrementAndGet();
+            case OVERFLOW -> {
+                // Cliente demasiado lento: se cerró su sesión y deja de recibir
+                desbordados.incrementAndGet();
+                sesiones.remove(outbox.id());
+            }
+        }
+    }
+
+    private String toJson(EntityChange change) throws JsonProcessingException {
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put(change.getEntity().name().toLowerCase(Locale.ROOT) + "Id", change.getId());
+        if (change.getPayload() instanceof LoanResponse loan) {
+            payload.put("userId", loan.getUsuarioId());
+            payload.put("bookId", loan.getLibroId());
+        }
+        payload.set("data", objectMapper.valueToTree(change.getPayload()));
+
+        ObjectNode message = mensaje(change.getEntity().name() + "_" + accion(change), payload);
+        message.put("seq", change.getSequence());
+        return objectMapper.writeValueAsString(message);
+    }
+
+    // Mensaje de control: seq es la última secuencia difundida al generarlo
+    private TextMessage sync(String type, long seq, int replayed) {
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("seq", seq);
+        payload.put("epoch", changeStream.epoch());
+        if ("SYNC_READY".equals(type)) {
+            payload.put("replayed", replayed);
+        } else {
+            payload.put("snapshot", SNAPSHOT_URL);
+        }
+        try {
+            return new TextMessage(objectMapper.writeValueAsString(mensaje(type, payload)));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("No se pudo serializar " + type, ex);
+        }
+    }
+
+    private ObjectNode mensaje(String type, ObjectNode payload) {
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("type", type);
+        message.set("payload", payload);
+        message.put("timestamp", System.currentTimeMillis());
+        message.put("id", "srv_" + secuencia.incrementAndGet());
+        return message;
+    }
+
+    // Un préstamo actualizado con fecha de devolución es una devolución
+    private static String accion(EntityChange change) {
+        if (change.getType() == ChangeType.UPDATED && change.getPayload() instanceof LoanResponse loan
+                && loan.getFechaDevolucion() != null) {
+            return "RETURNED";
+        }
+        return change.getType().name();
+    }
+
+    public int getSesiones() {
+        return sesiones.size();
+    }
+
+    public long getEncolados() {
+        return encolados.get();
+    }
+
+    public long getCoalescidos() {
+        return coalescidos.get();
+    }
+
+    public long getDesbordados() {
+        return desbordados.get();
+    }
+
+    public long getReenviados() {
+        return reenviados.get();
+    }
+
+    public long getResincronizaciones() {
+        return resincronizaciones.get();
+    }
+
+    // Espera a que se vacíen las colas (solo pruebas y apagado ordenado)
+    boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long limite = System.nanoTime() + unit.toNanos(timeout);
+        while (sesiones.values().stream().anyMatch(outbox -> !outbox.idle())) {
+            if (System.nanoTime() > limite) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+}
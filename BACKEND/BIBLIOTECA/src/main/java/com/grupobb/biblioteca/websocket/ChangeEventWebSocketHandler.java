@@ -0,0 +1,82 @@
+package com.grupobb.biblioteca.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Handler de /ws: registra cada sesión en el {@link ChangeEventHub}.
+ *
+ * Al conectarse la sesión recibe todos los temas (BOOK, LOAN, AUTHOR). Para elegirlos el
+ * cliente envía {"type":"SUBSCRIBE","payload":{"topics":["LOAN"]}}; UNSUBSCRIBE deja la
+ * sesión sin temas. Los demás mensajes del cliente se ignoran.
+ *
+ * Para reanudar sin perder deltas el cliente se conecta a /ws?fromSeq=N&epoch=E con el
+ * último seq aplicado (ver {@link ChangeEventHub}).
+ */
+@Component
+public class ChangeEventWebSocketHandler extends TextWebSocketHandler {
+
+    private final ChangeEventHub hub;
+    private final ObjectMapper objectMapper;
+
+    public ChangeEventWebSocketHandler(ChangeEventHub hub, ObjectMapper objectMapper) {
+        this.hub = hub;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        // Se envía antes de registrar: después la sesión solo la escribe su cola de envío
+        session.sendMessage(new TextMessage("[Servidor] Conexión WebSocket establecida."));
+        Map<String, String> query = session.getUri() == null ? Map.of()
+                : UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().toSingleValueMap();
+        hub.register(session, parseSeq(query.get("fromSeq")), query.get("epoch"));
+    }
+
+    // Un fromSeq inválido se trata como conexión nueva
+    private static Long parseSeq(String value) {
+        try {
+            return value == null ? null : Long.valueOf(value);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        JsonNode json;
+        try {
+            json = objectMapper.readTree(message.getPayload());
+        } catch (Exception ex) {
+            return;
+        }
+        String type = json.path("type").asText();
+        if ("SUBSCRIBE".equals(type)) {
+            List<String> topics = new ArrayList<>();
+            json.path("payload").path("topics").forEach(topic -> topics.add(topic.asText()));
+            hub.subscribe(session, topics);
+        } else if ("UNSUBSCRIBE".equals(type)) {
+            hub.subscribe(session, List.of());
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        hub.unregister(session);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        hub.unregister(session);
+    }
+}
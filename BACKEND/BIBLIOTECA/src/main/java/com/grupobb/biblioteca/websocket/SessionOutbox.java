@@ -0,0 +1,152 @@
+package com.grupobb.biblioteca.websocket;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Cola de envío acotada de una sesión WebSocket (mensajes de texto o binarios).
+ *
+ * - Los mensajes se guardan por clave de entidad ("BOOK:7"): si llega otro evento de la
+ *   misma entidad antes de enviarse el anterior, lo reemplaza (coalescencia) y pasa al
+ *   final de la cola, así la sesión recibe las secuencias siempre en orden creciente.
+ * - Como máximo `capacity` entidades pendientes; si se llena la sesión se cierra
+ *   (el cliente se reconecta y se resincroniza con el feed de cambios). El cierre también
+ *   lo hace la tarea de envío: nunca corre a la vez que un sendMessage en curso.
+ * - El envío corre en el executor del hub, de a `drainBatch` mensajes por turno, así un
+ *   cliente lento solo demora su propia cola.
+ */
+final class SessionOutbox {
+
+    enum Result { QUEUED, COALESCED, OVERFLOW }
+
+    private final WebSocketSession session;
+    private final int capacity;
+    private final int drainBatch;
+    private final Executor executor;
+
+    // Temas a los que está suscrita la sesión (BOOK, LOAN, AUTHOR); todos por defecto
+    private final Set<String> topics = ConcurrentHashMap.newKeySet();
+
+    // Protegidos por `this`
+    private final LinkedHashMap<String, WebSocketMessage<?>> pendientes = new LinkedHashMap<>();
+    private boolean programada;
+    private boolean cerrada;
+    // Motivo con el que la tarea de envío cierra la sesión al terminar su turno
+    private CloseStatus cierre;
+
+    SessionOutbox(WebSocketSession session, Set<String> topics, int capacity, int drainBatch, Executor executor) {
+        this.session = session;
+        this.topics.addAll(topics);
+        this.capacity = Math.max(1, capacity);
+        this.drainBatch = Math.max(1, drainBatch);
+        this.executor = executor;
+    }
+
+    String id() {
+        return session.getId();
+    }
+
+    boolean wants(String topic) {
+        return topics.contains(topic);
+    }
+
+    void setTopics(Set<String> nuevos) {
+        topics.clear();
+        topics.addAll(nuevos);
+    }
+
+    Result offer(String key, WebSocketMessage<?> message) {
+        boolean programar;
+        boolean desbordada = false;
+        synchronized (this) {
+            if (cerrada) {
+                return Result.OVERFLOW;
+            }
+            if (pendientes.remove(key) != null) {
+                // El estado más nuevo reemplaza al anterior, en el orden de su secuencia
+                pendientes.put(key, message);
+                return Result.COALESCED;
+            }
+            if (pendientes.size() >= capacity) {
+                // Si hay un envío en curso, cierra él al terminar; si no, se programa uno
+                desbordada = true;
+                cerrada = true;
+                cierre = CloseStatus.SESSION_NOT_RELIABLE;
+                pendientes.clear();
+            } else {
+                pendientes.put(key, message);
+            }
+            programar = !programada;
+            programada = true;
+        }
+        if (programar) {
+            executor.execute(this::drain);
+        }
+        return desbordada ? Result.OVERFLOW : Result.QUEUED;
+    }
+
+    // Sin mensajes en cola ni envío en curso
+    synchronized boolean idle() {
+        return pendientes.isEmpty() && !programada;
+    }
+
+    private void drain() {
+        List<WebSocketMessage<?>> lote = new ArrayList<>(drainBatch);
+        synchronized (this) {
+            Iterator<Map.Entry<String, WebSocketMessage<?>>> it = pendientes.entrySet().iterator();
+            while (lote.size() < drainBatch && it.hasNext()) {
+                lote.add(it.next().getValue());
+                it.remove();
+            }
+        }
+        try {
+            for (WebSocketMessage<?> message : lote) {
+                // Una sesión solo se escribe desde su propia tarea de envío
+                session.sendMessage(message);
+            }
+        } catch (IOException | RuntimeException ex) {
+            synchronized (this) {
+                if (!cerrada) {
+                    cerrada = true;
+                    cierre = CloseStatus.SERVER_ERROR;
+                    pendientes.clear();
+                }
+            }
+        }
+        boolean seguir;
+        CloseStatus status;
+        synchronized (this) {
+            seguir = !cerrada && !pendientes.isEmpty();
+            programada = seguir;
+            status = cierre;
+            cierre = null;
+        }
+        if (status != null) {
+            cerrar(status);
+        } else if (seguir) {
+            // Vuelve a la cola del executor para no acaparar un hilo
+            executor.execute(this::drain);
+        }
+    }
+
+    private void cerrar(CloseStatus status) {
+        try {
+            if (session.isOpen()) {
+                session.close(status);
+            }
+        } catch (IOException ignored) {
+            // La sesión ya estaba rota
+        }
+    }
+}
@@ -1,26 +0,0 @@
-package com.grupobb.biblioteca.websocket;
-
-import org.springframework.stereotype.Component;
-import org.springframework.web.socket.CloseStatus;
-import org.springframework.web.socket.TextMessage;
-import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
-
-@Component
-public class SimpleWebSocketHandler extends TextWebSocketHandler {
-    @Override
-    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        session.sendMessage(new TextMessage("[Servidor] Conexión WebSocket establecida."));
-    }
-
-    @Override
-    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        // Eco simple: responde con el mismo mensaje recibido
-        session.sendMessage(new TextMessage("Eco: " + message.getPayload()));
-    }
-
-    @Override
-    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        // Puedes agregar lógica de cierre si lo necesitas
-    }
-}
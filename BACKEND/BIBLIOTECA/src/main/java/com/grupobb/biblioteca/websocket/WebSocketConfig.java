@@ -10,10 +10,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
     @Autowired
-    private SimpleWebSocketHandler simpleWebSocketHandler;
+    private ChangeEventWebSocketHandler changeEventWebSocketHandler;
+    @Autowired
+    private AvailabilityWebSocketHandler availabilityWebSocketHandler;
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(simpleWebSocketHandler, "/ws").setAllowedOrigins("*");
+        registry.addHandler(changeEventWebSocketHandler, "/ws").setAllowedOrigins("*");
+        // Opcional, binario: bitmap de disponibilidad para pantallas que solo necesitan eso
+        registry.addHandler(availabilityWebSocketHandler, "/ws/availability").setAllowedOrigins("*");
     }
 }
@@ -0,0 +1,91 @@
+package com.grupobb.biblioteca.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas unitarias del muestreo de logs por categoría.
+ *
+ * Cobertura:
+ * 1. Solo pasa uno de cada N mensajes de la categoría
+ * 2. El límite por segundo corta una ráfaga
+ * 3. Otras categorías y los ERROR no se muestrean
+ *
+ * Patrón: AAA (Arrange-Act-Assert)
+ */
+public class LogSamplingFilterTest {
+
+    private LoggerContext context;
+    private Logger elementos;
+    private LogSamplingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        context = new LoggerContext();
+        elementos = context.getLogger("biblioteca.analysis.element");
+        filter = new LogSamplingFilter();
+        filter.setCategory("biblioteca.analysis.element");
+    }
+
+    /**
+     * PRUEBA 1: Solo pasa uno de cada N mensajes
+     */
+    @Test
+    void muestreo_dejaPasarUnoDeCadaN() {
+        // Arrange
+        filter.setSampleEvery(10);
+
+        // Act
+        int aceptados = registrar(elementos, Level.INFO, 100);
+
+        // Assert
+        assertEquals(10, aceptados);
+        assertEquals(90, filter.getDescartados());
+    }
+
+    /**
+     * PRUEBA 2: El límite por segundo corta una ráfaga
+     */
+    @Test
+    void limiteDeTasa_cortaRafaga() {
+        // Arrange
+        filter.setMaxPerSecond(5);
+
+        // Act
+        int aceptados = registrar(elementos, Level.INFO, 1000);
+
+        // Assert: la ráfaga puede cruzar como mucho un cambio de segundo
+        assertTrue(aceptados >= 5 && aceptados <= 10, "Aceptados: " + aceptados);
+    }
+
+    /**
+     * PRUEBA 3: Otras categorías y los ERROR no se muestrean
+     */
+    @Test
+    void otrasCategoriasYErrores_noSeMuestrean() {
+        // Arrange
+        filter.setSampleEvery(1000);
+        filter.setMaxPerSecond(0);
+
+        // Act + Assert
+        assertEquals(50, registrar(context.getLogger("com.grupobb.biblioteca.service"), Level.INFO, 50));
+        assertEquals(50, registrar(elementos, Level.ERROR, 50));
+    }
+
+    private int registrar(Logger logger, Level level, int cantidad) {
+        int aceptados = 0;
+        for (int i = 0; i < cantidad; i++) {
+            if (filter.decide(null, logger, level, "mensaje {}", new Object[]{i}, null) != FilterReply.DENY) {
+                aceptados++;
+            }
+        }
+        return aceptados;
+    }
+}
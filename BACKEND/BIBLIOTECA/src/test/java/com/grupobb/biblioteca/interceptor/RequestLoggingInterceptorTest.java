@@ -0,0 +1,119 @@
+package com.grupobb.biblioteca.interceptor;
+
+import com.grupobb.biblioteca.dto.Metrics.RouteLatencyResponse;
+import com.grupobb.biblioteca.web.metrics.LatencyEndpoint;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas unitarias de la latencia por ruta.
+ *
+ * Cobertura:
+ * 1. Peticiones a distintos ids caen en el histograma del mismo patrón de ruta
+ * 2. El endpoint de latencia expone percentiles y máximo por ruta
+ * 3. Una petición asíncrona se mide una sola vez, desde el despacho inicial
+ *
+ * Patrón: AAA (Arrange-Act-Assert)
+ */
+public class RequestLoggingInterceptorTest {
+
+    private SimpleMeterRegistry registry;
+    private RequestLoggingInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        interceptor = new RequestLoggingInterceptor(registry, Duration.ofMinutes(1));
+    }
+
+    /**
+     * PRUEBA 1: Las URIs de un mismo endpoint comparten histograma
+     */
+    @Test
+    void distintasUris_mismoPatron_unSoloTimer() throws Exception {
+        // Act
+        peticion("GET", "/api/books/1", "/api/books/{id}", 0);
+        peticion("GET", "/api/books/2", "/api/books/{id}", 0);
+        peticion("GET", "/api/books", "/api/books", 0);
+
+        // Assert
+        assertEquals(2, registry.get(RequestLoggingInterceptor.METRIC)
+                .tag("uri", "/api/books/{id}").timer().count());
+        assertEquals(1, registry.get(RequestLoggingInterceptor.METRIC)
+                .tag("uri", "/api/books").timer().count());
+    }
+
+    /**
+     * PRUEBA 2: El endpoint expone p50/p95/p99/max, con la ruta más lenta primero
+     */
+    @Test
+    void endpoint_exponePercentilesPorRuta() throws Exception {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            peticion("GET", "/api/loans", "/api/loans", 0);
+        }
+        peticion("GET", "/api/loans/export", "/api/loans/export", 20);
+
+        // Act
+        List<RouteLatencyResponse> rutas = new LatencyEndpoint(registry).routes();
+
+        // Assert
+        assertEquals(2, rutas.size());
+        RouteLatencyResponse lenta = rutas.get(0);
+        assertEquals("/api/loans/export", lenta.getUri());
+        assertEquals("GET", lenta.getMethod());
+        assertEquals(1, lenta.getCount());
+        assertTrue(lenta.getMax() >= 20, "El máximo refleja la petición lenta");
+        assertTrue(lenta.getP99() > 0);
+        assertEquals(5, rutas.get(1).getCount());
+    }
+
+    /**
+     * PRUEBA 3: El despacho ASYNC no reinicia la medición ni se registra dos veces
+     */
+    @Test
+    void peticionAsincrona_mideDesdeElDespachoInicial() throws Exception {
+        // Arrange: el despacho inicial arranca el procesamiento asíncrono y vuelve
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/loans/export");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, null);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/loans/export");
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+        Thread.sleep(20);
+
+        // Act: el resultado llega en el despacho ASYNC
+        request.setDispatcherType(DispatcherType.ASYNC);
+        interceptor.preHandle(request, response, null);
+        interceptor.afterCompletion(request, response, null, null);
+
+        // Assert
+        Timer timer = registry.get(RequestLoggingInterceptor.METRIC)
+                .tag("uri", "/api/loans/export").timer();
+        assertEquals(1, timer.count());
+        assertTrue(timer.max(TimeUnit.MILLISECONDS) >= 20, "Incluye el tiempo entre ambos despachos");
+    }
+
+    private void peticion(String method, String uri, String patron, long demoraMs) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, null);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, patron);
+        if (demoraMs > 0) {
+            Thread.sleep(demoraMs);
+        }
+        interceptor.afterCompletion(request, response, null, null);
+    }
+}
@@ -0,0 +1,82 @@
+package com.grupobb.biblioteca.interceptor;
+
+import com.grupobb.biblioteca.service.AuthorService;
+import com.grupobb.biblioteca.web.advice.NotFoundException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias del timer de los servicios.
+ *
+ * Cobertura:
+ * 1. Cada llamada a un servicio registra su duración con clase y método
+ * 2. Una llamada que falla se registra con el nombre de la excepción
+ *
+ * Patrón: AAA (Arrange-Act-Assert)
+ */
+public class ServiceTimingAspectTest {
+
+    private SimpleMeterRegistry registry;
+    private AuthorService target;
+    private AuthorService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        target = mock(AuthorService.class);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addInterface(AuthorService.class);
+        factory.addAspect(new ServiceTimingAspect(registry));
+        service = factory.getProxy();
+    }
+
+    /**
+     * PRUEBA 1: Cada llamada registra su duración
+     */
+    @Test
+    void llamadaAlServicio_registraTimer() {
+        // Arrange
+        when(target.findAll()).thenReturn(List.of());
+
+        // Act
+        service.findAll();
+        service.findAll();
+
+        // Assert
+        Timer timer = registry.get("biblioteca.service")
+                .tag("class", "AuthorService")
+                .tag("method", "findAll")
+                .tag("exception", "none")
+                .timer();
+        assertEquals(2, timer.count());
+    }
+
+    /**
+     * PRUEBA 2: Una llamada que falla se registra con su excepción
+     */
+    @Test
+    void llamadaConError_registraExcepcion() {
+        // Arrange
+        when(target.findById(99L)).thenThrow(new NotFoundException("Autor no encontrado con id 99"));
+
+        // Act
+        assertThrows(NotFoundException.class, () -> service.findById(99L));
+
+        // Assert
+        assertEquals(1, registry.get("biblioteca.service")
+                .tag("method", "findById")
+                .tag("exception", "NotFoundException")
+                .timer().count());
+    }
+}
@@ -5,6 +5,10 @@ import com.grupobb.biblioteca.dto.Author.AuthorRequestData;
 import com.grupobb.biblioteca.dto.Author.AuthorResponse;
 import com.grupobb.biblioteca.repository.AuthorRepository;
 import com.grupobb.biblioteca.repository.BookRepository;
+import com.grupobb.biblioteca.service.analysis.AnalysisEngine;
+import com.grupobb.biblioteca.service.event.ChangeType;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
 import com.grupobb.biblioteca.service.impl.AuthorServiceImpl;
 import com.grupobb.biblioteca.web.advice.BadRequestException;
 import com.grupobb.biblioteca.web.advice.NotFoundException;
@@ -37,6 +41,7 @@ public class AuthorServiceTest {
 
     private AuthorRepository authorRepository;
     private BookRepository bookRepository;
+    private EntityChangeStream changeStream;
 
     private AuthorServiceImpl authorService;
 
@@ -44,8 +49,10 @@ public class AuthorServiceTest {
     void setUp() {
         authorRepository = mock(AuthorRepository.class);
         bookRepository = mock(BookRepository.class);
+        changeStream = mock(EntityChangeStream.class);
 
-        authorService = new AuthorServiceImpl(authorRepository, bookRepository);
+        authorService = new AuthorServiceImpl(authorRepository, bookRepository, changeStream,
+                mock(AnalysisEngine.class));
     }
 
     /**
@@ -145,8 +152,6 @@ public class AuthorServiceTest {
         saved.setNacionalidad("USA");
 
         when(authorRepository.save(any(Author.class))).thenReturn(saved);
-        // IMPORTANTE: create() dispara ejecutarAnalisisReactivo(repository.findAll())
-        when(authorRepository.findAll()).thenReturn(List.of(saved));
 
         // Act
         AuthorResponse response = authorService.create(request);
@@ -158,7 +163,9 @@ public class AuthorServiceTest {
         assertEquals("USA", response.getNacionalidad());
 
         verify(authorRepository).save(any(Author.class));
-        verify(authorRepository, atLeastOnce()).findAll();
+        // Solo se publica el cambio; ya no se vuelve a leer toda la tabla
+        verify(authorRepository, never()).findAll();
+        verify(changeStream).publish(argThat(c -> c.getType() == ChangeType.CREATED));
     }
 
     /**
@@ -180,8 +187,6 @@ public class AuthorServiceTest {
 
         when(authorRepository.findById(authorId)).thenReturn(Optional.of(author));
         when(authorRepository.save(any(Author.class))).thenAnswer(inv -> inv.getArgument(0));
-        // update() dispara ejecutarAnalisisReactivo(repository.findAll())
-        when(authorRepository.findAll()).thenReturn(List.of(author));
 
         // Act
         AuthorResponse response = authorService.update(authorId, request);
@@ -194,7 +199,9 @@ public class AuthorServiceTest {
 
         verify(authorRepository).findById(authorId);
         verify(authorRepository).save(any(Author.class));
-        verify(authorRepository, atLeastOnce()).findAll();
+        // Solo se publica el cambio; ya no se vuelve a leer toda la tabla
+        verify(authorRepository, never()).findAll();
+        verify(changeStream).publish(argThat(c -> c.getType() == ChangeType.UPDATED));
     }
 
     /**
@@ -232,8 +239,6 @@ public class AuthorServiceTest {
 
         when(authorRepository.findById(authorId)).thenReturn(Optional.of(author));
         when(bookRepository.existsByAutor(author)).thenReturn(false);
-        // delete() dispara ejecutarAnalisisReactivo(repository.findAll())
-        when(authorRepository.findAll()).thenReturn(List.of(author));
 
         // Act
         assertDoesNotThrow(() -> authorService.delete(authorId));
@@ -241,7 +246,9 @@ public class AuthorServiceTest {
         // Assert
         verify(authorRepository).deleteById(authorId);
         verify(bookRepository).existsByAutor(author);
-        verify(authorRepository, atLeastOnce()).findAll();
+        // Solo se publica el cambio; ya no se vuelve a leer toda la tabla
+        verify(authorRepository, never()).findAll();
+        verify(changeStream).publish(argThat(c -> c.getType() == ChangeType.DELETED));
     }
 
     /**
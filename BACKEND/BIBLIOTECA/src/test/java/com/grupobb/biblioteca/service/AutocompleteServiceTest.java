@@ -0,0 +1,156 @@
+package com.grupobb.biblioteca.service;
+
+import com.grupobb.biblioteca.domain.Author;
+import com.grupobb.biblioteca.domain.User;
+import com.grupobb.biblioteca.dto.Author.AuthorResponse;
+import com.grupobb.biblioteca.dto.Autocomplete.SuggestionResponse;
+import com.grupobb.biblioteca.dto.Book.BookResponse;
+import com.grupobb.biblioteca.dto.User.UserResponseData;
+import com.grupobb.biblioteca.repository.AuthorRepository;
+import com.grupobb.biblioteca.repository.BookRepository;
+import com.grupobb.biblioteca.repository.UserRepository;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
+import com.grupobb.biblioteca.service.impl.AutocompleteServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias del autocompletado sobre un flujo de cambios en memoria.
+ *
+ * Cobertura:
+ * 1. Carga inicial de libros, autores y usuarios
+ * 2. Altas, ediciones y bajas emitidas durante las consultas de la recarga
+ *
+ * Patrón: AAA (Arrange-Act-Assert)
+ */
+public class AutocompleteServiceTest {
+
+    private BookRepository bookRepository;
+    private AuthorRepository authorRepository;
+    private UserRepository userRepository;
+    private EntityChangeStream changeStream;
+
+    private AutocompleteServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        authorRepository = mock(AuthorRepository.class);
+        userRepository = mock(UserRepository.class);
+        // Sin registro: cada cambio se aplica en el hilo que lo publica
+        changeStream = new EntityChangeStream();
+
+        service = new AutocompleteServiceImpl(bookRepository, authorRepository, userRepository, changeStream);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    /**
+     * PRUEBA 1: Carga inicial de las tres colecciones
+     */
+    @Test
+    void rebuild_cargaLibrosAutoresYUsuarios() {
+        // Arrange
+        when(bookRepository.findAllResponses()).thenReturn(List.of(
+                new BookResponse(1L, "Ficciones", 10L, "Jorge Luis Borges", true)));
+        when(authorRepository.findAll()).thenReturn(List.of(autor(10L, "Jorge Luis Borges")));
+        when(userRepository.findAll()).thenReturn(List.of(usuario(5L, "Ana Pérez", "ana@correo.com")));
+
+        // Act
+        service.rebuild();
+
+        // Assert
+        assertEquals(List.of(1L), ids(service.suggest("libros", "fic", 10)));
+        assertEquals(List.of(10L), ids(service.suggest("autores", "borg", 10)));
+        List<SuggestionResponse> usuarios = service.suggest("usuarios", "ana@", 10);
+        assertEquals(List.of(5L), ids(usuarios));
+        assertEquals("Ana Pérez <ana@correo.com>", usuarios.get(0).getTexto());
+    }
+
+    /**
+     * PRUEBA 2: Cambios confirmados durante la recarga
+     * Objetivo: las consultas devuelven el estado anterior a cambios que se emiten mientras
+     * corren; la recarga no debe pisarlos.
+     */
+    @Test
+    void rebuild_conCambiosDuranteLasConsultas_losConserva() {
+        // Arrange
+        when(bookRepository.findAllResponses()).thenAnswer(inv -> {
+            changeStream.publish(EntityChange.created(EntityType.BOOK, 3L,
+                    new BookResponse(3L, "Rayuela", 30L, "Julio Cortázar", true)));
+            changeStream.publish(EntityChange.updated(EntityType.BOOK, 1L,
+                    new BookResponse(1L, "El Aleph", 10L, "Jorge Luis Borges", true)));
+            return List.of(new BookResponse(1L, "Ficciones", 10L, "Jorge Luis Borges", true));
+        });
+        when(authorRepository.findAll()).thenAnswer(inv -> {
+            changeStream.publish(EntityChange.deleted(EntityType.AUTHOR, 20L,
+                    autorResponse(20L, "Adolfo Bioy Casares")));
+            return List.of(autor(10L, "Jorge Luis Borges"), autor(20L, "Adolfo Bioy Casares"));
+        });
+        when(userRepository.findAll()).thenAnswer(inv -> {
+            changeStream.publish(EntityChange.created(EntityType.USER, 7L,
+                    usuarioResponse(7L, "Bruno Díaz", "bruno@correo.com")));
+            return List.of(usuario(5L, "Ana Pérez", "ana@correo.com"));
+        });
+
+        // Act
+        service.rebuild();
+
+        // Assert
+        assertEquals(List.of(3L), ids(service.suggest("libros", "rayu", 10)), "El alta sobrevive a la recarga");
+        assertEquals(List.of(1L), ids(service.suggest("libros", "aleph", 10)), "La edición sobrevive a la recarga");
+        assertTrue(service.suggest("libros", "ficc", 10).isEmpty(), "El título viejo no vuelve");
+        assertTrue(service.suggest("autores", "bioy", 10).isEmpty(), "La baja no vuelve");
+        assertEquals(List.of(10L), ids(service.suggest("autores", "borg", 10)));
+        assertEquals(List.of(7L), ids(service.suggest("usuarios", "bruno", 10)));
+        assertEquals(List.of(5L), ids(service.suggest("usuarios", "ana", 10)));
+    }
+
+    private static Author autor(Long id, String nombre) {
+        Author author = new Author();
+        author.setId(id);
+        author.setNombre(nombre);
+        return author;
+    }
+
+    private static AuthorResponse autorResponse(Long id, String nombre) {
+        AuthorResponse author = new AuthorResponse();
+        author.setId(id);
+        author.setNombre(nombre);
+        return author;
+    }
+
+    private static User usuario(Long id, String nombre, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setNombre(nombre);
+        user.setEmail(email);
+        return user;
+    }
+
+    private static UserResponseData usuarioResponse(Long id, String nombre, String email) {
+        UserResponseData user = new UserResponseData();
+        user.setId(id);
+        user.setNombre(nombre);
+        user.setEmail(email);
+        return user;
+    }
+
+    private static List<Long> ids(List<SuggestionResponse> sugerencias) {
+        return sugerencias.stream().map(SuggestionResponse::getId).toList();
+    }
+}
@@ -2,12 +2,21 @@ package com.grupobb.biblioteca.service;
 
 import com.grupobb.biblioteca.domain.Author;
 import com.grupobb.biblioteca.domain.Book;
+import com.grupobb.biblioteca.dto.Book.BookAvailabilityItem;
+import com.grupobb.biblioteca.dto.Book.BookCountResponse;
 import com.grupobb.biblioteca.dto.Book.BookRequestData;
 import com.grupobb.biblioteca.dto.Book.BookResponse;
 import com.grupobb.biblioteca.repository.AuthorRepository;
 import com.grupobb.biblioteca.repository.BookRepository;
 import com.grupobb.biblioteca.repository.LoanRepository;
+import com.grupobb.biblioteca.service.analysis.AnalysisEngine;
+import com.grupobb.biblioteca.service.cache.BookCache;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
 import com.grupobb.biblioteca.service.impl.BookServiceImpl;
+import com.grupobb.biblioteca.service.search.AvailabilityIndex;
+import com.grupobb.biblioteca.service.search.BookSearchIndex;
 import com.grupobb.biblioteca.web.advice.BadRequestException;
 import com.grupobb.biblioteca.web.advice.NotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -34,6 +43,7 @@ import static org.mockito.Mockito.*;
  * 8. Actualizar autor cuando autorId viene (autor existe / no existe)
  * 9. Eliminar libro sin préstamos activos
  * 10. Eliminar libro con préstamos activos
+ * 11. Listar por disponibilidad con cambios emitidos durante ambas recargas
  *
  * Patrón: AAA (Arrange-Act-Assert)
  */
@@ -51,33 +61,22 @@ public class BookServiceTest {
         authorRepository = mock(AuthorRepository.class);
         loanRepository = mock(LoanRepository.class);
 
-        bookService = new BookServiceImpl(bookRepository, authorRepository, loanRepository);
+        bookService = new BookServiceImpl(bookRepository, authorRepository, loanRepository,
+                mock(EntityChangeStream.class), mock(BookSearchIndex.class), mock(AvailabilityIndex.class),
+                new BookCache(mock(EntityChangeStream.class), 100, 60), mock(AnalysisEngine.class));
     }
 
     /**
      * PRUEBA 1: Listar libros
-     * Objetivo: validar que mapea correctamente a BookResponse y retorna lista.
+     * Objetivo: validar que retorna la proyección BookResponse sin cargar entidades.
      */
     @Test
     void findAll_retornaListaDeLibros() {
         // Arrange
-        Author a1 = new Author();
-        a1.setId(10L);
-        a1.setNombre("Robert C. Martin");
+        BookResponse b1 = new BookResponse(1L, "Clean Code", 10L, "Robert C. Martin", true);
+        BookResponse b2 = new BookResponse(2L, "Refactoring", 10L, "Robert C. Martin", false);
 
-        Book b1 = new Book();
-        b1.setId(1L);
-        b1.setTitulo("Clean Code");
-        b1.setAutor(a1);
-        b1.setDisponible(true);
-
-        Book b2 = new Book();
-        b2.setId(2L);
-        b2.setTitulo("Refactoring");
-        b2.setAutor(a1);
-        b2.setDisponible(false);
-
-        when(bookRepository.findAll()).thenReturn(List.of(b1, b2));
+        when(bookRepository.findAllResponses()).thenReturn(List.of(b1, b2));
 
         // Act
         List<BookResponse> response = bookService.findAll();
@@ -96,7 +95,8 @@ public class BookServiceTest {
         assertEquals("Refactoring", response.get(1).getTitulo());
         assertFalse(response.get(1).isDisponible());
 
-        verify(bookRepository).findAll();
+        verify(bookRepository).findAllResponses();
+        verify(bookRepository, never()).findAll();
     }
 
     /**
@@ -117,8 +117,7 @@ public class BookServiceTest {
         book.setAutor(author);
         book.setDisponible(true);
 
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
-        when(bookRepository.findAll()).thenReturn(List.of(book)); // usado por el análisis reactivo
+        when(bookRepository.findWithAutorById(bookId)).thenReturn(Optional.of(book));
 
         // Act
         BookResponse response = bookService.findById(bookId);
@@ -131,7 +130,7 @@ public class BookServiceTest {
         assertEquals("Kent Beck", response.getAutorNombre());
         assertTrue(response.isDisponible());
 
-        verify(bookRepository).findById(bookId);
+        verify(bookRepository).findWithAutorById(bookId);
     }
 
     /**
@@ -141,14 +140,14 @@ public class BookServiceTest {
     void findById_idNoExistente_lanzaNotFoundException() {
         // Arrange
         Long bookId = 999L;
-        when(bookRepository.findById(bookId)).thenReturn(Optional.empty());
+        when(bookRepository.findWithAutorById(bookId)).thenReturn(Optional.empty());
 
         // Act & Assert
         NotFoundException ex = assertThrows(NotFoundException.class,
                 () -> bookService.findById(bookId));
 
         assertEquals("Libro no encontrado con id " + bookId, ex.getMessage());
-        verify(bookRepository).findById(bookId);
+        verify(bookRepository).findWithAutorById(bookId);
     }
 
     /**
@@ -176,7 +175,6 @@ public class BookServiceTest {
 
         when(authorRepository.findById(autorId)).thenReturn(Optional.of(author));
         when(bookRepository.save(any(Book.class))).thenReturn(saved);
-        when(bookRepository.findAll()).thenReturn(List.of(saved)); // usado por el análisis reactivo
 
         // Act
         BookResponse response = bookService.create(request);
@@ -238,9 +236,8 @@ public class BookServiceTest {
         request.setAutorId(null);
         request.setDisponible(null);
 
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+        when(bookRepository.findWithAutorById(bookId)).thenReturn(Optional.of(book));
         when(bookRepository.save(any(Book.class))).thenAnswer(inv -> inv.getArgument(0));
-        when(bookRepository.findAll()).thenReturn(List.of(book));
 
         // Act
         BookResponse response = bookService.update(bookId, request);
@@ -252,7 +249,7 @@ public class BookServiceTest {
         assertEquals(3L, response.getAutorId());
         assertTrue(response.isDisponible());
 
-        verify(bookRepository).findById(bookId);
+        verify(bookRepository).findWithAutorById(bookId);
         verify(bookRepository).save(any(Book.class));
         verify(authorRepository, never()).findById(any());
     }
@@ -268,7 +265,7 @@ public class BookServiceTest {
         BookRequestData request = new BookRequestData();
         request.setTitulo("X");
 
-        when(bookRepository.findById(bookId)).thenReturn(Optional.empty());
+        when(bookRepository.findWithAutorById(bookId)).thenReturn(Optional.empty());
 
         // Act & Assert
         NotFoundException ex = assertThrows(NotFoundException.class,
@@ -305,10 +302,9 @@ public class BookServiceTest {
         request.setTitulo("Libro");
         request.setAutorId(newAutorId);
 
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+        when(bookRepository.findWithAutorById(bookId)).thenReturn(Optional.of(book));
         when(authorRepository.findById(newAutorId)).thenReturn(Optional.of(newAuthor));
         when(bookRepository.save(any(Book.class))).thenAnswer(inv -> inv.getArgument(0));
-        when(bookRepository.findAll()).thenReturn(List.of(book));
 
         // Act
         BookResponse response = bookService.update(bookId, request);
@@ -345,7 +341,7 @@ public class BookServiceTest {
         request.setTitulo("Libro");
         request.setAutorId(newAutorId);
 
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+        when(bookRepository.findWithAutorById(bookId)).thenReturn(Optional.of(book));
         when(authorRepository.findById(newAutorId)).thenReturn(Optional.empty());
 
         // Act & Assert
@@ -367,7 +363,7 @@ public class BookServiceTest {
 //        Book book = new Book();
 //        book.setId(bookId);
 //
-//        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+//        when(bookRepository.findWithAutorById(bookId)).thenReturn(Optional.of(book));
 //        when(loanRepository.existsByLibroAndFechaDevolucionIsNull(book)).thenReturn(false);
 //        when(bookRepository.findAll()).thenReturn(List.of(book));
 //
@@ -381,4 +377,58 @@ public class BookServiceTest {
 //    /**
 //     * PRUEBA 10: Eliminar libro con préstamos activos
 //     */
+
+    /**
+     * PRUEBA 11: Listar por disponibilidad con cambios emitidos durante ambas recargas
+     * Objetivo: el listado cruza el bitmap con el índice de búsqueda; un alta confirmada
+     * mientras cualquiera de los dos se recarga debe aparecer en él.
+     */
+    @Test
+    void findByDisponible_conAltasDuranteLasRecargas_lasIncluye() {
+        // Arrange: índices reales sobre el mismo flujo de cambios
+        EntityChangeStream changeStream = new EntityChangeStream();
+        BookSearchIndex searchIndex = new BookSearchIndex(bookRepository, changeStream);
+        AvailabilityIndex availabilityIndex = new AvailabilityIndex(bookRepository, changeStream);
+        BookServiceImpl service = new BookServiceImpl(bookRepository, authorRepository, loanRepository,
+                changeStream, searchIndex, availabilityIndex,
+                new BookCache(changeStream, 100, 60), mock(AnalysisEngine.class));
+        searchIndex.start();
+        availabilityIndex.start();
+
+        // El libro 3 se da de alta mientras corre la consulta del índice de búsqueda
+        when(bookRepository.findAllResponses()).thenAnswer(inv -> {
+            changeStream.publish(EntityChange.created(EntityType.BOOK, 3L,
+                    new BookResponse(3L, "Rayuela", 30L, "Julio Cortázar", true)));
+            return List.of(new BookResponse(1L, "Clean Code", 10L, "Robert C. Martin", true),
+                    new BookResponse(2L, "Refactoring", 10L, "Robert C. Martin", false));
+        });
+        // ... y el 4 mientras corre la del bitmap, que ya incluye el 3
+        when(bookRepository.findAvailability()).thenAnswer(inv -> {
+            changeStream.publish(EntityChange.created(EntityType.BOOK, 4L,
+                    new BookResponse(4L, "Pedro Páramo", 40L, "Juan Rulfo", true)));
+            return List.of(new BookAvailabilityItem(1L, true),
+                    new BookAvailabilityItem(2L, false),
+                    new BookAvailabilityItem(3L, true));
+        });
+
+        try {
+            // Act
+            searchIndex.rebuild();
+            availabilityIndex.rebuild();
+            List<BookResponse> disponibles = service.findByDisponible(true);
+            List<BookResponse> prestados = service.findByDisponible(false);
+            BookCountResponse conteo = service.count();
+
+            // Assert
+            assertEquals(List.of(1L, 3L, 4L), disponibles.stream().map(BookResponse::getId).toList());
+            assertEquals("Rayuela", disponibles.get(1).getTitulo());
+            assertEquals("Pedro Páramo", disponibles.get(2).getTitulo());
+            assertEquals(List.of(2L), prestados.stream().map(BookResponse::getId).toList());
+            assertEquals(4, conteo.getTotal());
+            assertEquals(3, conteo.getDisponibles());
+        } finally {
+            searchIndex.stop();
+            availabilityIndex.stop();
+        }
+    }
 }
@@ -0,0 +1,278 @@
+package com.grupobb.biblioteca.service;
+
+import com.grupobb.biblioteca.domain.Author;
+import com.grupobb.biblioteca.domain.Book;
+import com.grupobb.biblioteca.domain.User;
+import com.grupobb.biblioteca.dto.Loan.LoanBatchItemResult;
+import com.grupobb.biblioteca.dto.Loan.LoanRequestData;
+import com.grupobb.biblioteca.repository.AuthorRepository;
+import com.grupobb.biblioteca.repository.BookRepository;
+import com.grupobb.biblioteca.repository.LoanRepository;
+import com.grupobb.biblioteca.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de integración (H2) de la cantidad de sentencias JDBC del préstamo en lote.
+ *
+ * El DataSource se envuelve para contar cada execute/executeUpdate/executeBatch
+ * enviado a la base de datos. Un lote de préstamos debe insertar todos los
+ * préstamos y marcar todos los libros con un solo envío por tabla, sin importar
+ * cuántos elementos tenga, y sin cargar los autores uno por uno.
+ *
+ * Cobertura:
+ * - Un único executeBatch para los INSERT de prestamos
+ * - Un único envío para los UPDATE de libros
+ * - Un único lote para el registro de cambios de la transacción
+ * - Ninguna carga perezosa de autores al prestar ni al devolver
+ * - Los préstamos devueltos tienen el id generado de su fila
+ */
+@SpringBootTest
+public class LoanBatchStatementCountTest {
+
+    private static final int LIBROS = 40;
+
+    @Autowired
+    private LoanService loanService;
+    @Autowired
+    private LoanRepository loanRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ContadorSentencias contador;
+
+    @AfterEach
+    void tearDown() {
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+        authorRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    /**
+     * PRUEBA 1: Préstamo en lote con un envío por tabla
+     *
+     * Objetivo: Verificar que crear N préstamos en lote no genera N INSERT ni
+     *          N consultas de autor.
+     *
+     * Resultado esperado:
+     * - Los N préstamos se crean y sus ids coinciden con las filas guardadas
+     * - prestamos recibe un solo envío de INSERT
+     * - libros recibe un solo envío de UPDATE
+     * - cambios recibe un solo envío de INSERT (préstamos y libros juntos)
+     * - No hay ninguna consulta a autores fuera de la consulta de libros
+     *
+     * Patrón: AAA (Arrange, Act, Assert)
+     */
+    @Test
+    void prestamoEnLote_unEnvioPorTabla() {
+        // ========== ARRANGE (Preparar) ==========
+        List<LoanRequestData> requests = crearLibros();
+        contador.reiniciar();
+
+        // ========== ACT (Actuar) ==========
+        List<LoanBatchItemResult> results = loanService.createLoans(requests);
+
+        // ========== ASSERT (Verificar) ==========
+        assertEquals(LIBROS, results.size());
+        assertTrue(results.stream().allMatch(LoanBatchItemResult::isExitoso));
+        assertEquals(1, contador.ejecuciones("insert into prestamos"),
+                "Los préstamos deben insertarse en un solo executeBatch");
+        assertEquals(1, contador.ejecuciones("update libros"),
+                "Los libros deben marcarse en un solo envío");
+        assertEquals(1, contador.ejecuciones("insert into cambios"),
+                "Los cambios de la transacción se registran en un solo lote al confirmar");
+        assertEquals(0, contador.ejecuciones("select", "from autores"),
+                "Los autores deben venir en la consulta de libros");
+
+        Set<Long> ids = results.stream()
+                .map(result -> result.getPrestamo().getId())
+                .collect(Collectors.toSet());
+        assertEquals(LIBROS, ids.size(), "Cada préstamo debe tener su propio id");
+        for (LoanBatchItemResult result : results) {
+            assertNotNull(result.getPrestamo().getId());
+            assertEquals(result.getLibroId(),
+                    loanRepository.findWithDetailsById(result.getPrestamo().getId()).orElseThrow().getLibro().getId(),
+                    "El id devuelto debe corresponder a la fila de su libro");
+        }
+    }
+
+    /**
+     * PRUEBA 2: Devolución en lote sin cargar autores uno por uno
+     *
+     * Objetivo: Verificar que devolver N préstamos en lote trae el autor de cada
+     *          libro en la consulta de préstamos.
+     *
+     * Resultado esperado:
+     * - Los N préstamos se devuelven
+     * - No hay ninguna consulta a autores fuera de la consulta de préstamos
+     *
+     * Patrón: AAA (Arrange, Act, Assert)
+     */
+    @Test
+    void devolucionEnLote_sinCargarAutores() {
+        // ========== ARRANGE (Preparar) ==========
+        List<Long> loanIds = loanService.createLoans(crearLibros()).stream()
+                .map(result -> result.getPrestamo().getId())
+                .toList();
+        contador.reiniciar();
+
+        // ========== ACT (Actuar) ==========
+        List<LoanBatchItemResult> results = loanService.returnLoans(loanIds);
+
+        // ========== ASSERT (Verificar) ==========
+        assertEquals(LIBROS, results.size());
+        assertTrue(results.stream().allMatch(LoanBatchItemResult::isExitoso));
+        assertTrue(results.stream().allMatch(result -> result.getPrestamo().getFechaDevolucion() != null));
+        assertEquals(0, contador.ejecuciones("select", "from autores"),
+                "Los autores deben venir en la consulta de préstamos");
+    }
+
+    // Un usuario y LIBROS libros disponibles, cada uno con su propio autor para
+    // que una carga N+1 se note por fila. Devuelve un pedido de préstamo por libro.
+    private List<LoanRequestData> crearLibros() {
+        User user = new User();
+        user.setNombre("Alan Herrera");
+        user.setEmail("alan.herrera@gmail.com");
+        user = userRepository.save(user);
+
+        List<LoanRequestData> requests = new ArrayList<>();
+        for (int i = 0; i < LIBROS; i++) {
+            Author author = new Author();
+            author.setNombre("Autor " + i);
+            author = authorRepository.save(author);
+
+            Book book = new Book();
+            book.setTitulo("Libro " + i);
+            book.setAutor(author);
+            book.setDisponible(true);
+            book = bookRepository.save(book);
+
+            LoanRequestData request = new LoanRequestData();
+            request.setUsuarioId(user.getId());
+            request.setLibroId(book.getId());
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private static String normalizar(String sql) {
+        return sql.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * DataSource que registra el SQL de cada ejecución enviada a la base de datos.
+     */
+    static class ContadorSentencias extends DelegatingDataSource {
+
+        private final List<String> ejecutadas = new CopyOnWriteArrayList<>();
+
+        ContadorSentencias(DataSource target) {
+            super(target);
+        }
+
+        void reiniciar() {
+            ejecutadas.clear();
+        }
+
+        long ejecuciones(String prefijo) {
+            return ejecutadas.stream().filter(sql -> sql.startsWith(prefijo)).count();
+        }
+
+        long ejecuciones(String prefijo, String contiene) {
+            return ejecutadas.stream()
+                    .filter(sql -> sql.startsWith(prefijo) && sql.contains(contiene))
+                    .count();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return envolver(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return envolver(super.getConnection(username, password));
+        }
+
+        private Connection envolver(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invocar(connection, method, args);
+                        if (method.getName().startsWith("prepare") && args != null && args[0] instanceof String sql) {
+                            return envolverSentencia(result, method.getReturnType(), normalizar(sql));
+                        }
+                        if (method.getName().equals("createStatement")) {
+                            return envolverSentencia(result, method.getReturnType(), null);
+                        }
+                        return result;
+                    });
+        }
+
+        private Object envolverSentencia(Object statement, Class<?> tipo, String sql) {
+            return Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {tipo},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("execute")) {
+                            String ejecutada = args != null && args.length > 0 && args[0] instanceof String texto
+                                    ? normalizar(texto) : sql;
+                            ejecutadas.add(ejecutada != null ? ejecutada : "");
+                        }
+                        return invocar(statement, method, args);
+                    });
+        }
+
+        private static Object invocar(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class ContadorConfig {
+
+        @Bean
+        static BeanPostProcessor contadorSentenciasPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof ContadorSentencias)) {
+                        return new ContadorSentencias(dataSource);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
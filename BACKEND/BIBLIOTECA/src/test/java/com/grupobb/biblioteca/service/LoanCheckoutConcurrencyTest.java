@@ -0,0 +1,146 @@
+package com.grupobb.biblioteca.service;
+
+import com.grupobb.biblioteca.domain.Author;
+import com.grupobb.biblioteca.domain.Book;
+import com.grupobb.biblioteca.domain.Loan;
+import com.grupobb.biblioteca.domain.User;
+import com.grupobb.biblioteca.dto.Loan.LoanRequestData;
+import com.grupobb.biblioteca.repository.AuthorRepository;
+import com.grupobb.biblioteca.repository.BookRepository;
+import com.grupobb.biblioteca.repository.LoanRepository;
+import com.grupobb.biblioteca.repository.UserRepository;
+import com.grupobb.biblioteca.web.advice.BookNotAvailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de integración (H2) del préstamo concurrente.
+ *
+ * Lanza cientos de préstamos simultáneos sobre unos pocos libros y verifica que
+ * cada libro tenga exactamente un préstamo activo (un solo ganador por libro),
+ * que el resto sea rechazado y que no quede ningún préstamo doble.
+ */
+@SpringBootTest
+public class LoanCheckoutConcurrencyTest {
+
+    private static final int LIBROS = 5;
+    private static final int USUARIOS = 50;
+    private static final int PRESTAMOS = 400;
+    private static final int HILOS = 16;
+
+    @Autowired
+    private LoanService loanService;
+    @Autowired
+    private LoanRepository loanRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Book> books = new ArrayList<>();
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Author author = new Author();
+        author.setNombre("Gabriel García Márquez");
+        author = authorRepository.save(author);
+
+        for (int i = 0; i < LIBROS; i++) {
+            Book book = new Book();
+            book.setTitulo("Libro concurrente " + i);
+            book.setAutor(author);
+            book.setDisponible(true);
+            books.add(bookRepository.save(book));
+        }
+
+        for (int i = 0; i < USUARIOS; i++) {
+            User user = new User();
+            user.setNombre("Lector " + i);
+            user.setEmail("lector" + i + "@biblioteca.test");
+            users.add(userRepository.save(user));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+        authorRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void prestamosConcurrentes_unSoloGanadorPorLibro() throws InterruptedException {
+        // ========== ARRANGE ==========
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch inicio = new CountDownLatch(1);
+        CountDownLatch fin = new CountDownLatch(PRESTAMOS);
+        AtomicInteger exitosos = new AtomicInteger();
+        AtomicInteger rechazados = new AtomicInteger();
+        AtomicInteger errores = new AtomicInteger();
+
+        for (int i = 0; i < PRESTAMOS; i++) {
+            LoanRequestData request = new LoanRequestData();
+            request.setLibroId(books.get(i % LIBROS).getId());
+            request.setUsuarioId(users.get(i % USUARIOS).getId());
+
+            pool.submit(() -> {
+                try {
+                    inicio.await();
+                    loanService.createLoan(request);
+                    exitosos.incrementAndGet();
+                } catch (BookNotAvailableException ex) {
+                    rechazados.incrementAndGet();
+                } catch (Exception ex) {
+                    errores.incrementAndGet();
+                } finally {
+                    fin.countDown();
+                }
+            });
+        }
+
+        // ========== ACT ==========
+        inicio.countDown();
+        assertTrue(fin.await(60, TimeUnit.SECONDS), "Los préstamos no terminaron");
+        pool.shutdown();
+
+        // ========== ASSERT ==========
+        Map<Long, Long> activosPorLibro = loanRepository.findAll().stream()
+                .filter(loan -> loan.getFechaDevolucion() == null)
+                .collect(Collectors.groupingBy(loan -> loan.getLibro().getId(), Collectors.counting()));
+        long prestamosDobles = activosPorLibro.values().stream()
+                .mapToLong(count -> count - 1)
+                .filter(extra -> extra > 0)
+                .sum();
+
+        assertEquals(0, prestamosDobles, "No debe existir más de un préstamo activo por libro");
+        assertEquals(LIBROS, exitosos.get(), "Cada libro debe tener exactamente un ganador");
+        assertEquals(LIBROS, activosPorLibro.size(), "Todos los libros deben quedar prestados");
+        assertEquals(PRESTAMOS - LIBROS, rechazados.get() + errores.get());
+        for (Book book : bookRepository.findAll()) {
+            assertFalse(book.isDisponible(), "El libro reclamado debe quedar no disponible");
+        }
+        List<Loan> prestamos = loanRepository.findAll();
+        assertEquals(LIBROS, prestamos.size());
+    }
+}
@@ -1,17 +1,28 @@
 package com.grupobb.biblioteca.service;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -19,11 +30,15 @@ import com.grupobb.biblioteca.domain.Author;
 import com.grupobb.biblioteca.domain.Book;
 import com.grupobb.biblioteca.domain.Loan;
 import com.grupobb.biblioteca.domain.User;
+import com.grupobb.biblioteca.dto.Loan.LoanBatchItemResult;
+import com.grupobb.biblioteca.dto.Loan.LoanPageResponse;
 import com.grupobb.biblioteca.dto.Loan.LoanRequestData;
 import com.grupobb.biblioteca.dto.Loan.LoanResponse;
 import com.grupobb.biblioteca.repository.BookRepository;
 import com.grupobb.biblioteca.repository.LoanRepository;
 import com.grupobb.biblioteca.repository.UserRepository;
+import com.grupobb.biblioteca.service.analysis.AnalysisEngine;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
 import com.grupobb.biblioteca.service.impl.LoanServiceImpl;
 import com.grupobb.biblioteca.web.advice.AlreadyReturnedException;
 import com.grupobb.biblioteca.web.advice.BookNotAvailableException;
@@ -39,6 +54,9 @@ import com.grupobb.biblioteca.web.advice.NotFoundException;
  * 4. Crear préstamo cuando el libro no está disponible
  * 5. Devolver libro de préstamo activo
  * 6. Devolver libro que ya fue devuelto
+ * 7. Crear préstamos en lote con resultados por elemento
+ * 8. Devolver préstamos en lote con UPDATE por conjunto
+ * 9. Listar préstamos por cursor (keyset)
  * 
  * Patrón de pruebas: AAA (Arrange-Act-Assert)
  * Framework de mocking: Mockito
@@ -49,6 +67,7 @@ public class LoanServiceTest {
     private LoanRepository loanRepository;
     private UserRepository userRepository;
     private BookRepository bookRepository;
+    private EntityChangeStream changeStream;
     
     // Servicio bajo prueba (SUT - System Under Test)
     private LoanService loanService;
@@ -63,9 +82,11 @@ public class LoanServiceTest {
         loanRepository = mock(LoanRepository.class);
         userRepository = mock(UserRepository.class);
         bookRepository = mock(BookRepository.class);
+        changeStream = mock(EntityChangeStream.class);
         
         // Crear instancia real del servicio con dependencias mockeadas
-        loanService = new LoanServiceImpl(loanRepository, userRepository, bookRepository);
+        loanService = new LoanServiceImpl(loanRepository, userRepository, bookRepository, changeStream,
+                mock(AnalysisEngine.class));
     }
 
     /**
@@ -111,13 +132,13 @@ public class LoanServiceTest {
 
         // Configuramos el comportamiento de los mocks
         when(userRepository.findById(usuarioId)).thenReturn(Optional.of(user));
-        when(bookRepository.findById(libroId)).thenReturn(Optional.of(book));
+        when(bookRepository.findWithAutorById(libroId)).thenReturn(Optional.of(book));
         when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> {
             Loan loan = invocation.getArgument(0);
             loan.setId(1L); // Simulamos que la BD asigna un ID
             return loan;
         });
-        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookRepository.claimIfAvailable(libroId)).thenReturn(1); // El libro se reclama con éxito
 
         // ========== ACT (Actuar) ==========
         // Ejecutamos el método bajo prueba
@@ -136,7 +157,10 @@ public class LoanServiceTest {
         
         // Verificamos que se llamaron los métodos esperados
         verify(loanRepository).save(any(Loan.class));
-        verify(bookRepository).save(any(Book.class));
+        verify(bookRepository).claimIfAvailable(libroId);
+        // Se publican solo los dos cambios (préstamo y libro), sin releer la tabla de préstamos
+        verify(changeStream, times(2)).publish(any());
+        verify(loanRepository, never()).findAll();
     }
 
     /**
@@ -176,7 +200,7 @@ public class LoanServiceTest {
 
         // Configuramos los mocks: usuario NO existe, libro SÍ existe
         when(userRepository.findById(usuarioId)).thenReturn(Optional.empty());
-        when(bookRepository.findById(libroId)).thenReturn(Optional.of(book));
+        when(bookRepository.findWithAutorById(libroId)).thenReturn(Optional.of(book));
 
         // ========== ACT & ASSERT (Actuar y Verificar) ==========
         // Verificamos que se lance la excepción esperada
@@ -223,7 +247,7 @@ public class LoanServiceTest {
 
         // Configuramos los mocks: usuario SÍ existe, libro NO existe
         when(userRepository.findById(usuarioId)).thenReturn(Optional.of(user));
-        when(bookRepository.findById(libroId)).thenReturn(Optional.empty());
+        when(bookRepository.findWithAutorById(libroId)).thenReturn(Optional.empty());
 
         // ========== ACT & ASSERT (Actuar y Verificar) ==========
         // Verificamos que se lance la excepción esperada
@@ -281,8 +305,11 @@ public class LoanServiceTest {
         request.setLibroId(libroId);
 
         // Configuramos los mocks: ambos existen pero libro NO disponible
+        // (la actualización condicional no reclama ninguna fila)
         when(userRepository.findById(usuarioId)).thenReturn(Optional.of(user));
-        when(bookRepository.findById(libroId)).thenReturn(Optional.of(book));
+        when(bookRepository.findWithAutorById(libroId)).thenReturn(Optional.of(book));
+        when(bookRepository.existsById(libroId)).thenReturn(true);
+        when(bookRepository.claimIfAvailable(libroId)).thenReturn(0);
 
         // ========== ACT & ASSERT (Actuar y Verificar) ==========
         // Verificamos que se lance la excepción de negocio
@@ -344,7 +371,7 @@ public class LoanServiceTest {
         loan.setFechaDevolucion(null); // NULL = préstamo activo
 
         // Configuramos los mocks
-        when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
+        when(loanRepository.findWithDetailsById(loanId)).thenReturn(Optional.of(loan));
         when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
         when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -416,7 +443,7 @@ public class LoanServiceTest {
         loan.setFechaDevolucion(LocalDate.now().minusDays(5)); // DEVUELTO hace 5 días
 
         // Configuramos el mock
-        when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
+        when(loanRepository.findWithDetailsById(loanId)).thenReturn(Optional.of(loan));
 
         // ========== ACT & ASSERT (Actuar y Verificar) ==========
         // Verificamos que se lance la excepción de negocio
@@ -432,4 +459,196 @@ public class LoanServiceTest {
         verify(loanRepository, never()).save(any());
         verify(bookRepository, never()).save(any());
     }
+
+    /**
+     * PRUEBA 7: Crear préstamos en lote
+     *
+     * Objetivo: Verificar que el lote resuelve usuarios y libros en bloque,
+     *          crea los préstamos válidos y reporta el error de cada elemento
+     *          inválido sin abortar el resto.
+     *
+     * Resultado esperado:
+     * - El primer préstamo del libro disponible se crea
+     * - El mismo libro repetido, un libro no disponible, un usuario inexistente
+     *   y un libro inexistente se informan como fallidos
+     * - Todos los préstamos válidos se guardan en una sola llamada a insertAll
+     */
+    @Test
+    void crearPrestamosEnLote_resultadosPorElemento() {
+        // ========== ARRANGE (Preparar) ==========
+        User user = new User();
+        user.setId(1L);
+        user.setNombre("Alan Herrera");
+        user.setEmail("alan.herrera@gmail.com");
+
+        Author author = new Author();
+        author.setId(1L);
+        author.setNombre("Martin Fowler");
+
+        Book disponible = new Book();
+        disponible.setId(10L);
+        disponible.setTitulo("Refactoring");
+        disponible.setAutor(author);
+        disponible.setDisponible(true);
+
+        Book prestado = new Book();
+        prestado.setId(11L);
+        prestado.setTitulo("Patterns of Enterprise Application Architecture");
+        prestado.setAutor(author);
+        prestado.setDisponible(false);
+
+        List<LoanRequestData> requests = List.of(
+                loanRequest(1L, 10L),   // válido
+                loanRequest(1L, 10L),   // mismo libro repetido en el lote
+                loanRequest(1L, 11L),   // libro no disponible
+                loanRequest(99L, 10L),  // usuario inexistente
+                loanRequest(1L, 999L)   // libro inexistente
+        );
+
+        when(userRepository.findAllById(anyCollection())).thenReturn(List.of(user));
+        when(bookRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(disponible, prestado));
+        doAnswer(invocation -> {
+            List<Loan> loans = invocation.getArgument(0);
+            long id = 100L;
+            for (Loan loan : loans) {
+                loan.setId(id++);
+            }
+            return null;
+        }).when(loanRepository).insertAll(anyList());
+
+        // ========== ACT (Actuar) ==========
+        List<LoanBatchItemResult> results = loanService.createLoans(requests);
+
+        // ========== ASSERT (Verificar) ==========
+        assertEquals(5, results.size(), "Debe haber un resultado por elemento");
+
+        assertTrue(results.get(0).isExitoso());
+        assertEquals(100L, results.get(0).getPrestamo().getId());
+        assertEquals("Refactoring", results.get(0).getPrestamo().getLibroTitulo());
+
+        assertFalse(results.get(1).isExitoso());
+        assertEquals("El libro no está disponible", results.get(1).getError());
+        assertFalse(results.get(2).isExitoso());
+        assertEquals("El libro no está disponible", results.get(2).getError());
+        assertFalse(results.get(3).isExitoso());
+        assertEquals("Usuario no encontrado", results.get(3).getError());
+        assertFalse(results.get(4).isExitoso());
+        assertEquals("Libro no encontrado", results.get(4).getError());
+
+        // El libro prestado queda marcado como no disponible
+        assertFalse(disponible.isDisponible());
+        verify(loanRepository).insertAll(anyList());
+        verify(loanRepository, never()).saveAll(anyCollection());
+        verify(loanRepository, never()).save(any());
+    }
+
+    /**
+     * PRUEBA 8: Devolver préstamos en lote
+     *
+     * Objetivo: Verificar que la devolución en lote cierra los préstamos activos
+     *          con UPDATE por conjunto y reporta los ya devueltos o inexistentes
+     *          sin abortar el lote.
+     *
+     * Resultado esperado:
+     * - El préstamo activo se devuelve con fecha de hoy
+     * - El préstamo ya devuelto se informa con el mensaje de AlreadyReturnedException
+     * - El préstamo inexistente se informa como no encontrado
+     * - No se guarda ninguna entidad individualmente
+     */
+    @Test
+    void devolverPrestamosEnLote_actualizaPorConjunto() {
+        // ========== ARRANGE (Preparar) ==========
+        User user = new User();
+        user.setId(1L);
+        user.setNombre("Alan Herrera");
+
+        Book book = new Book();
+        book.setId(10L);
+        book.setTitulo("Test Driven Development");
+        book.setDisponible(false);
+
+        Book devuelto = new Book();
+        devuelto.setId(11L);
+        devuelto.setTitulo("Clean Architecture");
+        devuelto.setDisponible(true);
+
+        Loan activo = new Loan();
+        activo.setId(1L);
+        activo.setUsuario(user);
+        activo.setLibro(book);
+        activo.setFechaPrestamo(LocalDate.now().minusDays(3));
+
+        Loan cerrado = new Loan();
+        cerrado.setId(2L);
+        cerrado.setUsuario(user);
+        cerrado.setLibro(devuelto);
+        cerrado.setFechaPrestamo(LocalDate.now().minusDays(10));
+        cerrado.setFechaDevolucion(LocalDate.now().minusDays(5));
+
+        when(loanRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(activo, cerrado));
+
+        // ========== ACT (Actuar) ==========
+        List<LoanBatchItemResult> results = loanService.returnLoans(List.of(1L, 2L, 999L));
+
+        // ========== ASSERT (Verificar) ==========
+        assertEquals(3, results.size());
+
+        assertTrue(results.get(0).isExitoso());
+        assertEquals(LocalDate.now(), results.get(0).getPrestamo().getFechaDevolucion());
+
+        assertFalse(results.get(1).isExitoso());
+        assertEquals("El libro ya fue devuelto", results.get(1).getError());
+
+        assertFalse(results.get(2).isExitoso());
+        assertEquals("Préstamo no encontrado", results.get(2).getError());
+
+        verify(loanRepository).markReturned(eq(Set.of(1L)), eq(LocalDate.now()));
+        verify(bookRepository).markAvailable(eq(Set.of(10L)));
+        verify(loanRepository, never()).save(any());
+        verify(bookRepository, never()).save(any());
+    }
+
+    /**
+     * PRUEBA 9: Listar préstamos por cursor
+     *
+     * Objetivo: Verificar que el listado pide una fila extra para detectar la
+     *          siguiente página y devuelve el cursor correcto.
+     *
+     * Resultado esperado:
+     * - La página contiene exactamente `limit` préstamos
+     * - nextCursor es el id del último préstamo de la página
+     * - Sin más filas, nextCursor es nulo
+     */
+    @Test
+    void listarPrestamos_porCursor_retornaSiguienteCursor() {
+        // ========== ARRANGE (Preparar) ==========
+        // El repositorio ya devuelve la proyección LoanResponse
+        List<LoanResponse> filas = new java.util.ArrayList<>();
+        for (long id = 11; id <= 13; id++) {
+            filas.add(new LoanResponse(id, 1L, 10L, "Alan Herrera", "Refactoring", LocalDate.now(), null));
+        }
+
+        when(loanRepository.findPage(eq(10L), eq(true), isNull(), isNull(), eq(Limit.of(3))))
+                .thenReturn(filas);
+        when(loanRepository.findPage(eq(12L), eq(true), isNull(), isNull(), eq(Limit.of(3))))
+                .thenReturn(filas.subList(2, 3));
+
+        // ========== ACT (Actuar) ==========
+        LoanPageResponse primera = loanService.list(10L, 2, true, null, null);
+        LoanPageResponse ultima = loanService.list(primera.getNextCursor(), 2, true, null, null);
+
+        // ========== ASSERT (Verificar) ==========
+        assertEquals(2, primera.getItems().size());
+        assertEquals(12L, primera.getNextCursor());
+        assertEquals(1, ultima.getItems().size());
+        assertEquals(13L, ultima.getItems().get(0).getId());
+        assertNull(ultima.getNextCursor(), "La última página no tiene cursor siguiente");
+    }
+
+    private LoanRequestData loanRequest(Long usuarioId, Long libroId) {
+        LoanRequestData request = new LoanRequestData();
+        request.setUsuarioId(usuarioId);
+        request.setLibroId(libroId);
+        return request;
+    }
 }
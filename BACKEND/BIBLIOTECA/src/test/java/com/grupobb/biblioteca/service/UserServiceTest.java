@@ -5,6 +5,7 @@ import com.grupobb.biblioteca.dto.User.UserRequestData;
 import com.grupobb.biblioteca.dto.User.UserResponseData;
 import com.grupobb.biblioteca.repository.LoanRepository;
 import com.grupobb.biblioteca.repository.UserRepository;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
 import com.grupobb.biblioteca.service.impl.UserServiceImpl;
 import com.grupobb.biblioteca.web.advice.BadRequestException;
 import com.grupobb.biblioteca.web.advice.ConflictException;
@@ -47,6 +48,9 @@ public class UserServiceTest {
     @Mock
     private LoanRepository loanRepository;
 
+    @Mock
+    private EntityChangeStream changeStream;
+
     // @InjectMocks inserta los mocks de arriba dentro de la implementación del servicio
     @InjectMocks
     private UserServiceImpl userService;
@@ -0,0 +1,201 @@
+package com.grupobb.biblioteca.service.analysis;
+
+import com.grupobb.biblioteca.dto.Analysis.AnalysisStatsResponse;
+import com.grupobb.biblioteca.dto.Book.BookResponse;
+import com.grupobb.biblioteca.service.event.EntityType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas unitarias del motor de análisis en segundo plano.
+ *
+ * Cobertura:
+ * 1. Los pedidos que llegan mientras hay uno esperando se coalescen
+ * 2. Con la cola llena se rechaza el pedido
+ * 3. Un pedido nuevo cancela la ejecución en curso de la misma colección
+ * 4. Con la cola vacía la ejecución termina y libera su lugar
+ * 5. 100.000 libros se analizan completos por lotes, sin lotes vencidos
+ * 6. Un lote que vence su límite se descarta sin cortar la ejecución
+ * 7. La cola y los contadores se publican en Micrometer
+ *
+ * Patrón: AAA (Arrange-Act-Assert)
+ */
+public class AnalysisEngineTest {
+
+    private AnalysisEngine engine;
+
+    @AfterEach
+    void tearDown() {
+        if (engine != null) {
+            engine.stop();
+        }
+    }
+
+    /**
+     * PRUEBA 1: Varios pedidos de una colección en espera quedan en una sola ejecución
+     */
+    @Test
+    void pedidosMientrasEspera_seCoalescen() {
+        // Arrange: un solo lugar de ejecución ocupado por libros
+        engine = new AnalysisEngine(Schedulers.parallel(), 1, 4, 2, 1000, 5000, 1, 32, 50);
+        engine.submit(EntityType.BOOK, libros(20));
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            engine.submit(EntityType.AUTHOR, List.of());
+        }
+
+        // Assert
+        AnalysisStatsResponse stats = engine.stats();
+        assertEquals(1, stats.getRunning());
+        assertEquals(1, stats.getQueueDepth(), "Una sola ejecución pendiente por colección");
+        assertEquals(4, stats.getCoalesced());
+        assertEquals(0, stats.getRejected());
+    }
+
+    /**
+     * PRUEBA 2: Con la cola llena se rechaza el pedido
+     */
+    @Test
+    void colaLlena_rechazaPedido() {
+        // Arrange
+        engine = new AnalysisEngine(Schedulers.parallel(), 1, 1, 2, 1000, 5000, 1, 32, 50);
+        engine.submit(EntityType.BOOK, libros(20));
+        engine.submit(EntityType.AUTHOR, List.of());
+
+        // Act
+        engine.submit(EntityType.LOAN, List.of());
+
+        // Assert
+        AnalysisStatsResponse stats = engine.stats();
+        assertEquals(1, stats.getQueueDepth());
+        assertEquals(1, stats.getRejected());
+        assertEquals(0, stats.getCancelled(), "Un pedido rechazado no cancela nada");
+    }
+
+    /**
+     * PRUEBA 3: Un pedido nuevo cancela la ejecución en curso de la misma colección
+     */
+    @Test
+    void pedidoNuevo_cancelaEjecucionSuperada() {
+        // Arrange
+        engine = new AnalysisEngine(Schedulers.parallel(), 2, 4, 2, 1000, 5000, 1, 32, 50);
+        engine.submit(EntityType.BOOK, libros(20));
+
+        // Act
+        engine.submit(EntityType.BOOK, libros(20));
+
+        // Assert
+        AnalysisStatsResponse stats = engine.stats();
+        assertEquals(1, stats.getCancelled());
+        assertEquals(1, stats.getRunning(), "Solo sigue la ejecución con los datos nuevos");
+        assertEquals(0, stats.getQueueDepth());
+    }
+
+    /**
+     * PRUEBA 4: La ejecución termina, cuenta los elementos y libera su lugar
+     */
+    @Test
+    void ejecucionTermina_liberaLugar() throws Exception {
+        // Arrange
+        engine = new AnalysisEngine(Schedulers.parallel(), 1, 4, 2, 0, 2000, 1, 32, 50);
+
+        // Act
+        engine.submit(EntityType.BOOK, libros(5));
+        engine.submit(EntityType.AUTHOR, List.of());
+
+        // Assert
+        esperar(stats -> stats.getCompleted() == 2);
+        AnalysisStatsResponse stats = engine.stats();
+        assertEquals(0, stats.getRunning());
+        assertEquals(0, stats.getQueueDepth());
+        assertEquals(5, stats.getProcessed());
+    }
+
+    /**
+     * PRUEBA 5: 100.000 libros se analizan completos, lote por lote
+     */
+    @Test
+    void cienMilLibros_seAnalizanTodosPorLotes() throws Exception {
+        // Arrange: 200 lotes de 500 con 10 ms simulados cada uno
+        engine = new AnalysisEngine(Schedulers.parallel(), 1, 4, 500, 10, 2000, 1, 32, 50);
+        List<BookResponse> libros = libros(100_000);
+
+        // Act
+        engine.submit(EntityType.BOOK, libros);
+        esperar(stats -> stats.getCompleted() == 1);
+
+        // Assert: ningún lote se pierde ni vence su límite
+        AnalysisStatsResponse stats = engine.stats();
+        assertEquals(100_000, stats.getProcessed());
+        assertEquals(0, stats.getTimedOutChunks());
+        assertEquals(0, stats.getErrors());
+        assertEquals(0, stats.getRunning());
+        assertTrue(stats.getThroughputPerSecond() > 0, "Se reporta el throughput de la ejecución");
+    }
+
+    /**
+     * PRUEBA 6: Un lote que vence su límite se descarta y la ejecución igual termina
+     */
+    @Test
+    void loteLento_seDescartaSinCortarLaEjecucion() throws Exception {
+        // Arrange: cada lote tarda más que su límite
+        engine = new AnalysisEngine(Schedulers.parallel(), 1, 4, 5, 200, 50, 1, 32, 50);
+
+        // Act
+        engine.submit(EntityType.BOOK, libros(10));
+
+        // Assert
+        esperar(stats -> stats.getCompleted() == 1);
+        AnalysisStatsResponse stats = engine.stats();
+        assertEquals(2, stats.getTimedOutChunks());
+        assertEquals(0, stats.getProcessed());
+    }
+
+    /**
+     * PRUEBA 7: La cola y los contadores se publican en Micrometer
+     */
+    @Test
+    void metricas_sePublicanEnElRegistro() throws Exception {
+        // Arrange
+        engine = new AnalysisEngine(Schedulers.parallel(), 1, 4, 5, 0, 2000, 1, 32, 50);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        engine.bindTo(registry);
+
+        // Act
+        engine.submit(EntityType.BOOK, libros(10));
+        esperar(stats -> stats.getCompleted() == 1);
+
+        // Assert
+        assertEquals(10, registry.get("biblioteca.analysis.elements").tag("result", "processed")
+                .functionCounter().count());
+        assertEquals(1, registry.get("biblioteca.analysis.runs").tag("result", "completed")
+                .functionCounter().count());
+        assertEquals(0, registry.get("biblioteca.analysis.queue.depth").gauge().value());
+    }
+
+    private void esperar(Predicate<AnalysisStatsResponse> condicion) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!condicion.test(engine.stats())) {
+            assertTrue(System.currentTimeMillis() < limite, "La ejecución no terminó a tiempo");
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<BookResponse> libros(int cantidad) {
+        List<BookResponse> libros = new ArrayList<>();
+        for (long i = 1; i <= cantidad; i++) {
+            libros.add(new BookResponse(i, "Libro " + i, 1L, "Autor", true));
+        }
+        return libros;
+    }
+}
@@ -0,0 +1,146 @@
+package com.grupobb.biblioteca.service.cache;
+
+import com.grupobb.biblioteca.dto.Author.AuthorResponse;
+import com.grupobb.biblioteca.dto.Book.BookCacheStatsResponse;
+import com.grupobb.biblioteca.dto.Book.BookResponse;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
+import com.grupobb.biblioteca.web.advice.NotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Pruebas unitarias de la caché de libros por id.
+ *
+ * Cobertura:
+ * 1. Aciertos y fallos (la segunda lectura no llama al loader)
+ * 2. Un préstamo o una edición invalida solo ese libro
+ * 3. Renombrar un autor invalida sus libros
+ * 4. Una carga que se cruza con una invalidación no queda en la caché
+ * 5. Los "no encontrado" no se guardan
+ *
+ * Patrón: AAA (Arrange-Act-Assert)
+ */
+public class BookCacheTest {
+
+    private EntityChangeStream changeStream;
+    private BookCache cache;
+    private AtomicInteger cargas;
+
+    @BeforeEach
+    void setUp() {
+        // Flujo real: fuera de una transacción publica de inmediato
+        changeStream = new EntityChangeStream();
+        cache = new BookCache(changeStream, 100, 60);
+        cache.start();
+        cargas = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.stop();
+    }
+
+    /**
+     * PRUEBA 1: Aciertos y fallos
+     */
+    @Test
+    void get_segundaLectura_esAcierto() {
+        // Act
+        cache.get(1L, this::cargar);
+        cache.get(1L, this::cargar);
+        BookResponse libro = cache.get(1L, this::cargar);
+
+        // Assert
+        BookCacheStatsResponse stats = cache.stats();
+        assertEquals(1, cargas.get());
+        assertEquals("Libro 1", libro.getTitulo());
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getSize());
+    }
+
+    /**
+     * PRUEBA 2: Un cambio de libro invalida solo ese id
+     */
+    @Test
+    void cambioDeLibro_invalidaSoloEseId() {
+        // Arrange
+        cache.get(1L, this::cargar);
+        cache.get(2L, this::cargar);
+        BookResponse prestado = new BookResponse(1L, "Libro 1", 10L, "Autor", false);
+
+        // Act: un préstamo publica el libro con disponible = false
+        changeStream.publish(EntityChange.updated(EntityType.BOOK, 1L, prestado));
+        cache.get(1L, this::cargar);
+        cache.get(2L, this::cargar);
+
+        // Assert
+        assertEquals(3, cargas.get(), "Solo el libro 1 se vuelve a cargar");
+        assertEquals(1, cache.stats().getInvalidations());
+    }
+
+    /**
+     * PRUEBA 3: Renombrar un autor invalida sus libros
+     */
+    @Test
+    void autorRenombrado_invalidaSusLibros() {
+        // Arrange
+        cache.get(1L, this::cargar);            // autor 10
+        cache.get(2L, id -> new BookResponse(id, "Otro", 20L, "Otro autor", true));
+        AuthorResponse autor = new AuthorResponse();
+        autor.setId(10L);
+        autor.setNombre("Autor renombrado");
+
+        // Act
+        changeStream.publish(EntityChange.updated(EntityType.AUTHOR, 10L, autor));
+
+        // Assert
+        assertEquals(1, cache.stats().getSize());
+        assertEquals(1, cache.stats().getInvalidations());
+    }
+
+    /**
+     * PRUEBA 4: Una carga que se cruza con una invalidación no queda en la caché
+     */
+    @Test
+    void cargaCruzadaConInvalidacion_noGuardaValorViejo() {
+        // Act: la invalidación llega mientras el loader todavía tiene el valor anterior
+        BookResponse viejo = cache.get(1L, id -> {
+            BookResponse leido = cargar(id);
+            cache.invalidate(id);
+            return leido;
+        });
+        cache.get(1L, this::cargar);
+
+        // Assert
+        assertEquals("Libro 1", viejo.getTitulo());
+        assertEquals(2, cargas.get(), "El valor cargado antes de invalidar no se reutiliza");
+    }
+
+    /**
+     * PRUEBA 5: Los "no encontrado" no se guardan
+     */
+    @Test
+    void loaderLanzaExcepcion_noGuardaNada() {
+        // Act & Assert
+        assertThrows(NotFoundException.class, () -> cache.get(9L, id -> {
+            throw new NotFoundException("Libro no encontrado con id " + id);
+        }));
+        assertEquals(0, cache.stats().getSize());
+        assertFalse(cache.stats().getMisses() == 0);
+    }
+
+    private BookResponse cargar(Long id) {
+        cargas.incrementAndGet();
+        return new BookResponse(id, "Libro " + id, 10L, "Autor", true);
+    }
+}
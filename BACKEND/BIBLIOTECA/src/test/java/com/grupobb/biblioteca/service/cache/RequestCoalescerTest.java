@@ -0,0 +1,158 @@
+package com.grupobb.biblioteca.service.cache;
+
+import com.grupobb.biblioteca.dto.Book.BookResponse;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
+import com.grupobb.biblioteca.web.advice.NotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas unitarias del single-flight de lecturas.
+ *
+ * Cobertura:
+ * 1. Una ráfaga de peticiones idénticas ejecuta una sola consulta
+ * 2. La excepción de la consulta llega a todas las peticiones unidas
+ * 3. Después de una escritura no se reutiliza una consulta anterior
+ *
+ * Patrón: AAA (Arrange-Act-Assert)
+ */
+public class RequestCoalescerTest {
+
+    private static final int CLIENTES = 20;
+
+    private EntityChangeStream changeStream;
+    private CollectionVersions versions;
+    private RequestCoalescer coalescer;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        changeStream = new EntityChangeStream();
+        versions = new CollectionVersions(changeStream);
+        versions.start();
+        coalescer = new RequestCoalescer(versions);
+        executor = Executors.newFixedThreadPool(CLIENTES);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        versions.stop();
+    }
+
+    /**
+     * PRUEBA 1: Una ráfaga de peticiones idénticas ejecuta una sola consulta
+     */
+    @Test
+    void rafagaDePeticionesIdenticas_unaSolaConsulta() throws Exception {
+        // Arrange: la "consulta" queda bloqueada hasta que todos los clientes llegaron
+        AtomicInteger consultas = new AtomicInteger();
+        CountDownLatch liberar = new CountDownLatch(1);
+        Object resultado = new Object();
+
+        // Act
+        List<Future<Object>> respuestas = new ArrayList<>();
+        for (int i = 0; i < CLIENTES; i++) {
+            respuestas.add(executor.submit(() -> coalescer.execute(List.of("libros"), () -> {
+                consultas.incrementAndGet();
+                esperar(liberar);
+                return resultado;
+            }, EntityType.BOOK)));
+        }
+        esperarUnidos(CLIENTES - 1);
+        liberar.countDown();
+
+        // Assert
+        for (Future<Object> respuesta : respuestas) {
+            assertSame(resultado, respuesta.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, consultas.get(), "N peticiones simultáneas -> 1 consulta");
+        assertEquals(CLIENTES - 1, coalescer.getCompartidas());
+    }
+
+    /**
+     * PRUEBA 2: La excepción llega a todas las peticiones unidas
+     */
+    @Test
+    void consultaFalla_todasRecibenLaMismaExcepcion() throws Exception {
+        // Arrange
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<Future<Object>> respuestas = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            respuestas.add(executor.submit(() -> coalescer.execute(List.of("libro", 99L), () -> {
+                esperar(liberar);
+                throw new NotFoundException("Libro no encontrado con id 99");
+            }, EntityType.BOOK)));
+        }
+        esperarUnidos(2);
+        liberar.countDown();
+
+        // Assert
+        for (Future<Object> respuesta : respuestas) {
+            Exception ex = assertThrows(Exception.class, () -> respuesta.get(5, TimeUnit.SECONDS));
+            assertTrue(ex.getCause() instanceof NotFoundException, "Se conserva el tipo (404)");
+        }
+    }
+
+    /**
+     * PRUEBA 3: Después de una escritura no se reutiliza una consulta anterior
+     */
+    @Test
+    void escrituraDuranteLaConsulta_noSeUneALaAnterior() throws Exception {
+        // Arrange: una consulta en curso con la versión anterior
+        CountDownLatch liberar = new CountDownLatch(1);
+        Future<Object> anterior = executor.submit(() -> coalescer.execute(List.of("libro", 1L), () -> {
+            esperar(liberar);
+            return "antes";
+        }, EntityType.BOOK));
+        while (coalescer.getEjecutadas() == 0) {
+            Thread.onSpinWait();
+        }
+
+        // Act: se confirma una escritura y llega otra petición
+        changeStream.publish(EntityChange.updated(EntityType.BOOK, 1L,
+                new BookResponse(1L, "Nuevo", 1L, "Autor", true)));
+        Object posterior = coalescer.execute(List.of("libro", 1L), () -> "despues", EntityType.BOOK);
+        liberar.countDown();
+
+        // Assert
+        assertEquals("despues", posterior);
+        assertEquals("antes", anterior.get(5, TimeUnit.SECONDS));
+        assertEquals(0, coalescer.getCompartidas());
+    }
+
+    // Espera a que `cantidad` peticiones se hayan unido a la consulta en curso
+    private void esperarUnidos(int cantidad) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalescer.getCompartidas() < cantidad && System.nanoTime() < limite) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.grupobb.biblioteca.service.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grupobb.biblioteca.domain.ChangeLogEntry;
+import com.grupobb.biblioteca.dto.Author.AuthorResponse;
+import com.grupobb.biblioteca.repository.ChangeLogRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias del horizonte de lectura del registro de cambios.
+ *
+ * Cobertura:
+ * 1. Sin transacciones pendientes el horizonte es la última versión + 1
+ * 2. Una versión sin confirmar frena el horizonte hasta que su transacción termina
+ * 3. Un INSERT en curso no retiene el lock y su reserva frena el horizonte
+ *
+ * Patrón: AAA (Arrange-Act-Assert)
+ */
+public class ChangeLogTest {
+
+    private ChangeLogRepository repository;
+    private ChangeLog changeLog;
+    private final AtomicLong ids = new AtomicLong(10);
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ChangeLogRepository.class);
+        when(repository.maxVersion()).thenReturn(10L);
+        when(repository.insertAll(anyList())).thenAnswer(inv -> asignar(inv.getArgument(0)));
+        changeLog = new ChangeLog(repository, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * PRUEBA 1: Sin transacciones pendientes
+     */
+    @Test
+    void horizon_sinPendientes_esUltimaVersionMasUno() {
+        // Act
+        long inicial = changeLog.horizon();
+        long version = changeLog.record(EntityChange.created(EntityType.AUTHOR, 1L, autor(1L)));
+
+        // Assert
+        assertEquals(11, inicial, "Tras un reinicio lo que está en la tabla ya está confirmado");
+        assertEquals(11, version);
+        assertEquals(12, changeLog.horizon());
+    }
+
+    /**
+     * PRUEBA 2: Una versión sin confirmar frena el horizonte
+     */
+    @Test
+    void horizon_conVersionPendiente_noLaSupera() {
+        // Arrange: la transacción A registra la versión 11 y todavía no confirma
+        TransactionSynchronizationManager.initSynchronization();
+        long pendiente = changeLog.record(EntityChange.created(EntityType.AUTHOR, 1L, autor(1L)));
+        TransactionSynchronization finDeA = TransactionSynchronizationManager.getSynchronizations().get(0);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // Act: otra escritura (sin transacción) obtiene la 12 y queda visible
+        changeLog.record(EntityChange.created(EntityType.AUTHOR, 2L, autor(2L)));
+        long mientrasPendiente = changeLog.horizon();
+        finDeA.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        long alConfirmar = changeLog.horizon();
+
+        // Assert
+        assertEquals(11, pendiente);
+        assertEquals(11, mientrasPendiente, "No se lee la 12 mientras la 11 puede aparecer");
+        assertEquals(13, alConfirmar);
+    }
+
+    /**
+     * PRUEBA 3: INSERT en curso
+     */
+    @Test
+    void horizon_duranteElInsert_noBloqueaYNoSuperaLaReserva() throws Exception {
+        // Arrange: mientras se inserta la versión 11, otro hilo consulta el horizonte
+        ExecutorService lector = Executors.newSingleThreadExecutor();
+        AtomicLong horizonteDuranteInsert = new AtomicLong();
+        when(repository.insertAll(anyList())).thenAnswer(inv -> {
+            // Si el lock siguiera tomado durante el INSERT, el lector no podría terminar
+            horizonteDuranteInsert.set(lector.submit(changeLog::horizon).get(5, TimeUnit.SECONDS));
+            return asignar(inv.getArgument(0));
+        });
+
+        try {
+            // Act
+            long version = changeLog.record(EntityChange.created(EntityType.AUTHOR, 1L, autor(1L)));
+
+            // Assert
+            assertEquals(11, version);
+            assertEquals(11, horizonteDuranteInsert.get(),
+                    "La versión que se está insertando todavía no puede leerse");
+            assertEquals(12, changeLog.horizon());
+        } finally {
+            lector.shutdownNow();
+        }
+    }
+
+    // Versiones consecutivas, como las asignaría la columna IDENTITY
+    private long[] asignar(List<ChangeLogEntry> entries) {
+        long[] versiones = new long[entries.size()];
+        for (int i = 0; i < versiones.length; i++) {
+            versiones[i] = ids.incrementAndGet();
+        }
+        return versiones;
+    }
+
+    private static AuthorResponse autor(Long id) {
+        AuthorResponse autor = new AuthorResponse();
+        autor.setId(id);
+        autor.setNombre("Autor " + id);
+        return autor;
+    }
+}
@@ -0,0 +1,163 @@
+package com.grupobb.biblioteca.service.event;
+
+import com.grupobb.biblioteca.dto.Author.AuthorResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas unitarias de la entrega de cambios del flujo.
+ *
+ * Cobertura:
+ * 1. Los suscriptores reciben los cambios en el hilo "cambios", en orden, sin frenar al que publica
+ * 2. Los oyentes onCommit corren en el hilo de la escritura antes de que publish vuelva
+ * 3. En una transacción los cambios se versionan antes del commit y se emiten después
+ * 4. Un consumidor descarta el cambio más viejo que el último aplicado para ese id
+ *
+ * Patrón: AAA (Arrange-Act-Assert)
+ */
+public class EntityChangeStreamTest {
+
+    private EntityChangeStream stream;
+
+    @BeforeEach
+    void setUp() {
+        stream = new EntityChangeStream(null, Schedulers.newSingle("cambios-prueba"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        stream.stop();
+    }
+
+    /**
+     * PRUEBA 1: Entrega en un único hilo, en orden
+     */
+    @Test
+    void publish_entregaEnElHiloDeCambios_sinEsperarAlSuscriptor() throws Exception {
+        // Arrange: un suscriptor que se queda bloqueado en el primer cambio
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch recibidos = new CountDownLatch(3);
+        List<EntityChange> cambios = new CopyOnWriteArrayList<>();
+        List<String> hilos = new CopyOnWriteArrayList<>();
+        Disposable subscription = stream.changes().subscribe(change -> {
+            hilos.add(Thread.currentThread().getName());
+            cambios.add(change);
+            try {
+                liberar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            recibidos.countDown();
+        });
+
+        try {
+            // Act: publicar vuelve aunque el suscriptor todavía no terminó
+            stream.publish(EntityChange.created(EntityType.AUTHOR, 1L, autor(1L)));
+            stream.publish(EntityChange.updated(EntityType.AUTHOR, 1L, autor(1L)));
+            stream.publish(EntityChange.created(EntityType.AUTHOR, 2L, autor(2L)));
+            boolean publicoSinEsperar = recibidos.getCount() > 0;
+            liberar.countDown();
+            assertTrue(recibidos.await(5, TimeUnit.SECONDS));
+
+            // Assert
+            assertTrue(publicoSinEsperar, "La escritura no espera a los suscriptores");
+            assertTrue(hilos.stream().allMatch(hilo -> hilo.startsWith("cambios-prueba")));
+            assertEquals(List.of(1L, 2L, 3L), cambios.stream().map(EntityChange::getSequence).toList());
+            assertEquals(List.of(1L, 2L, 3L), cambios.stream().map(EntityChange::getVersion).toList());
+        } finally {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * PRUEBA 2: Oyentes al confirmar
+     */
+    @Test
+    void onCommit_correEnElHiloDeLaEscritura() {
+        // Arrange
+        List<EntityChange> vistos = new CopyOnWriteArrayList<>();
+        List<String> hilos = new CopyOnWriteArrayList<>();
+        stream.onCommit(change -> {
+            vistos.add(change);
+            hilos.add(Thread.currentThread().getName());
+        });
+
+        // Act
+        stream.publish(EntityChange.created(EntityType.AUTHOR, 1L, autor(1L)));
+
+        // Assert: ya se aplicó cuando publish vuelve
+        assertEquals(1, vistos.size());
+        assertEquals(Thread.currentThread().getName(), hilos.get(0));
+        assertEquals(1L, vistos.get(0).getVersion());
+    }
+
+    /**
+     * PRUEBA 3: Cambios de una transacción
+     */
+    @Test
+    void publish_enTransaccion_versionaAntesDelCommitYEmiteDespues() {
+        // Arrange
+        List<EntityChange> vistos = new CopyOnWriteArrayList<>();
+        stream.onCommit(vistos::add);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        stream.publish(EntityChange.created(EntityType.AUTHOR, 1L, autor(1L)));
+        stream.publish(EntityChange.created(EntityType.AUTHOR, 2L, autor(2L)));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        boolean antesDelCommit = vistos.isEmpty();
+        synchronizations.forEach(s -> s.beforeCommit(false));
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        // Assert: un solo lote por transacción, emitido al confirmar
+        assertTrue(antesDelCommit, "Nada se emite antes del commit");
+        assertEquals(1, synchronizations.size());
+        assertEquals(List.of(1L, 2L), vistos.stream().map(EntityChange::getId).toList());
+        assertEquals(List.of(1L, 2L), vistos.stream().map(EntityChange::getVersion).toList());
+    }
+
+    /**
+     * PRUEBA 4: Cambios que llegan fuera de orden
+     */
+    @Test
+    void changeVersions_descartaElCambioMasViejoDelMismoId() {
+        // Arrange: la versión 7 del autor 1 se confirmó después de la 5, pero se emite antes
+        ChangeVersions versiones = new ChangeVersions();
+        EntityChange nuevo = EntityChange.updated(EntityType.AUTHOR, 1L, autor(1L)).withVersion(7);
+        EntityChange viejo = EntityChange.updated(EntityType.AUTHOR, 1L, autor(1L)).withVersion(5);
+        EntityChange otroId = EntityChange.updated(EntityType.AUTHOR, 2L, autor(2L)).withVersion(6);
+        EntityChange baja = EntityChange.deleted(EntityType.AUTHOR, 2L, autor(2L)).withVersion(8);
+        EntityChange tardio = EntityChange.updated(EntityType.AUTHOR, 2L, autor(2L)).withVersion(6);
+
+        // Act + Assert
+        assertTrue(versiones.accept(nuevo));
+        assertFalse(versiones.accept(viejo), "La 5 llegó tarde: el consumidor ya tiene la 7");
+        assertTrue(versiones.accept(otroId), "Otro id no se ve afectado");
+        assertTrue(versiones.accept(baja));
+        assertFalse(versiones.accept(tardio), "Una edición vieja no revive una baja");
+    }
+
+    private static AuthorResponse autor(Long id) {
+        AuthorResponse autor = new AuthorResponse();
+        autor.setId(id);
+        autor.setNombre("Autor " + id);
+        return autor;
+    }
+}
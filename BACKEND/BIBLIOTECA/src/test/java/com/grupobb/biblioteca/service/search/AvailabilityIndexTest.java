@@ -0,0 +1,194 @@
+package com.grupobb.biblioteca.service.search;
+
+import com.grupobb.biblioteca.dto.Book.BookAvailabilityItem;
+import com.grupobb.biblioteca.dto.Book.BookResponse;
+import com.grupobb.biblioteca.repository.BookRepository;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
+import com.grupobb.biblioteca.service.search.AvailabilityIndex.Flip;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias del bitmap de disponibilidad.
+ *
+ * Cobertura:
+ * 1. La carga inicial separa disponibles y prestados en orden de id
+ * 2. Préstamo, devolución, alta y baja actualizan bitmap y conteos
+ * 3. Conteo y listado de ids sobre 100.000 libros
+ * 4. Un cambio emitido mientras corre la consulta de la recarga no se pierde
+ * 5. Solo los cambios de disponibilidad generan flips; la instantánea lleva su secuencia
+ *
+ * Patrón: AAA (Arrange-Act-Assert)
+ */
+public class AvailabilityIndexTest {
+
+    private BookRepository bookRepository;
+    private EntityChangeStream changeStream;
+    private AvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        // Flujo real: fuera de una transacción publica de inmediato
+        changeStream = new EntityChangeStream();
+        index = new AvailabilityIndex(bookRepository, changeStream);
+        index.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.stop();
+    }
+
+    /**
+     * PRUEBA 1: Carga inicial
+     */
+    @Test
+    void rebuild_separaDisponiblesYPrestados() {
+        // Arrange & Act
+        cargar(List.of(new BookAvailabilityItem(3L, true), new BookAvailabilityItem(1L, false),
+                new BookAvailabilityItem(70L, true), new BookAvailabilityItem(64L, false)));
+
+        // Assert
+        assertArrayEquals(new long[]{3L, 70L}, index.ids(true));
+        assertArrayEquals(new long[]{1L, 64L}, index.ids(false));
+        assertEquals(4, index.size());
+        assertEquals(2, index.countAvailable());
+    }
+
+    /**
+     * PRUEBA 2: Cambios publicados por préstamos, devoluciones, altas y bajas
+     */
+    @Test
+    void cambios_actualizanBitmapYConteos() {
+        // Arrange
+        cargar(List.of(new BookAvailabilityItem(1L, true), new BookAvailabilityItem(2L, false)));
+
+        // Act
+        changeStream.publish(libro(1L, false));                       // préstamo
+        changeStream.publish(libro(2L, true));                        // devolución
+        changeStream.publish(EntityChange.created(EntityType.BOOK, 500L, nuevo(500L, true)));
+        changeStream.publish(EntityChange.deleted(EntityType.BOOK, 2L, nuevo(2L, true)));
+
+        // Assert
+        assertFalse(index.isAvailable(1L));
+        assertFalse(index.isAvailable(2L));
+        assertTrue(index.isAvailable(500L));
+        assertArrayEquals(new long[]{500L}, index.ids(true));
+        assertArrayEquals(new long[]{1L}, index.ids(false));
+        assertEquals(2, index.size());
+        assertEquals(1, index.countAvailable());
+    }
+
+    /**
+     * PRUEBA 3: Conteo y listado de ids sobre 100.000 libros
+     */
+    @Test
+    void bitmap_sobreCienMilLibros_listaYCuentaTodo() {
+        // Arrange: uno de cada diez prestado
+        int total = 100_000;
+        List<BookAvailabilityItem> items = new ArrayList<>(total);
+        for (long id = 1; id <= total; id++) {
+            items.add(new BookAvailabilityItem(id, id % 10 != 0));
+        }
+        cargar(items);
+
+        // Act
+        long[] disponibles = index.ids(true);
+        long[] prestados = index.ids(false);
+
+        // Assert: los listados coinciden con los conteos y salen en orden ascendente
+        assertEquals(total, index.size());
+        assertEquals(90_000, index.countAvailable());
+        assertEquals(90_000, disponibles.length);
+        assertEquals(10_000, prestados.length);
+        for (int i = 0; i < prestados.length; i++) {
+            assertEquals(10L * (i + 1), prestados[i]);
+        }
+        for (int i = 1; i < disponibles.length; i++) {
+            assertTrue(disponibles[i - 1] < disponibles[i], "Ids en orden ascendente");
+            assertTrue(disponibles[i] % 10 != 0, "Un prestado no figura como disponible");
+        }
+        assertEquals(1L, disponibles[0]);
+        assertEquals(99_999L, disponibles[disponibles.length - 1]);
+    }
+
+    /**
+     * PRUEBA 4: Préstamo confirmado durante la recarga
+     */
+    @Test
+    void rebuild_conCambioDuranteLaConsulta_loConserva() {
+        // Arrange: el préstamo del libro 1 se emite mientras corre la consulta, que no lo ve
+        when(bookRepository.findAvailability()).thenAnswer(inv -> {
+            changeStream.publish(libro(1L, false));
+            return List.of(new BookAvailabilityItem(1L, true), new BookAvailabilityItem(2L, true));
+        });
+
+        // Act
+        index.rebuild();
+
+        // Assert
+        assertFalse(index.isAvailable(1L), "El préstamo sobrevive al reemplazo del bitmap");
+        assertTrue(index.isAvailable(2L));
+        assertEquals(2, index.size());
+        assertEquals(1, index.countAvailable());
+    }
+
+    /**
+     * PRUEBA 5: Flips e instantánea para el canal /ws/availability
+     */
+    @Test
+    void flips_soloCuandoCambiaLaDisponibilidad() {
+        // Arrange
+        cargar(List.of(new BookAvailabilityItem(1L, true), new BookAvailabilityItem(2L, true)));
+        List<Flip> flips = new ArrayList<>();
+        Disposable subscription = index.flips().subscribe(flips::add);
+
+        try {
+            // Act
+            changeStream.publish(EntityChange.updated(EntityType.BOOK, 1L,
+                    new BookResponse(1L, "Título nuevo", 1L, "Autor", true)));   // seq 1: sin flip
+            changeStream.publish(libro(2L, false));                           // seq 2: préstamo
+            AvailabilityIndex.Snapshot snapshot = index.snapshot();
+            index.rebuild();
+
+            // Assert
+            assertEquals(List.of(new Flip(2L, 2L, false), new Flip(2L, -1L, false)), flips);
+            assertTrue(flips.get(1).esRecarga(), "La recarga se avisa con un flip propio");
+            assertEquals(2L, snapshot.seq());
+            BitSet esperado = new BitSet();
+            esperado.set(1);
+            assertEquals(esperado, snapshot.disponibles());
+        } finally {
+            subscription.dispose();
+        }
+    }
+
+    private void cargar(List<BookAvailabilityItem> items) {
+        when(bookRepository.findAvailability()).thenReturn(items);
+        index.rebuild();
+    }
+
+    private static EntityChange libro(long id, boolean disponible) {
+        return EntityChange.updated(EntityType.BOOK, id, nuevo(id, disponible));
+    }
+
+    private static BookResponse nuevo(long id, boolean disponible) {
+        return new BookResponse(id, "Libro " + id, 1L, "Autor", disponible);
+    }
+}
@@ -0,0 +1,239 @@
+package com.grupobb.biblioteca.service.search;
+
+import com.grupobb.biblioteca.dto.Author.AuthorResponse;
+import com.grupobb.biblioteca.dto.Book.BookResponse;
+import com.grupobb.biblioteca.repository.BookRepository;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias del índice invertido de libros.
+ *
+ * Cobertura:
+ * 1. Búsqueda sin tildes ni mayúsculas sobre título y autor
+ * 2. Ranking: título antes que autor, todas las palabras primero
+ * 3. Mantenimiento incremental desde el flujo de cambios (alta, edición, baja)
+ * 4. Renombrar un autor reindexa sus libros
+ * 5. Resultados y bajas sobre 20.000 libros
+ * 6. Un préstamo solo cambia la disponibilidad y no mueve el libro en el índice
+ * 7. Los cambios emitidos mientras corre la consulta de la recarga no se pierden
+ *
+ * Patrón: AAA (Arrange-Act-Assert)
+ */
+public class BookSearchIndexTest {
+
+    private BookRepository bookRepository;
+    private EntityChangeStream changeStream;
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        // Flujo real: fuera de una transacción publica de inmediato
+        changeStream = new EntityChangeStream();
+        index = new BookSearchIndex(bookRepository, changeStream);
+        index.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.stop();
+    }
+
+    /**
+     * PRUEBA 1: Búsqueda sin tildes ni mayúsculas
+     */
+    @Test
+    void search_ignoraTildesYMayusculas() {
+        // Arrange
+        cargar(new BookResponse(1L, "Cien años de soledad", 10L, "Gabriel García Márquez", true),
+                new BookResponse(2L, "Rayuela", 20L, "Julio Cortázar", true));
+
+        // Act
+        List<BookResponse> porTitulo = index.search("CIEN ANOS", 10);
+        List<BookResponse> porAutor = index.search("garcia marquez", 10);
+        List<BookResponse> porPrefijo = index.search("cortaz", 10);
+
+        // Assert
+        assertEquals(List.of(1L), ids(porTitulo));
+        assertEquals(List.of(1L), ids(porAutor));
+        assertEquals(List.of(2L), ids(porPrefijo));
+        assertTrue(index.search("de la", 10).isEmpty(), "Las palabras vacías no generan resultados");
+    }
+
+    /**
+     * PRUEBA 2: Ranking por relevancia
+     */
+    @Test
+    void search_ordenaPorRelevancia() {
+        // Arrange
+        cargar(new BookResponse(1L, "Historia de Borges", 10L, "Ana Pérez", true),
+                new BookResponse(2L, "Ficciones", 20L, "Jorge Luis Borges", true),
+                new BookResponse(3L, "El Aleph", 20L, "Jorge Luis Borges", true));
+
+        // Act
+        List<BookResponse> borges = index.search("borges", 10);
+        List<BookResponse> aleph = index.search("borges aleph", 10);
+
+        // Assert
+        assertEquals(1L, borges.get(0).getId(), "La coincidencia en el título va primero");
+        assertEquals(3, borges.size());
+        assertEquals(3L, aleph.get(0).getId(), "El libro con todas las palabras va primero");
+        assertEquals(List.of(3L, 1L), ids(index.search("borges aleph", 2)), "Respeta el límite");
+    }
+
+    /**
+     * PRUEBA 3: Mantenimiento incremental desde el flujo de cambios
+     */
+    @Test
+    void changes_actualizanElIndice() {
+        // Arrange
+        cargar();
+        BookResponse creado = new BookResponse(5L, "La ciudad y los perros", 30L, "Mario Vargas Llosa", true);
+
+        // Act & Assert
+        changeStream.publish(EntityChange.created(EntityType.BOOK, 5L, creado));
+        assertEquals(List.of(5L), ids(index.search("perros", 10)));
+
+        BookResponse editado = new BookResponse(5L, "Conversación en La Catedral", 30L, "Mario Vargas Llosa", false);
+        changeStream.publish(EntityChange.updated(EntityType.BOOK, 5L, editado));
+        assertTrue(index.search("perros", 10).isEmpty(), "Los términos del título anterior se eliminan");
+        assertEquals(List.of(5L), ids(index.search("catedral", 10)));
+        assertEquals(false, index.search("catedral", 10).get(0).isDisponible());
+
+        changeStream.publish(EntityChange.deleted(EntityType.BOOK, 5L, editado));
+        assertTrue(index.search("catedral", 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    /**
+     * PRUEBA 4: Renombrar un autor reindexa sus libros
+     */
+    @Test
+    void authorUpdated_reindexaSusLibros() {
+        // Arrange
+        cargar(new BookResponse(1L, "Pedro Páramo", 40L, "J. Rulfo", true));
+        AuthorResponse autor = new AuthorResponse();
+        autor.setId(40L);
+        autor.setNombre("Juan Rulfo");
+
+        // Act
+        changeStream.publish(EntityChange.updated(EntityType.AUTHOR, 40L, autor));
+
+        // Assert
+        assertEquals(List.of(1L), ids(index.search("juan", 10)));
+        assertEquals("Juan Rulfo", index.search("paramo", 10).get(0).getAutorNombre());
+    }
+
+    /**
+     * PRUEBA 5: Resultados sobre 20.000 libros
+     */
+    @Test
+    void search_sobreMilesDeLibros_devuelveLosMejoresEnOrden() {
+        // Arrange
+        String[] palabras = {"sombra", "viento", "ciudad", "memoria", "noche", "jardín", "río", "espejo",
+                "laberinto", "tiempo", "silencio", "fuego", "mar", "luz", "camino", "sueño"};
+        List<BookResponse> libros = new ArrayList<>();
+        List<Long> conAmbas = new ArrayList<>();
+        for (long id = 1; id <= 20_000; id++) {
+            String primera = palabras[(int) (id % palabras.length)];
+            String segunda = palabras[(int) ((id / 16) % palabras.length)];
+            libros.add(new BookResponse(id, primera + " " + segunda + " volumen " + id,
+                    id % 500, "Autor " + (id % 500), true));
+            if ((primera.equals("sombra") && segunda.equals("viento"))
+                    || (primera.equals("viento") && segunda.equals("sombra"))) {
+                conAmbas.add(id);
+            }
+        }
+        cargar(libros.toArray(new BookResponse[0]));
+
+        // Act: la consulta, y la misma tras dar de baja los 10 primeros resultados
+        List<Long> primeros = ids(index.search("sombra viento", 20));
+        Long volumenUno = index.search("volumen 1", 5).get(0).getId();
+        for (Long id : conAmbas.subList(0, 10)) {
+            changeStream.publish(EntityChange.deleted(EntityType.BOOK, id, libros.get((int) (id - 1))));
+        }
+        List<Long> trasBajas = ids(index.search("sombra viento", 20));
+
+        // Assert: todas las palabras, mismo puntaje y a igualdad el libro más antiguo primero
+        assertEquals(conAmbas.subList(0, 20), primeros);
+        assertEquals(conAmbas.subList(10, 30), trasBajas, "Las bajas salen de las listas de términos");
+        assertEquals(1L, volumenUno);
+        assertEquals(20_000 - 10, index.size());
+    }
+
+    /**
+     * PRUEBA 6: Un préstamo no reindexa
+     */
+    @Test
+    void changes_prestamoSoloCambiaDisponible() {
+        // Arrange: varios libros comparten el término "historia"
+        cargar(new BookResponse(1L, "Historia del tiempo", 10L, "Stephen Hawking", true),
+                new BookResponse(2L, "Historia de dos ciudades", 20L, "Charles Dickens", true),
+                new BookResponse(3L, "Historia universal", 30L, "Ernst Gombrich", true));
+        List<Long> antes = ids(index.search("historia", 10));
+
+        // Act: préstamo del libro 2 y luego cambio de título del libro 1
+        changeStream.publish(EntityChange.updated(EntityType.BOOK, 2L,
+                new BookResponse(2L, "Historia de dos ciudades", 20L, "Charles Dickens", false)));
+        List<BookResponse> trasPrestamo = index.search("historia", 10);
+        changeStream.publish(EntityChange.updated(EntityType.BOOK, 1L,
+                new BookResponse(1L, "Breve historia del tiempo", 10L, "Stephen Hawking", true)));
+
+        // Assert
+        assertEquals(antes, ids(trasPrestamo), "El préstamo no cambia el orden de los resultados");
+        assertEquals(false, trasPrestamo.get(antes.indexOf(2L)).isDisponible());
+        assertEquals(List.of(1L), ids(index.search("breve", 10)));
+        assertEquals(3, index.search("historia", 10).size(), "Los demás libros del término siguen indexados");
+        assertEquals(List.of(2L), ids(index.search("dickens", 10)));
+    }
+
+    /**
+     * PRUEBA 7: Alta, edición y baja confirmadas durante la recarga
+     */
+    @Test
+    void rebuild_conCambiosDuranteLaConsulta_losConserva() {
+        // Arrange: la consulta devuelve el estado anterior a tres cambios que se emiten
+        // mientras corre
+        when(bookRepository.findAllResponses()).thenAnswer(inv -> {
+            changeStream.publish(EntityChange.created(EntityType.BOOK, 3L,
+                    new BookResponse(3L, "Rayuela", 30L, "Julio Cortázar", true)));
+            changeStream.publish(EntityChange.updated(EntityType.BOOK, 1L,
+                    new BookResponse(1L, "El Aleph", 10L, "Jorge Luis Borges", true)));
+            changeStream.publish(EntityChange.deleted(EntityType.BOOK, 2L,
+                    new BookResponse(2L, "Ficciones", 10L, "Jorge Luis Borges", true)));
+            return List.of(new BookResponse(1L, "Ficciones II", 10L, "Jorge Luis Borges", true),
+                    new BookResponse(2L, "Ficciones", 10L, "Jorge Luis Borges", true));
+        });
+
+        // Act
+        index.rebuild();
+
+        // Assert
+        assertEquals(List.of(3L), ids(index.search("rayuela", 10)), "El alta sobrevive a la recarga");
+        assertEquals(List.of(1L), ids(index.search("aleph", 10)), "La edición sobrevive a la recarga");
+        assertTrue(index.search("ficciones", 10).isEmpty(), "La baja y el título viejo no vuelven");
+        assertEquals(2, index.size());
+    }
+
+    private void cargar(BookResponse... libros) {
+        when(bookRepository.findAllResponses()).thenReturn(List.of(libros));
+        index.rebuild();
+    }
+
+    private static List<Long> ids(List<BookResponse> libros) {
+        return libros.stream().map(BookResponse::getId).toList();
+    }
+}
@@ -0,0 +1,159 @@
+package com.grupobb.biblioteca.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas unitarias del índice de prefijos del autocompletado.
+ *
+ * Cobertura:
+ * 1. Prefijo al inicio de cualquier palabra, sin tildes ni mayúsculas
+ * 2. Varios textos por id (nombre y email) sin repetir el id
+ * 3. Altas, reemplazos y bajas incrementales
+ * 4. Resultados sobre 50.000 textos iguales a un recorrido completo
+ *
+ * Patrón: AAA (Arrange-Act-Assert)
+ */
+public class PrefixIndexTest {
+
+    private PrefixIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PrefixIndex();
+    }
+
+    /**
+     * PRUEBA 1: Prefijo al inicio de cualquier palabra
+     */
+    @Test
+    void search_prefijoDeCualquierPalabra() {
+        // Arrange
+        index.load(Map.of(
+                        1L, List.of("Gabriel García Márquez"),
+                        2L, List.of("Julio Cortázar"),
+                        3L, List.of("Gabriela Mistral")),
+                Map.of(1L, "Gabriel García Márquez", 2L, "Julio Cortázar", 3L, "Gabriela Mistral"));
+
+        // Act & Assert
+        assertEquals(List.of(1L, 3L), index.search("GABR", 10));
+        assertEquals(List.of(1L), index.search("marq", 10));
+        assertEquals(List.of(1L), index.search("garcia mar", 10), "Admite varias palabras seguidas");
+        assertEquals(List.of(2L), index.search("cortá", 10));
+        assertTrue(index.search("abriel", 10).isEmpty(), "Solo coincide desde el inicio de una palabra");
+        assertTrue(index.search("  ", 10).isEmpty());
+        assertEquals(List.of(1L), index.search("gab", 1), "Respeta el límite");
+    }
+
+    /**
+     * PRUEBA 2: Varios textos por id sin repetir el id
+     */
+    @Test
+    void search_variosTextosPorId_noRepiteIds() {
+        // Arrange
+        index.load(Map.of(7L, List.of("Ana Ruiz", "ana.ruiz@example.com")),
+                Map.of(7L, "Ana Ruiz <ana.ruiz@example.com>"));
+
+        // Act
+        List<Long> porNombre = index.search("ana", 10);
+        List<Long> porDominio = index.search("example", 10);
+
+        // Assert
+        assertEquals(List.of(7L), porNombre);
+        assertEquals(List.of(7L), porDominio);
+        assertEquals("Ana Ruiz <ana.ruiz@example.com>", index.etiqueta(7L));
+    }
+
+    /**
+     * PRUEBA 3: Altas, reemplazos y bajas incrementales
+     */
+    @Test
+    void putYRemove_actualizanElIndice() {
+        // Arrange
+        index.load(Map.of(), Map.of());
+
+        // Act & Assert
+        index.put(1L, List.of("Rayuela"), "Rayuela");
+        index.put(2L, List.of("Ravelstein"), "Ravelstein");
+        assertEquals(List.of(2L, 1L), index.search("ra", 10), "Orden alfabético de la coincidencia");
+
+        index.put(1L, List.of("Pedro Páramo"), "Pedro Páramo");
+        assertEquals(List.of(2L), index.search("ra", 10), "El texto anterior deja de indexarse");
+        assertEquals(List.of(1L), index.search("param", 10));
+        assertEquals("Pedro Páramo", index.etiqueta(1L));
+
+        index.remove(1L);
+        assertTrue(index.search("pedro", 10).isEmpty());
+        assertNull(index.etiqueta(1L));
+        assertEquals(1, index.size());
+    }
+
+    /**
+     * PRUEBA 4: Resultados sobre 50.000 textos
+     */
+    @Test
+    void search_sobreMilesDeTextos_coincideConUnRecorridoCompleto() {
+        // Arrange
+        String[] palabras = {"sombra", "viento", "ciudad", "memoria", "noche", "jardín", "río", "espejo"};
+        Map<Long, List<String>> textos = new HashMap<>();
+        Map<Long, String> etiquetas = new HashMap<>();
+        for (long id = 1; id <= 50_000; id++) {
+            String titulo = palabras[(int) (id % palabras.length)] + " " + palabras[(int) ((id / 8) % palabras.length)]
+                    + " " + id;
+            textos.put(id, List.of(titulo));
+            etiquetas.put(id, titulo);
+        }
+        index.load(textos, etiquetas);
+
+        // Act: consultas tras la carga y tras reemplazar y quitar textos
+        List<Long> som = index.search("som", 10);
+        List<Long> rio = index.search("Río", 10);
+        List<Long> somEsperados = recorridoCompleto(textos, "som", 10);
+        List<Long> rioEsperados = recorridoCompleto(textos, "Río", 10);
+        index.put(8L, List.of("Sombra antigua"), "Sombra antigua");
+        index.remove(16L);
+        textos.put(8L, List.of("Sombra antigua"));
+        textos.remove(16L);
+        List<Long> somTrasCambios = index.search("som", 10);
+
+        // Assert: mismas sugerencias que recorrer todos los textos
+        assertEquals(somEsperados, som);
+        assertEquals(rioEsperados, rio, "Sin tildes ni mayúsculas");
+        assertEquals(recorridoCompleto(textos, "som", 10), somTrasCambios);
+        assertFalse(somTrasCambios.contains(16L), "Un id quitado no se sugiere");
+        assertEquals(List.of(12345L), index.search("12345", 10));
+    }
+
+    // Sugerencias esperadas calculadas sin índice: claves desde cada palabra, en orden
+    private static List<Long> recorridoCompleto(Map<Long, List<String>> textos, String prefijo, int limit) {
+        String normalizado = TextNormalizer.normalize(prefijo);
+        List<Map.Entry<String, Long>> coincidencias = new ArrayList<>();
+        textos.forEach((id, valores) -> {
+            for (String texto : valores) {
+                String completo = TextNormalizer.normalize(texto);
+                for (int inicio = 0; inicio >= 0; inicio = siguientePalabra(completo, inicio)) {
+                    if (completo.startsWith(normalizado, inicio)) {
+                        coincidencias.add(Map.entry(completo.substring(inicio), id));
+                    }
+                }
+            }
+        });
+        coincidencias.sort(Map.Entry.<String, Long>comparingByKey().thenComparing(Map.Entry.comparingByValue()));
+        return coincidencias.stream().map(Map.Entry::getValue).distinct().limit(limit).toList();
+    }
+
+    private static int siguientePalabra(String texto, int desde) {
+        int espacio = texto.indexOf(' ', desde);
+        return espacio < 0 ? -1 : espacio + 1;
+    }
+}
@@ -0,0 +1,94 @@
+package com.grupobb.biblioteca.service.subscriber;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas unitarias del subscriber con demanda adaptativa.
+ *
+ * Cobertura:
+ * 1. Los lotes pedidos se procesan juntos y no se pierde ningún elemento
+ * 2. Con procesamiento rápido la demanda sube hasta el máximo
+ * 3. Con procesamiento lento la demanda baja hasta el mínimo
+ *
+ * Patrón: AAA (Arrange-Act-Assert)
+ */
+public class BatchSubscriberTest {
+
+    /**
+     * PRUEBA 1: Todos los elementos llegan al procesador en lotes
+     */
+    @Test
+    void procesaTodosLosElementos_enLotes() {
+        // Arrange
+        List<Integer> recibidos = new ArrayList<>();
+        List<Integer> tamanios = new ArrayList<>();
+        BatchSubscriber<Integer> subscriber = new BatchSubscriber<>("números", 1, 4, Duration.ofSeconds(1), lote -> {
+            recibidos.addAll(lote);
+            tamanios.add(lote.size());
+        });
+
+        // Act: 1000 números en chunks de 10
+        Flux.range(1, 1000).buffer(10).subscribe(subscriber);
+
+        // Assert
+        assertEquals(1000, recibidos.size());
+        assertEquals(1000, subscriber.getProcesados());
+        assertEquals(10, tamanios.get(0), "El primer pedido es de un solo chunk");
+        assertTrue(tamanios.stream().anyMatch(t -> t > 10), "Los lotes siguientes juntan varios chunks");
+        assertTrue(subscriber.getThroughput() > 0);
+    }
+
+    /**
+     * PRUEBA 2: Con procesamiento rápido la demanda sube hasta el máximo
+     */
+    @Test
+    void procesamientoRapido_subeLaDemanda() {
+        // Arrange
+        BatchSubscriber<Integer> subscriber = new BatchSubscriber<>("números", 1, 8, Duration.ofSeconds(1), lote -> {
+        });
+
+        // Act
+        Flux.range(1, 200).buffer(1).subscribe(subscriber);
+
+        // Assert
+        assertEquals(8, subscriber.getDemand());
+    }
+
+    /**
+     * PRUEBA 3: Con procesamiento lento la demanda baja hasta el mínimo
+     */
+    @Test
+    void procesamientoLento_bajaLaDemanda() {
+        // Arrange: arranca rápido y después cada lote tarda más que el objetivo
+        List<Integer> llamadas = new ArrayList<>();
+        BatchSubscriber<Integer> subscriber = new BatchSubscriber<>("números", 1, 8, Duration.ofMillis(5), lote -> {
+            llamadas.add(lote.size());
+            if (llamadas.size() > 4) {
+                dormir(20);
+            }
+        });
+
+        // Act
+        Flux.range(1, 40).buffer(1).subscribe(subscriber);
+
+        // Assert
+        assertEquals(1, subscriber.getDemand());
+        assertEquals(40, subscriber.getProcesados());
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.grupobb.biblioteca.web.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Prueba de integración (H2) del feed de cambios GET /api/authors/changes.
+ *
+ * Las escrituras se hacen por la API; el feed debe devolver solo lo que cambió desde
+ * la versión del cliente, con el último estado de cada fila y tombstones para las bajas.
+ */
+@SpringBootTest
+public class ChangeFeedTest {
+
+    @Autowired
+    private WebApplicationContext context;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    void cambiosDesdeUnaVersion_devuelveUpsertsYTombstones() throws Exception {
+        // ========== ARRANGE ==========
+        long desde = feed("/api/authors/changes").get("next_since").asLong();
+        long autorA = crearAutor("Autora Feed");
+        mockMvc.perform(put("/api/authors/" + autorA)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Autora Feed Renombrada\"}"))
+                .andExpect(status().isOk());
+        long autorB = crearAutor("Autor Feed Borrado");
+        mockMvc.perform(delete("/api/authors/" + autorB)).andExpect(status().isNoContent());
+
+        // ========== ACT ==========
+        JsonNode cambios = feed("/api/authors/changes?since=" + desde);
+        JsonNode sinNovedades = feed("/api/authors/changes?since=" + cambios.get("next_since").asLong());
+
+        // ========== ASSERT ==========
+        JsonNode items = cambios.get("items");
+        assertEquals(2, items.size(), "Una entrada por fila: el último estado de cada una");
+        assertEquals(autorA, items.get(0).get("id").asLong());
+        assertEquals("upsert", items.get(0).get("op").asText());
+        assertEquals("Autora Feed Renombrada", items.get(0).get("data").get("nombre").asText());
+        assertEquals(autorB, items.get(1).get("id").asLong());
+        assertEquals("delete", items.get(1).get("op").asText());
+        assertFalse(cambios.get("has_more").asBoolean());
+        assertEquals(0, sinNovedades.get("items").size());
+    }
+
+    @Test
+    void cambiosPaginados_respetanElLimite() throws Exception {
+        // ========== ARRANGE ==========
+        long desde = feed("/api/authors/changes").get("next_since").asLong();
+        crearAutor("Autor Página 1");
+        crearAutor("Autor Página 2");
+        crearAutor("Autor Página 3");
+
+        // ========== ACT ==========
+        JsonNode primera = feed("/api/authors/changes?limit=2&since=" + desde);
+        JsonNode segunda = feed("/api/authors/changes?limit=2&since=" + primera.get("next_since").asLong());
+
+        // ========== ASSERT ==========
+        assertEquals(2, primera.get("items").size());
+        assertTrue(primera.get("has_more").asBoolean());
+        assertEquals(1, segunda.get("items").size());
+        assertEquals("Autor Página 3", segunda.get("items").get(0).get("data").get("nombre").asText());
+        assertFalse(segunda.get("has_more").asBoolean());
+
+        mockMvc.perform(get("/api/authors/changes?since=-1")).andExpect(status().isBadRequest());
+    }
+
+    private long crearAutor(String nombre) throws Exception {
+        String body = mockMvc.perform(post("/api/authors")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"" + nombre + "\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private JsonNode feed(String url) throws Exception {
+        String body = mockMvc.perform(get(url)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
@@ -0,0 +1,105 @@
+package com.grupobb.biblioteca.web.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Prueba de integración (H2) de los listados con ETag.
+ *
+ * Un sondeo con el ETag vigente debe responder 304 sin tocar la base; un sondeo sin
+ * ETag pero sin cambios debe reutilizar la respuesta serializada; y una escritura en
+ * una colección debe cambiar solo el ETag de esa colección.
+ */
+@SpringBootTest
+public class ListEtagTest {
+
+    @Autowired
+    private WebApplicationContext context;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private MockMvc mockMvc;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void sondeoSinCambios_responde304SinConsultas() throws Exception {
+        // ========== ARRANGE ==========
+        String etag = mockMvc.perform(get("/api/authors"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        // ========== ACT ==========
+        statistics.clear();
+        mockMvc.perform(get("/api/authors").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        long conEtag = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        mockMvc.perform(get("/api/authors")).andExpect(status().isOk());
+        long sinEtag = statistics.getPrepareStatementCount();
+
+        // ========== ASSERT ==========
+        assertEquals(0, conEtag, "Un 304 no consulta la base");
+        assertEquals(0, sinEtag, "Sin cambios se reutiliza la respuesta serializada");
+    }
+
+    @Test
+    void escritura_cambiaSoloElEtagDeSuColeccion() throws Exception {
+        // ========== ARRANGE ==========
+        String autoresAntes = etag("/api/authors");
+        String usuariosAntes = etag("/api/users");
+
+        // ========== ACT ==========
+        mockMvc.perform(post("/api/authors")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Autora ETag\",\"nacionalidad\":\"Chilena\"}"))
+                .andExpect(status().isCreated());
+        MvcResult autores = mockMvc.perform(get("/api/authors").header(HttpHeaders.IF_NONE_MATCH, autoresAntes))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // ========== ASSERT ==========
+        assertNotEquals(autoresAntes, autores.getResponse().getHeader(HttpHeaders.ETAG));
+        assertTrue(autores.getResponse().getContentAsString().contains("Autora ETag"),
+                "El listado nuevo incluye la escritura");
+        assertEquals(usuariosAntes, etag("/api/users"), "Otras colecciones conservan su ETag");
+    }
+
+    private String etag(String url) throws Exception {
+        return mockMvc.perform(get(url)).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
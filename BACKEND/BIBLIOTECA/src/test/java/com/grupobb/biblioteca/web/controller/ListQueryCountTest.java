@@ -0,0 +1,152 @@
+package com.grupobb.biblioteca.web.controller;
+
+import com.grupobb.biblioteca.domain.Author;
+import com.grupobb.biblioteca.domain.Book;
+import com.grupobb.biblioteca.domain.Loan;
+import com.grupobb.biblioteca.domain.User;
+import com.grupobb.biblioteca.dto.Book.BookResponse;
+import com.grupobb.biblioteca.repository.AuthorRepository;
+import com.grupobb.biblioteca.repository.BookRepository;
+import com.grupobb.biblioteca.repository.LoanRepository;
+import com.grupobb.biblioteca.repository.UserRepository;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Prueba de integración (H2) de la cantidad de consultas SQL de los listados.
+ *
+ * Cada libro tiene su propio autor y cada préstamo su propio usuario y libro, de modo
+ * que una carga N+1 se notaría como una consulta extra por fila. La cantidad de
+ * sentencias de GET /api/loans y GET /api/books debe ser la misma con pocas o muchas filas,
+ * y al proyectar directamente a DTO no debe cargarse ninguna entidad.
+ */
+@SpringBootTest
+public class ListQueryCountTest {
+
+    @Autowired
+    private WebApplicationContext context;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private LoanRepository loanRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityChangeStream changeStream;
+
+    private MockMvc mockMvc;
+    private Statistics statistics;
+    private int creados;
+    private long entidadesCargadas;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+        authorRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void listadoDePrestamos_cantidadDeConsultasConstante() throws Exception {
+        // ========== ARRANGE ==========
+        crearPrestamos(5);
+        long conPocos = contarSentencias("/api/loans?limit=500");
+        crearPrestamos(60);
+
+        // ========== ACT ==========
+        long conMuchos = contarSentencias("/api/loans?limit=500");
+
+        // ========== ASSERT ==========
+        assertEquals(conPocos, conMuchos, "La cantidad de consultas no debe crecer con las filas");
+        assertTrue(conMuchos <= 2, "El listado de préstamos debe resolverse en una consulta");
+        assertEquals(0, entidadesCargadas, "El listado se proyecta a DTO sin cargar entidades");
+    }
+
+    @Test
+    void listadoDeLibros_cantidadDeConsultasConstante() throws Exception {
+        // ========== ARRANGE ==========
+        crearPrestamos(5);
+        long conPocos = contarSentencias("/api/books");
+        crearPrestamos(60);
+
+        // ========== ACT ==========
+        long conMuchos = contarSentencias("/api/books");
+
+        // ========== ASSERT ==========
+        assertEquals(conPocos, conMuchos, "La cantidad de consultas no debe crecer con las filas");
+        assertTrue(conMuchos <= 2, "El listado de libros debe resolverse en una consulta");
+        assertEquals(0, entidadesCargadas, "El listado se proyecta a DTO sin cargar entidades");
+    }
+
+    // Ejecuta la petición y devuelve cuántas sentencias JDBC preparó Hibernate
+    private long contarSentencias(String url) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        entidadesCargadas = statistics.getEntityLoadCount();
+        return statistics.getPrepareStatementCount();
+    }
+
+    // Crea préstamos con autor, libro y usuario propios (ninguno compartido)
+    private void crearPrestamos(int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            int n = creados++;
+
+            Author author = new Author();
+            author.setNombre("Autor " + n);
+            author = authorRepository.save(author);
+
+            Book book = new Book();
+            book.setTitulo("Libro " + n);
+            book.setAutor(author);
+            book.setDisponible(false);
+            book = bookRepository.save(book);
+            // Las filas se crean con los repositorios; se publica el alta como lo haría
+            // el servicio para que el listado de libros (con ETag) cambie de versión
+            changeStream.publish(EntityChange.created(EntityType.BOOK, book.getId(),
+                    new BookResponse(book.getId(), book.getTitulo(), author.getId(), author.getNombre(), false)));
+
+            User user = new User();
+            user.setNombre("Lector " + n);
+            user.setEmail("lector" + n + "@consultas.test");
+            user = userRepository.save(user);
+
+            Loan loan = new Loan();
+            loan.setUsuario(user);
+            loan.setLibro(book);
+            loan.setFechaPrestamo(LocalDate.now());
+            loanRepository.save(loan);
+        }
+    }
+}
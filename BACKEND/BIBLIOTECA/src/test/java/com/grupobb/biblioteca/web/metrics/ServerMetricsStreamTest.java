@@ -0,0 +1,193 @@
+package com.grupobb.biblioteca.web.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grupobb.biblioteca.dto.Analysis.AnalysisStatsResponse;
+import com.grupobb.biblioteca.dto.Metrics.PoolUsageResponse;
+import com.grupobb.biblioteca.dto.Metrics.ServerMetricsResponse;
+import com.grupobb.biblioteca.interceptor.RequestLoggingInterceptor;
+import com.grupobb.biblioteca.service.analysis.AnalysisEngine;
+import com.grupobb.biblioteca.websocket.ChangeEventHub;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias del stream de métricas del servidor.
+ *
+ * Cobertura:
+ * 1. Las tasas por segundo salen de la diferencia de contadores entre muestras
+ * 2. La muestra incluye las rutas más lentas primero y el uso de los pools
+ * 3. Dos suscriptores comparten la misma muestra por período
+ * 4. Tras quedar sin suscriptores la primera muestra no promedia el tiempo inactivo
+ *
+ * Patrón: AAA (Arrange-Act-Assert)
+ */
+public class ServerMetricsStreamTest {
+
+    private static final long SEGUNDO = 1_000_000_000L;
+
+    private SimpleMeterRegistry registry;
+    private AnalysisEngine analysisEngine;
+    private ChangeEventHub changeEventHub;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        analysisEngine = mock(AnalysisEngine.class);
+        changeEventHub = mock(ChangeEventHub.class);
+        when(analysisEngine.stats()).thenReturn(new AnalysisStatsResponse());
+        when(changeEventHub.getSesiones()).thenReturn(3);
+    }
+
+    private ServerMetricsStream stream(Duration period) {
+        return new ServerMetricsStream(registry, analysisEngine, changeEventHub, new ObjectMapper(), period);
+    }
+
+    private Timer ruta(String uri) {
+        return Timer.builder(RequestLoggingInterceptor.METRIC)
+                .tag("method", "GET")
+                .tag("uri", uri)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    private Timer servidor(String uri, String outcome) {
+        return Timer.builder("http.server.requests")
+                .tag("uri", uri)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * PRUEBA 1: 20 peticiones (2 con error) en 2 segundos -> 10 req/s y 1 error/s
+     */
+    @Test
+    void collect_calculaTasasPorSegundo() {
+        // Arrange: lo que no es /api/** (actuator) no cuenta
+        ServerMetricsStream metrics = stream(Duration.ofSeconds(2));
+        Timer libros = servidor("/api/books", "SUCCESS");
+        Timer errores = servidor("/api/books", "SERVER_ERROR");
+        Timer actuator = servidor("/actuator/health", "SERVER_ERROR");
+        libros.record(5, TimeUnit.MILLISECONDS);
+        metrics.collect(SEGUNDO);
+
+        // Act
+        for (int i = 0; i < 18; i++) {
+            libros.record(5, TimeUnit.MILLISECONDS);
+        }
+        errores.record(1, TimeUnit.MILLISECONDS);
+        errores.record(1, TimeUnit.MILLISECONDS);
+        actuator.record(1, TimeUnit.MILLISECONDS);
+        ServerMetricsResponse muestra = metrics.collect(3 * SEGUNDO);
+
+        // Assert
+        assertEquals(10.0, muestra.getRequestsPerSecond(), 0.001);
+        assertEquals(1.0, muestra.getErrorsPerSecond(), 0.001);
+        assertEquals(3, muestra.getWebSocketSessions());
+    }
+
+    /**
+     * PRUEBA 2: La ruta más lenta va primero; aparecen el pool JDBC y el del análisis
+     */
+    @Test
+    void collect_incluyeRutasYPools() {
+        // Arrange
+        ruta("/api/books").record(10, TimeUnit.MILLISECONDS);
+        ruta("/api/loans/export").record(900, TimeUnit.MILLISECONDS);
+        Gauge.builder("hikaricp.connections.active", () -> 4).tag("pool", "HikariPool-1").register(registry);
+        Gauge.builder("hikaricp.connections.idle", () -> 6).tag("pool", "HikariPool-1").register(registry);
+        Gauge.builder("hikaricp.connections.pending", () -> 1).tag("pool", "HikariPool-1").register(registry);
+        Gauge.builder("hikaricp.connections.max", () -> 10).tag("pool", "HikariPool-1").register(registry);
+
+        // Act
+        ServerMetricsResponse muestra = stream(Duration.ofSeconds(2)).collect();
+
+        // Assert
+        assertEquals("/api/loans/export", muestra.getRoutes().get(0).getUri());
+        PoolUsageResponse jdbc = muestra.getPools().get(0);
+        assertEquals("HikariPool-1", jdbc.getName());
+        assertEquals(4, jdbc.getActive());
+        assertEquals(1, jdbc.getPending());
+        assertEquals(10, jdbc.getMax());
+        assertEquals("analisis", muestra.getPools().get(1).getName());
+    }
+
+    /**
+     * PRUEBA 3: Con dos dashboards abiertos se toma una sola muestra por período
+     */
+    @Test
+    void stream_dosSuscriptores_compartenLaMuestra() throws Exception {
+        // Arrange
+        ServerMetricsStream metrics = stream(Duration.ofMillis(30));
+        List<String> primero = Collections.synchronizedList(new ArrayList<>());
+        List<String> segundo = Collections.synchronizedList(new ArrayList<>());
+
+        // Act
+        Disposable a = metrics.stream().subscribe(event -> primero.add(event.id()));
+        Disposable b = metrics.stream().subscribe(event -> segundo.add(event.id()));
+        long limite = System.currentTimeMillis() + 2000;
+        while ((primero.size() < 5 || segundo.size() < 5) && System.currentTimeMillis() < limite) {
+            Thread.sleep(5);
+        }
+        a.dispose();
+        b.dispose();
+
+        // Assert: los dos ven las mismas muestras y no se duplican tomas
+        Set<String> ids = new HashSet<>(primero);
+        assertTrue(ids.containsAll(segundo), "El segundo suscriptor recibe las mismas muestras");
+        assertTrue(metrics.getMuestras() <= ids.size() + 1,
+                "Una muestra por período, no una por suscriptor");
+        assertTrue(primero.size() >= 5);
+    }
+
+    /**
+     * PRUEBA 4: Un dashboard que vuelve después de un rato no ve una tasa diluida
+     */
+    @Test
+    void stream_alVolverDeInactivo_reiniciaLaBase() throws Exception {
+        // Arrange: un primer dashboard toma muestras y se va
+        ServerMetricsStream metrics = stream(Duration.ofMillis(30));
+        Timer libros = servidor("/api/books", "SUCCESS");
+        List<String> antes = Collections.synchronizedList(new ArrayList<>());
+        Disposable a = metrics.stream().subscribe(event -> antes.add(event.data()));
+        esperar(antes, 2);
+        a.dispose();
+        for (int i = 0; i < 50; i++) {
+            libros.record(5, TimeUnit.MILLISECONDS);
+        }
+
+        // Act: vuelve otro dashboard
+        List<String> despues = Collections.synchronizedList(new ArrayList<>());
+        Disposable b = metrics.stream().subscribe(event -> despues.add(event.data()));
+        esperar(despues, 1);
+        b.dispose();
+
+        // Assert: la primera muestra es la nueva base, no 50 peticiones sobre todo el hueco
+        JsonNode primera = new ObjectMapper().readTree(despues.get(0));
+        assertEquals(0.0, primera.get("requestsPerSecond").asDouble(), 0.001);
+    }
+
+    private static void esperar(List<?> lista, int cantidad) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 2000;
+        while (lista.size() < cantidad && System.currentTimeMillis() < limite) {
+            Thread.sleep(5);
+        }
+    }
+}
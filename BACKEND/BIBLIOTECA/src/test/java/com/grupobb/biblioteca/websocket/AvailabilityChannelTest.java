@@ -0,0 +1,265 @@
+package com.grupobb.biblioteca.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grupobb.biblioteca.dto.Book.BookAvailabilityItem;
+import com.grupobb.biblioteca.dto.Book.BookResponse;
+import com.grupobb.biblioteca.repository.BookRepository;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
+import com.grupobb.biblioteca.service.search.AvailabilityIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias del canal binario de disponibilidad.
+ *
+ * Cobertura:
+ * 1. La instantánea comprimida reproduce el bitmap de disponibilidad
+ * 2. Préstamo y devolución generan deltas solo con los ids que cambiaron
+ * 3. Un cambio que no toca `disponible` no genera frame
+ * 4. La instantánea de 100.000 libros es mucho más chica que el listado JSON
+ * 5. Una recarga del índice reenvía la instantánea a las sesiones abiertas
+ *
+ * Patrón: AAA (Arrange-Act-Assert)
+ */
+public class AvailabilityChannelTest {
+
+    private final EntityChangeStream stream = new EntityChangeStream();
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private AvailabilityIndex index;
+    private AvailabilityChannel channel;
+
+    @AfterEach
+    void tearDown() {
+        if (channel != null) {
+            channel.stop();
+        }
+        if (index != null) {
+            index.stop();
+        }
+    }
+
+    // El canal difunde el bitmap del índice, que se carga y se actualiza con el flujo
+    private AvailabilityChannel channel(List<BookAvailabilityItem> items) {
+        when(bookRepository.findAvailability()).thenReturn(items);
+        index = new AvailabilityIndex(bookRepository, stream);
+        index.start();
+        index.rebuild();
+        channel = new AvailabilityChannel(index, 64, 512, 5);
+        channel.start();
+        return channel;
+    }
+
+    private static WebSocketSession session(List<byte[]> frames) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("kiosco");
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(inv -> {
+            ByteBuffer payload = ((BinaryMessage) inv.getArgument(0)).getPayload();
+            byte[] frame = new byte[payload.remaining()];
+            payload.get(frame);
+            frames.add(frame);
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+
+    private static void esperar(List<?> lista, int cantidad) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 2000;
+        while (lista.size() < cantidad && System.currentTimeMillis() < limite) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static BitSet leerInstantanea(byte[] frame) throws Exception {
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        assertEquals(AvailabilityFrames.SNAPSHOT, buffer.get());
+        buffer.getLong();
+        int bits = buffer.getInt();
+        Inflater inflater = new Inflater();
+        inflater.setInput(frame, buffer.position(), buffer.remaining());
+        byte[] bitmap = new byte[(bits + 7) / 8];
+        int leidos = 0;
+        while (!inflater.finished()) {
+            leidos += inflater.inflate(bitmap, leidos, bitmap.length - leidos);
+        }
+        inflater.end();
+        return BitSet.valueOf(bitmap);
+    }
+
+    // Devuelve los cambios del delta como id << 1 | disponible
+    private static List<Long> leerDelta(byte[] frame) {
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        assertEquals(AvailabilityFrames.DELTA, buffer.get());
+        buffer.getLong();
+        long n = varint(buffer);
+        List<Long> cambios = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            cambios.add(varint(buffer));
+        }
+        return cambios;
+    }
+
+    private static long varint(ByteBuffer buffer) {
+        long valor = 0;
+        int desplazamiento = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            desplazamiento += 7;
+        } while ((b & 0x80) != 0);
+        return valor;
+    }
+
+    private static EntityChange libro(long id, String titulo, boolean disponible) {
+        return EntityChange.updated(EntityType.BOOK, id, new BookResponse(id, titulo, 1L, "Autor", disponible));
+    }
+
+    /**
+     * PRUEBA 1: La instantánea trae exactamente los ids disponibles
+     */
+    @Test
+    void instantanea_reproduceElBitmap() throws Exception {
+        // Arrange
+        channel(List.of(new BookAvailabilityItem(1L, true), new BookAvailabilityItem(2L, false),
+                new BookAvailabilityItem(130L, true)));
+        List<byte[]> frames = Collections.synchronizedList(new ArrayList<>());
+
+        // Act
+        channel.register(session(frames));
+        esperar(frames, 1);
+
+        // Assert
+        BitSet bits = leerInstantanea(frames.get(0));
+        assertTrue(bits.get(1));
+        assertFalse(bits.get(2));
+        assertTrue(bits.get(130));
+        assertEquals(2, bits.cardinality());
+    }
+
+    /**
+     * PRUEBA 2: Prestar el libro 1 y devolver el 2 genera deltas solo con esos ids
+     */
+    @Test
+    void prestamoYDevolucion_generanDeltas() throws Exception {
+        // Arrange
+        channel(List.of(new BookAvailabilityItem(1L, true), new BookAvailabilityItem(2L, false)));
+        List<byte[]> frames = Collections.synchronizedList(new ArrayList<>());
+        channel.register(session(frames));
+        esperar(frames, 1);
+
+        // Act
+        stream.publish(libro(1L, "Rayuela", false));
+        stream.publish(libro(2L, "Ficciones", true));
+        long limite = System.currentTimeMillis() + 2000;
+        List<Long> cambios = new ArrayList<>();
+        while (cambios.size() < 2 && System.currentTimeMillis() < limite) {
+            Thread.sleep(5);
+            cambios.clear();
+            for (byte[] frame : frames.subList(1, frames.size())) {
+                cambios.addAll(leerDelta(frame));
+            }
+        }
+
+        // Assert: id << 1 | disponible
+        assertEquals(List.of(1L << 1, (2L << 1) | 1), cambios);
+        assertTrue(frames.get(1).length < 16, "Un delta ocupa unos pocos bytes");
+    }
+
+    /**
+     * PRUEBA 3: Cambiar solo el título no envía nada
+     */
+    @Test
+    void cambioSinDisponibilidad_noGeneraFrame() throws Exception {
+        // Arrange
+        channel(List.of(new BookAvailabilityItem(1L, true)));
+        List<byte[]> frames = Collections.synchronizedList(new ArrayList<>());
+        channel.register(session(frames));
+        esperar(frames, 1);
+
+        // Act: el préstamo posterior sirve de marca, los cambios se entregan en orden
+        stream.publish(libro(1L, "Título nuevo", true));
+        stream.publish(libro(1L, "Título nuevo", false));
+        esperar(frames, 2);
+
+        // Assert: solo el préstamo generó delta
+        assertEquals(2, frames.size());
+        assertEquals(1, channel.getDeltas());
+    }
+
+    /**
+     * PRUEBA 4: 100.000 libros caben en pocos KB frente a megas de JSON
+     */
+    @Test
+    void instantanea_grande_esCompacta() throws Exception {
+        // Arrange: 90% disponibles, al azar
+        int total = 100_000;
+        Random random = new Random(42);
+        List<BookAvailabilityItem> items = new ArrayList<>(total);
+        List<BookResponse> libros = new ArrayList<>(total);
+        for (long id = 1; id <= total; id++) {
+            boolean disponible = random.nextInt(10) != 0;
+            items.add(new BookAvailabilityItem(id, disponible));
+            libros.add(new BookResponse(id, "Libro " + id, 1L, "Autor", disponible));
+        }
+        channel(items);
+        List<byte[]> frames = Collections.synchronizedList(new ArrayList<>());
+
+        // Act
+        channel.register(session(frames));
+        esperar(frames, 1);
+
+        // Assert
+        int json = new ObjectMapper().writeValueAsBytes(libros).length;
+        int binario = frames.get(0).length;
+        assertTrue(binario < total / 8, "El bitmap comprimido ocupa menos de un bit por libro");
+        assertTrue(binario * 100 < json, "Al menos 100 veces más chico que el JSON");
+        assertEquals(items.stream().filter(BookAvailabilityItem::isDisponible).count(),
+                leerInstantanea(frames.get(0)).cardinality());
+    }
+
+    /**
+     * PRUEBA 5: Recarga del índice con la sesión conectada
+     */
+    @Test
+    void recargaDelIndice_reenviaLaInstantanea() throws Exception {
+        // Arrange
+        channel(List.of(new BookAvailabilityItem(1L, true)));
+        List<byte[]> frames = Collections.synchronizedList(new ArrayList<>());
+        channel.register(session(frames));
+        esperar(frames, 1);
+
+        // Act: la base ahora tiene el libro 1 prestado y un libro 2 disponible
+        when(bookRepository.findAvailability()).thenReturn(
+                List.of(new BookAvailabilityItem(1L, false), new BookAvailabilityItem(2L, true)));
+        index.rebuild();
+        esperar(frames, 2);
+
+        // Assert
+        assertEquals(2, frames.size());
+        BitSet bits = leerInstantanea(frames.get(1));
+        assertFalse(bits.get(1));
+        assertTrue(bits.get(2));
+        assertEquals(1, channel.getRecargas());
+    }
+}
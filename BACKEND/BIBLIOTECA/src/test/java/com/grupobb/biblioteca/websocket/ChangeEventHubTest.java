@@ -0,0 +1,391 @@
+package com.grupobb.biblioteca.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grupobb.biblioteca.dto.Book.BookResponse;
+import com.grupobb.biblioteca.dto.Loan.LoanResponse;
+import com.grupobb.biblioteca.service.event.EntityChange;
+import com.grupobb.biblioteca.service.event.EntityChangeStream;
+import com.grupobb.biblioteca.service.event.EntityType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias del hub de eventos WebSocket.
+ *
+ * Cobertura:
+ * 1. El mensaje lleva el tipo y el payload que espera el frontend (LOAN_RETURNED)
+ * 2. Los eventos repetidos de una entidad pendiente se coalescen
+ * 3. Una cola llena cierra la sesión del cliente lento
+ * 4. Un cliente lento no frena a los demás
+ * 5. La difusión a miles de sesiones entrega cada cambio a todas
+ * 6. Al reconectar con fromSeq se reenvían los deltas perdidos, en orden
+ * 7. Un hueco fuera del buffer (o de otro epoch) pide una instantánea
+ * 8. Al desbordarse con un envío bloqueado, el cierre espera a ese envío y lo hace su tarea
+ *
+ * Patrón: AAA (Arrange-Act-Assert)
+ */
+public class ChangeEventHubTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private ChangeEventHub hub;
+
+    @AfterEach
+    void tearDown() {
+        if (hub != null) {
+            hub.stop();
+        }
+    }
+
+    private ChangeEventHub hub(int capacity, int sendThreads) {
+        return hub(mock(EntityChangeStream.class), capacity, sendThreads, 4096);
+    }
+
+    private ChangeEventHub hub(EntityChangeStream stream, int capacity, int sendThreads, int replayCapacity) {
+        hub = new ChangeEventHub(stream, objectMapper, capacity, 32, sendThreads, replayCapacity, 128);
+        return hub;
+    }
+
+    // Guarda los deltas recibidos; con `control` también los mensajes SYNC_*
+    private static WebSocketSession session(String id, List<String> recibidos, List<String> control)
+            throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(inv -> {
+            WebSocketMessage<?> message = inv.getArgument(0);
+            String payload = (String) message.getPayload();
+            if (payload.startsWith("{\"type\":\"SYNC_")) {
+                control.add(payload);
+            } else {
+                recibidos.add(payload);
+            }
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+
+    private static WebSocketSession session(String id, List<String> recibidos) throws Exception {
+        return session(id, recibidos, new ArrayList<>());
+    }
+
+    // Sesión cuyos envíos quedan bloqueados hasta abrir el latch (empezando por SYNC_READY)
+    private static WebSocketSession sesionBloqueada(String id, CountDownLatch liberar, List<String> recibidos)
+            throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(inv -> {
+            liberar.await(5, TimeUnit.SECONDS);
+            WebSocketMessage<?> message = inv.getArgument(0);
+            String payload = (String) message.getPayload();
+            if (!payload.startsWith("{\"type\":\"SYNC_")) {
+                recibidos.add(payload);
+            }
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+
+    private long seq(String mensaje) throws JsonProcessingException {
+        return objectMapper.readTree(mensaje).path("seq").asLong();
+    }
+
+    private static void esperar(List<?> lista, int cantidad) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 2000;
+        while (lista.size() < cantidad && System.currentTimeMillis() < limite) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static EntityChange libro(long id, String titulo) {
+        return EntityChange.updated(EntityType.BOOK, id, new BookResponse(id, titulo, 1L, "Autor", true));
+    }
+
+    /**
+     * PRUEBA 1: Un préstamo con fecha de devolución se publica como LOAN_RETURNED
+     */
+    @Test
+    void prestamoDevuelto_publicaLoanReturned() throws Exception {
+        // Arrange
+        List<String> recibidos = Collections.synchronizedList(new ArrayList<>());
+        ChangeEventHub hub = hub(16, 1);
+        hub.register(session("s1", recibidos));
+        LoanResponse loan = new LoanResponse(5L, 2L, 9L, "Ana", "Rayuela",
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 10));
+
+        // Act
+        hub.broadcast(EntityChange.updated(EntityType.LOAN, 5L, loan));
+        assertTrue(hub.awaitIdle(2, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(1, recibidos.size());
+        JsonNode json = objectMapper.readTree(recibidos.get(0));
+        assertEquals("LOAN_RETURNED", json.path("type").asText());
+        assertEquals(5, json.path("payload").path("loanId").asLong());
+        assertEquals(2, json.path("payload").path("userId").asLong());
+        assertEquals(9, json.path("payload").path("bookId").asLong());
+        assertTrue(json.hasNonNull("timestamp") && json.hasNonNull("id"));
+    }
+
+    /**
+     * PRUEBA 2: Mientras un envío está en curso, los cambios del mismo libro se coalescen
+     */
+    @Test
+    void eventosRepetidos_seCoalescen() throws Exception {
+        // Arrange
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<String> recibidos = Collections.synchronizedList(new ArrayList<>());
+        ChangeEventHub hub = hub(16, 1);
+        hub.register(sesionBloqueada("s1", liberar, recibidos));
+        Thread.sleep(50);
+
+        // Act: SYNC_READY queda en envío, v1 en cola y los demás lo reemplazan
+        hub.broadcast(libro(1L, "v1"));
+        hub.broadcast(libro(1L, "v2"));
+        hub.broadcast(libro(1L, "v3"));
+        hub.broadcast(libro(1L, "v4"));
+        liberar.countDown();
+        assertTrue(hub.awaitIdle(2, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(3, hub.getCoalescidos());
+        assertEquals(1, recibidos.size());
+        assertTrue(recibidos.get(0).contains("v4"), "Se envía el estado más nuevo");
+    }
+
+    /**
+     * PRUEBA 3: Si la cola de la sesión se llena, se cierra la sesión y deja de recibir
+     */
+    @Test
+    void colaLlena_cierraLaSesion() throws Exception {
+        // Arrange
+        CountDownLatch liberar = new CountDownLatch(1);
+        WebSocketSession lenta = sesionBloqueada("lenta", liberar, new ArrayList<>());
+        ChangeEventHub hub = hub(2, 1);
+        hub.register(lenta);
+        Thread.sleep(50);
+
+        // Act: SYNC_READY en envío, dos en cola y el tercero desborda
+        hub.broadcast(libro(1L, "a"));
+        hub.broadcast(libro(2L, "b"));
+        hub.broadcast(libro(3L, "c"));
+        liberar.countDown();
+
+        // Assert
+        verify(lenta, timeout(1000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1, hub.getDesbordados());
+        assertEquals(0, hub.getSesiones());
+    }
+
+    /**
+     * PRUEBA 4: Un cliente bloqueado no demora la entrega a los demás
+     */
+    @Test
+    void clienteLento_noFrenaALosDemas() throws Exception {
+        // Arrange
+        CountDownLatch liberar = new CountDownLatch(1);
+        ChangeEventHub hub = hub(64, 2);
+        hub.register(sesionBloqueada("lenta", liberar, new ArrayList<>()));
+        List<List<String>> rapidas = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            List<String> recibidos = Collections.synchronizedList(new ArrayList<>());
+            rapidas.add(recibidos);
+            hub.register(session("rapida-" + i, recibidos));
+        }
+
+        // Act
+        for (long id = 1; id <= 10; id++) {
+            hub.broadcast(libro(id, "libro " + id));
+        }
+        long limite = System.currentTimeMillis() + 2000;
+        while (rapidas.stream().anyMatch(r -> r.size() < 10) && System.currentTimeMillis() < limite) {
+            Thread.sleep(5);
+        }
+        liberar.countDown();
+
+        // Assert
+        rapidas.forEach(r -> assertEquals(10, r.size(), "Las sesiones rápidas reciben todo"));
+    }
+
+    /**
+     * PRUEBA 5: Carga - cada cambio llega una vez a cada una de 2000 sesiones locales
+     */
+    @Test
+    void difusion_aMilesDeSesiones_entregaTodoACadaUna() throws Exception {
+        // Arrange
+        int sesiones = 2000;
+        int eventos = 5;
+        ChangeEventHub hub = hub(64, 4);
+        AtomicIntegerArray entregas = new AtomicIntegerArray(sesiones);
+        for (int i = 0; i < sesiones; i++) {
+            int indice = i;
+            WebSocketSession session = mock(WebSocketSession.class);
+            when(session.getId()).thenReturn("s" + i);
+            when(session.isOpen()).thenReturn(true);
+            doAnswer(inv -> {
+                entregas.incrementAndGet(indice);
+                return null;
+            }).when(session).sendMessage(any(TextMessage.class));
+            hub.register(session);
+        }
+        assertTrue(hub.awaitIdle(10, TimeUnit.SECONDS), "SYNC_READY entregado a todas");
+
+        // Act
+        for (long id = 1; id <= eventos; id++) {
+            hub.broadcast(libro(id, "libro " + id));
+        }
+        assertTrue(hub.awaitIdle(10, TimeUnit.SECONDS), "Las colas se vacían");
+
+        // Assert: SYNC_READY más cada evento, sin pérdidas ni duplicados
+        for (int i = 0; i < sesiones; i++) {
+            assertEquals(eventos + 1, entregas.get(i), "Entregas de la sesión s" + i);
+        }
+        assertEquals((long) sesiones * eventos, hub.getEncolados());
+    }
+
+    /**
+     * PRUEBA 6: Una sesión que reconecta desde seq=2 recibe 3, 4 y 5 antes que lo nuevo
+     */
+    @Test
+    void reconexion_reenviaLosDeltasPerdidos() throws Exception {
+        // Arrange: una sesión conectada ve pasar cinco cambios
+        EntityChangeStream stream = new EntityChangeStream();
+        ChangeEventHub hub = hub(stream, 64, 2, 4096);
+        hub.start();
+        List<String> observador = Collections.synchronizedList(new ArrayList<>());
+        hub.register(session("observador", observador));
+        for (long id = 1; id <= 5; id++) {
+            stream.publish(libro(id, "libro " + id));
+        }
+        esperar(observador, 5);
+
+        // Act: otra sesión vuelve con el último seq que aplicó
+        List<String> recibidos = Collections.synchronizedList(new ArrayList<>());
+        List<String> control = Collections.synchronizedList(new ArrayList<>());
+        hub.register(session("reconecta", recibidos, control), 2L, stream.epoch());
+        stream.publish(libro(6L, "libro 6"));
+        esperar(recibidos, 4);
+
+        // Assert
+        JsonNode ready = objectMapper.readTree(control.get(0));
+        assertEquals("SYNC_READY", ready.path("type").asText());
+        assertEquals(3, ready.path("payload").path("replayed").asInt());
+        List<Long> secuencias = new ArrayList<>();
+        for (String mensaje : recibidos) {
+            secuencias.add(seq(mensaje));
+        }
+        assertEquals(List.of(3L, 4L, 5L, 6L), secuencias);
+        assertEquals(3, hub.getReenviados());
+    }
+
+    /**
+     * PRUEBA 7: Si el hueco ya salió del buffer o el epoch es otro, se pide una instantánea
+     */
+    @Test
+    void huecoFueraDelBuffer_pideInstantanea() throws Exception {
+        // Arrange: buffer de solo 2 deltas
+        EntityChangeStream stream = new EntityChangeStream();
+        ChangeEventHub hub = hub(stream, 64, 2, 2);
+        hub.start();
+        List<String> observador = Collections.synchronizedList(new ArrayList<>());
+        hub.register(session("observador", observador));
+        for (long id = 1; id <= 5; id++) {
+            stream.publish(libro(id, "libro " + id));
+        }
+        esperar(observador, 5);
+
+        // Act
+        List<String> viejo = Collections.synchronizedList(new ArrayList<>());
+        List<String> otroEpoch = Collections.synchronizedList(new ArrayList<>());
+        List<String> reciente = Collections.synchronizedList(new ArrayList<>());
+        hub.register(session("viejo", new ArrayList<>(), viejo), 1L, stream.epoch());
+        hub.register(session("otro-epoch", new ArrayList<>(), otroEpoch), 4L, "otro");
+        hub.register(session("reciente", new ArrayList<>(), reciente), 4L, stream.epoch());
+        assertTrue(hub.awaitIdle(2, TimeUnit.SECONDS));
+
+        // Assert
+        JsonNode snapshot = objectMapper.readTree(viejo.get(0));
+        assertEquals("SYNC_SNAPSHOT_REQUIRED", snapshot.path("type").asText());
+        assertEquals(5, snapshot.path("payload").path("seq").asLong());
+        assertEquals(ChangeEventHub.SNAPSHOT_URL, snapshot.path("payload").path("snapshot").asText());
+        assertTrue(otroEpoch.get(0).contains("SYNC_SNAPSHOT_REQUIRED"));
+        assertTrue(reciente.get(0).contains("SYNC_READY"));
+        assertEquals(2, hub.getResincronizaciones());
+    }
+
+    /**
+     * PRUEBA 8: Si la cola se llena con un envío bloqueado, la sesión no se cierra hasta que
+     * ese envío termina, y la cierra su tarea de envío (no el hilo que difunde)
+     */
+    @Test
+    void colaLlenaConEnvioBloqueado_cierraAlTerminarElEnvio() throws Exception {
+        // Arrange
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicBoolean enviando = new AtomicBoolean();
+        AtomicBoolean cierreDuranteEnvio = new AtomicBoolean();
+        AtomicReference<String> hiloDelCierre = new AtomicReference<>();
+        WebSocketSession lenta = mock(WebSocketSession.class);
+        when(lenta.getId()).thenReturn("lenta");
+        when(lenta.isOpen()).thenReturn(true);
+        doAnswer(inv -> {
+            enviando.set(true);
+            try {
+                liberar.await(5, TimeUnit.SECONDS);
+            } finally {
+                enviando.set(false);
+            }
+            return null;
+        }).when(lenta).sendMessage(any());
+        doAnswer(inv -> {
+            cierreDuranteEnvio.set(enviando.get());
+            hiloDelCierre.set(Thread.currentThread().getName());
+            return null;
+        }).when(lenta).close(any());
+        ChangeEventHub hub = hub(2, 1);
+        hub.register(lenta);
+        Thread.sleep(50);
+
+        // Act: SYNC_READY bloqueado en envío, dos en cola y el tercero desborda
+        hub.broadcast(libro(1L, "a"));
+        hub.broadcast(libro(2L, "b"));
+        hub.broadcast(libro(3L, "c"));
+
+        // Assert: mientras el envío sigue bloqueado nadie cierra la sesión
+        verify(lenta, after(200).never()).close(any());
+        assertEquals(1, hub.getDesbordados());
+        assertEquals(0, hub.getSesiones());
+
+        liberar.countDown();
+        verify(lenta, timeout(1000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertFalse(cierreDuranteEnvio.get(), "El cierre no se solapa con un envío");
+        assertTrue(hiloDelCierre.get().startsWith("ws-send-"), "Cierra la tarea de envío de la sesión");
+    }
+}
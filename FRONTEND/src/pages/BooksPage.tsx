@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from "react";
 import { useForm } from "react-hook-form";
-import { Plus, Edit2, Trash2, BookOpen } from "lucide-react";
+import { Plus, Edit2, Trash2, BookOpen, Search } from "lucide-react";
 import { Modal } from "../components/ui/Modal";
 import { AlertMessage } from "../components/ui/AlertMessage";
 
@@ -30,6 +30,10 @@ export const BooksPage: React.FC = () => {
   const [success, setSuccess] = useState<string | null>(null);
   const [error, setError] = useState<string | null>(null);
 
+  // Búsqueda en el servidor; null = sin búsqueda activa (se muestra el catálogo completo)
+  const [query, setQuery] = useState("");
+  const [searchResults, setSearchResults] = useState<Book[] | null>(null);
+
   const {
     register,
     handleSubmit,
@@ -42,6 +46,24 @@ export const BooksPage: React.FC = () => {
     loadAuthors();
   }, []);
 
+  // Consulta con un pequeño retardo para no pedir en cada tecla
+  useEffect(() => {
+    const q = query.trim();
+    if (!q) {
+      setSearchResults(null);
+      return;
+    }
+    const timer = setTimeout(() => {
+      bookService
+        .search(q)
+        .then(setSearchResults)
+        .catch(() => setError("Error buscando libros"));
+    }, 250);
+    return () => clearTimeout(timer);
+  }, [query, books]);
+
+  const visibleBooks = searchResults ?? books;
+
   useEventBus("BOOK_CREATED", () => {
     loadBooks();
     setSuccess("Libro creado en tiempo real");
@@ -235,6 +257,20 @@ export const BooksPage: React.FC = () => {
           </button>
         </div>
 
+        {/* Búsqueda */}
+        <div className="input-group mb-4 shadow-sm">
+          <span className="input-group-text bg-white">
+            <Search size={18} className="text-primary" />
+          </span>
+          <input
+            type="search"
+            className="form-control"
+            placeholder="Buscar por título o autor..."
+            value={query}
+            onChange={(e) => setQuery(e.target.value)}
+          />
+        </div>
+
         {/* Listado */}
         {loading && books.length === 0 ? (
           <div className="text-center py-5">
@@ -249,6 +285,12 @@ export const BooksPage: React.FC = () => {
               Cargando libros...
             </p>
           </div>
+        ) : searchResults !== null && visibleBooks.length === 0 ? (
+          <div className="text-center py-5 bg-white rounded-4 shadow-lg">
+            <p className="text-secondary fs-5 fw-semibold mb-0">
+              No se encontraron libros para "{query}"
+            </p>
+          </div>
         ) : books.length === 0 ? (
           <div className="text-center py-5 bg-white rounded-4 shadow-lg">
             <div
@@ -273,7 +315,7 @@ export const BooksPage: React.FC = () => {
           </div>
         ) : (
           <div className="row g-4">
-            {books.map((book) => (
+            {visibleBooks.map((book) => (
               <div key={book.id} className="col-12 col-sm-6 col-md-4 col-lg-3">
                 <div className="card h-100 shadow-lg border-0 rounded-3 hover:shadow-xl transition-all">
                   <div
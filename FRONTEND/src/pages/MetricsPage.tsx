@@ -2,12 +2,14 @@ import React, { useState, useMemo } from 'react';
 import { Activity, TrendingUp, Zap, AlertCircle, Clock, Users, BookOpen, FileText, Wifi, WifiOff } from 'lucide-react';
 import { useSystemMetrics, useEventBus } from '../hooks/useEventBus';
 import { useWebSocket } from '../services/websocketService';
+import { useServerMetrics } from '../services/metricsStream';
 // import { ReactiveMetrics } from '../components/ui/ReactiveMetrics';
 
 export const MetricsPage: React.FC = () => {
   const [refreshInterval, setRefreshInterval] = useState(1000);
   const metrics = useSystemMetrics();
   const { readyState } = useWebSocket();
+  const { metrics: server, connected: serverConnected } = useServerMetrics();
 
   // Suscribir a eventos del sistema
   useEventBus('SYSTEM_EVENT', (event) => {
@@ -24,6 +26,24 @@ export const MetricsPage: React.FC = () => {
     }
   };
 
+  // Valores del servidor (stream SSE); '—' hasta recibir la primera muestra
+  const serverStats = useMemo(() => {
+    if (!server) {
+      return { requests: '—', analysis: '—', latency: '—', errorRate: '—', slowest: '' };
+    }
+    const slowest = server.routes[0];
+    const errorRate = server.requests_per_second > 0
+      ? (server.errors_per_second / server.requests_per_second) * 100
+      : 0;
+    return {
+      requests: server.requests_per_second.toFixed(1),
+      analysis: server.analysis.throughput_per_second.toLocaleString(),
+      latency: slowest ? `${Math.round(slowest.p99)}ms` : '0ms',
+      errorRate: `${errorRate.toFixed(1)}%`,
+      slowest: slowest ? `${slowest.method} ${slowest.uri}` : ''
+    };
+  }, [server]);
+
   const wsStatus = getWebSocketStatus();
   const StatusIcon = wsStatus.icon;
 
@@ -64,43 +84,62 @@ export const MetricsPage: React.FC = () => {
 
       {/* Componente de Métricas Reactivas */}
       <div className="card border-0 shadow-sm mb-4">
-        <div className="card-header bg-white border-0 py-3">
+        <div className="card-header bg-white border-0 py-3 d-flex justify-content-between align-items-center">
           <h5 className="fw-bold mb-0 d-flex align-items-center">
             <Activity className="text-primary me-2" size={20} />
-            Métricas del Sistema Reactivo
+            Métricas del Servidor
           </h5>
+          <small className={serverConnected ? 'text-success' : 'text-muted'}>
+            {serverConnected ? 'En vivo' : 'Sin conexión'}
+          </small>
         </div>
         <div className="card-body">
           <div className="row g-3">
             <div className="col-md-3">
               <div className="text-center p-3 bg-light rounded">
                 <TrendingUp className="text-success mb-2" size={24} />
-                <h4 className="fw-bold text-success mb-1">98.5%</h4>
-                <p className="text-muted small mb-0">Rendimiento</p>
+                <h4 className="fw-bold text-success mb-1">{serverStats.analysis}</h4>
+                <p className="text-muted small mb-0">Análisis/seg</p>
               </div>
             </div>
             <div className="col-md-3">
               <div className="text-center p-3 bg-light rounded">
                 <Zap className="text-warning mb-2" size={24} />
-                <h4 className="fw-bold text-warning mb-1">1,247</h4>
-                <p className="text-muted small mb-0">Eventos/seg</p>
+                <h4 className="fw-bold text-warning mb-1">{serverStats.requests}</h4>
+                <p className="text-muted small mb-0">Peticiones/seg</p>
               </div>
             </div>
             <div className="col-md-3">
               <div className="text-center p-3 bg-light rounded">
                 <Activity className="text-info mb-2" size={24} />
-                <h4 className="fw-bold text-info mb-1">42ms</h4>
-                <p className="text-muted small mb-0">Latencia</p>
+                <h4 className="fw-bold text-info mb-1">{serverStats.latency}</h4>
+                <p className="text-muted small mb-0" title={serverStats.slowest}>Latencia p99</p>
               </div>
             </div>
             <div className="col-md-3">
               <div className="text-center p-3 bg-light rounded">
                 <AlertCircle className="text-danger mb-2" size={24} />
-                <h4 className="fw-bold text-danger mb-1">0.2%</h4>
+                <h4 className="fw-bold text-danger mb-1">{serverStats.errorRate}</h4>
                 <p className="text-muted small mb-0">Error Rate</p>
               </div>
             </div>
           </div>
+          {server && server.pools.length > 0 && (
+            <div className="row g-3 mt-1">
+              {server.pools.map(pool => (
+                <div className="col-md-3" key={pool.name}>
+                  <div className="d-flex justify-content-between small text-muted">
+                    <span>Pool {pool.name}</span>
+                    <span>{pool.active}/{pool.max} activos · {pool.pending} en espera</span>
+                  </div>
+                  <div className="progress mt-1" style={{height: 4}}>
+                    <div className="progress-bar bg-info"
+                         style={{width: `${pool.max > 0 ? Math.min(pool.active / pool.max * 100, 100) : 0}%`}}></div>
+                  </div>
+                </div>
+              ))}
+            </div>
+          )}
         </div>
       </div>
 
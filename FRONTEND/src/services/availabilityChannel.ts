@@ -0,0 +1,125 @@
+import { BehaviorSubject, Observable } from 'rxjs';
+
+// Canal binario /ws/availability: bitmap de libros disponibles (pantallas de consulta)
+// Instantánea: [0x01][seq int64][bits int32][bitmap zlib]
+// Delta:       [0x02][seq int64][n varint][n x varint(id << 1 | disponible)]
+const SNAPSHOT = 0x01;
+const DELTA = 0x02;
+
+export class AvailabilityChannel {
+  private ws: WebSocket | null = null;
+  private bitmap = new Uint8Array(0);
+  private seq = 0;
+  private version$ = new BehaviorSubject<number>(0);
+  private reconnectTimer: ReturnType<typeof setTimeout> | null = null;
+  // Los frames se aplican en orden aunque descomprimir la instantánea sea asíncrono
+  private pending: Promise<void> = Promise.resolve();
+
+  private url: string;
+  private reconnectInterval: number;
+
+  constructor(
+    url = `${import.meta.env.VITE_WS_URL || 'ws://localhost:8080/ws'}/availability`,
+    reconnectInterval = 3000
+  ) {
+    this.url = url;
+    this.reconnectInterval = reconnectInterval;
+  }
+
+  connect(): void {
+    this.ws = new WebSocket(this.url);
+    this.ws.binaryType = 'arraybuffer';
+
+    this.ws.onmessage = (event) => {
+      const frame = new Uint8Array(event.data as ArrayBuffer);
+      this.pending = this.pending.then(() => this.handleFrame(frame)).catch(error => {
+        console.error('[Disponibilidad] Frame inválido:', error);
+      });
+    };
+
+    // Al reconectar el servidor envía una instantánea nueva
+    this.ws.onclose = () => {
+      this.reconnectTimer = setTimeout(() => this.connect(), this.reconnectInterval);
+    };
+  }
+
+  disconnect(): void {
+    if (this.reconnectTimer) {
+      clearTimeout(this.reconnectTimer);
+      this.reconnectTimer = null;
+    }
+    if (this.ws) {
+      this.ws.onclose = null;
+      this.ws.close();
+      this.ws = null;
+    }
+  }
+
+  isAvailable(bookId: number): boolean {
+    const byte = bookId >> 3;
+    return byte < this.bitmap.length && (this.bitmap[byte] & (1 << (bookId & 7))) !== 0;
+  }
+
+  // Emite la secuencia aplicada cada vez que cambia el bitmap
+  changes$(): Observable<number> {
+    return this.version$.asObservable();
+  }
+
+  private async handleFrame(frame: Uint8Array) {
+    const view = new DataView(frame.buffer, frame.byteOffset, frame.byteLength);
+    const type = frame[0];
+    const seq = Number(view.getBigInt64(1));
+
+    if (type === SNAPSHOT) {
+      const bits = view.getInt32(9);
+      const inflated = await inflate(frame.subarray(13));
+      this.bitmap = new Uint8Array(Math.ceil(bits / 8));
+      this.bitmap.set(inflated.subarray(0, this.bitmap.length));
+      this.seq = seq;
+      this.version$.next(seq);
+      return;
+    }
+
+    if (type === DELTA && seq > this.seq) {
+      let offset = 9;
+      const next = () => {
+        let value = 0;
+        let shift = 0;
+        let byte: number;
+        do {
+          byte = frame[offset++];
+          value += (byte & 0x7f) * 2 ** shift;
+          shift += 7;
+        } while (byte & 0x80);
+        return value;
+      };
+      const count = next();
+      for (let i = 0; i < count; i++) {
+        const change = next();
+        this.set(Math.floor(change / 2), change % 2 === 1);
+      }
+      this.seq = seq;
+      this.version$.next(seq);
+    }
+  }
+
+  private set(bookId: number, available: boolean) {
+    const byte = bookId >> 3;
+    if (byte >= this.bitmap.length) {
+      const grown = new Uint8Array(byte + 1);
+      grown.set(this.bitmap);
+      this.bitmap = grown;
+    }
+    if (available) {
+      this.bitmap[byte] |= 1 << (bookId & 7);
+    } else {
+      this.bitmap[byte] &= ~(1 << (bookId & 7));
+    }
+  }
+}
+
+// El servidor comprime con zlib (java.util.zip.Deflater), formato 'deflate' del navegador
+async function inflate(data: Uint8Array): Promise<Uint8Array> {
+  const stream = new Blob([data]).stream().pipeThrough(new DecompressionStream('deflate'));
+  return new Uint8Array(await new Response(stream).arrayBuffer());
+}
@@ -1,5 +1,5 @@
 import api from './api';
-import type { Book, BookFormData } from '../types';
+import type { Book, BookAvailabilitySnapshot, BookFormData } from '../types';
 
 export const bookService = {
   // Obtener todos los libros
@@ -8,6 +8,18 @@ export const bookService = {
     return response.data;
   },
 
+  // Buscar libros por título o autor (ordenados por relevancia en el servidor)
+  search: async (q: string, limit = 20): Promise<Book[]> => {
+    const response = await api.get<Book[]>('/books/search', { params: { q, limit } });
+    return response.data;
+  },
+
+  // Id y disponibilidad de todos los libros, con la secuencia del WebSocket
+  getAvailability: async (): Promise<BookAvailabilitySnapshot> => {
+    const response = await api.get<BookAvailabilitySnapshot>('/books/availability');
+    return response.data;
+  },
+
   // Obtener libro por ID
   getById: async (id: number): Promise<Book> => {
     const response = await api.get<Book>(`/books/${id}`);
@@ -7,18 +7,23 @@ export interface Event {
   payload?: unknown;
   timestamp: number;
   id: string;
+  // Secuencia del servidor (solo en deltas recibidos por WebSocket)
+  seq?: number;
 }
 
 export interface LoanEvent extends Event {
   type:
     | "LOAN_CREATED"
+    | "LOAN_UPDATED"
     | "LOAN_RETURNED"
+    | "LOAN_DELETED"
     | "LOAN_ANALYSIS_STARTED"
     | "LOAN_ANALYSIS_COMPLETED";
   payload: {
     loanId?: number;
     userId?: number;
     bookId?: number;
+    data?: unknown;
     metrics?: {
       processed: number;
       errors: number;
@@ -31,6 +36,7 @@ export interface BookEvent extends Event {
   type: "BOOK_CREATED" | "BOOK_UPDATED" | "BOOK_DELETED";
   payload: {
     bookId: number;
+    data?: unknown;
   };
 }
 
@@ -138,7 +144,9 @@ export class EventBus {
   private processEvent(event: Event) {
     switch (event.type) {
       case "LOAN_CREATED":
+      case "LOAN_UPDATED":
       case "LOAN_RETURNED":
+      case "LOAN_DELETED":
         console.log(
           `[EventBus] Evento de préstamo: ${event.type}`,
           event.payload
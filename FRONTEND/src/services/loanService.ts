@@ -1,13 +1,25 @@
 import api from './api';
-import type { Loan, LoanFormData } from '../types';
+import type { Loan, LoanFormData, LoanPage } from '../types';
 
 export const loanService = {
-  // Obtener todos los préstamos
-  getAll: async (): Promise<Loan[]> => {
-    const response = await api.get<Loan[]>('/loans');
+  // Obtener una página de préstamos a partir de un cursor
+  getPage: async (after?: number, limit = 200): Promise<LoanPage> => {
+    const response = await api.get<LoanPage>('/loans', { params: { after, limit } });
     return response.data;
   },
 
+  // Obtener todos los préstamos recorriendo las páginas por cursor
+  getAll: async (): Promise<Loan[]> => {
+    const loans: Loan[] = [];
+    let cursor: number | undefined;
+    do {
+      const page = await loanService.getPage(cursor);
+      loans.push(...page.items);
+      cursor = page.next_cursor ?? undefined;
+    } while (cursor !== undefined);
+    return loans;
+  },
+
   // Obtener préstamo por ID
   getById: async (id: number): Promise<Loan> => {
     const response = await api.get<Loan>(`/loans/${id}`);
@@ -0,0 +1,30 @@
+import { useEffect, useState } from 'react';
+import type { ServerMetrics } from '../types';
+
+// Stream SSE de métricas del servidor: una muestra cada pocos segundos, compartida
+// en el backend por todos los dashboards abiertos
+const STREAM_URL = `${import.meta.env.VITE_API_URL || 'https://proyecto-avanzada-p1.onrender.com/api'}/metrics/stream`;
+
+// EventSource reconecta solo (el servidor indica retry) y al volver recibe la última muestra
+export function useServerMetrics(): { metrics: ServerMetrics | null; connected: boolean } {
+  const [metrics, setMetrics] = useState<ServerMetrics | null>(null);
+  const [connected, setConnected] = useState(false);
+
+  useEffect(() => {
+    const source = new EventSource(STREAM_URL);
+
+    source.onopen = () => setConnected(true);
+    source.onerror = () => setConnected(false);
+    source.addEventListener('metrics', (event) => {
+      try {
+        setMetrics(JSON.parse((event as MessageEvent<string>).data) as ServerMetrics);
+      } catch (error) {
+        console.error('[Métricas] Muestra inválida:', error);
+      }
+    });
+
+    return () => source.close();
+  }, []);
+
+  return { metrics, connected };
+}
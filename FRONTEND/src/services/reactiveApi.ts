@@ -1,6 +1,7 @@
 import { Observable, from, throwError } from 'rxjs';
 import { map, catchError, timeout, retry, delay } from 'rxjs/operators';
 import api from './api';
+import { loanService } from './loanService';
 import { eventBus } from './eventBus';
 
 // Configuración para operaciones reactivas
@@ -59,7 +60,7 @@ export class ReactiveApiService {
 
   getLoansReactive(): Observable<unknown[]> {
     return this.createObservable(
-        api.get('/loans').then(response => response.data),
+        loanService.getAll(),
         'GET_LOANS'
     );
   }
@@ -1,7 +1,8 @@
 import React from 'react';
-import { Subject, Observable, Subscription } from 'rxjs';
+import { BehaviorSubject, Subject, Observable, Subscription } from 'rxjs';
 import { filter, map, retry, timeout } from 'rxjs/operators';
-import { eventBus, type LoanEvent, type SystemEvent } from './eventBus';
+import { eventBus, type BookEvent, type LoanEvent, type SystemEvent } from './eventBus';
+import { bookService } from './bookService';
 
 // Configuración del WebSocket
 interface WebSocketConfig {
@@ -16,6 +17,14 @@ interface WebSocketMessage {
   payload: unknown;
   timestamp: number;
   id: string;
+  seq?: number;
+}
+
+// Mensajes de control de la sincronización por secuencia
+interface SyncPayload {
+  seq: number;
+  epoch: string;
+  replayed?: number;
 }
 
 export class WebSocketService {
@@ -27,6 +36,14 @@ export class WebSocketService {
   private reconnectTimer: ReturnType<typeof setTimeout> | null = null;
   private subscriptions = new Map<string, Subscription>();
 
+  // Última secuencia aplicada y ejecución del servidor a la que pertenece
+  private lastSeq: number | null = null;
+  private epoch: string | null = null;
+  // Espejo de la disponibilidad de libros (id -> disponible)
+  private availability$ = new BehaviorSubject<Map<number, boolean>>(new Map());
+  // Deltas de libros recibidos mientras se descarga la instantánea (null si no hay descarga)
+  private pendingBookDeltas: BookEvent[] | null = null;
+
   private constructor() {
     this.config = {
       url: import.meta.env.VITE_WS_URL || 'ws://localhost:8080',
@@ -46,7 +63,7 @@ export class WebSocketService {
   connect(): Promise<void> {
     return new Promise((resolve, reject) => {
       try {
-        this.ws = new WebSocket(this.config.url);
+        this.ws = new WebSocket(this.buildUrl());
 
         this.ws.onopen = () => {
           console.log('[WebSocket] Conectado exitosamente');
@@ -75,6 +92,9 @@ export class WebSocketService {
             }
 
             const message: WebSocketMessage = JSON.parse(data);
+            if (!this.applySequence(message)) {
+              return;
+            }
             this.messages$.next(message);
 
           } catch (error) {
@@ -125,6 +145,18 @@ export class WebSocketService {
       }
     });
 
+    this.messages$.pipe(
+      filter(msg => msg.type.startsWith('BOOK_')),
+      map(msg => msg as BookEvent)
+    ).subscribe({
+      next: (bookEvent) => {
+        eventBus.publishBookEvent(bookEvent.type, bookEvent.payload);
+      },
+      error: (error) => {
+        console.error('[WebSocket] Error procesando evento de libro:', error);
+      }
+    });
+
     this.messages$.pipe(
       filter(msg => msg.type.startsWith('SYSTEM_')),
       map(msg => msg as SystemEvent)
@@ -142,6 +174,83 @@ export class WebSocketService {
     });
   }
 
+  // Al reconectar se pide desde la última secuencia aplicada
+  private buildUrl(): string {
+    if (this.lastSeq === null || this.epoch === null) {
+      return this.config.url;
+    }
+    const separator = this.config.url.includes('?') ? '&' : '?';
+    return `${this.config.url}${separator}fromSeq=${this.lastSeq}&epoch=${encodeURIComponent(this.epoch)}`;
+  }
+
+  // Devuelve false si el mensaje ya estaba aplicado (duplicado tras una resincronización)
+  private applySequence(message: WebSocketMessage): boolean {
+    if (message.type === 'SYNC_READY') {
+      const sync = message.payload as SyncPayload;
+      const primeraVez = this.lastSeq === null;
+      if (primeraVez) {
+        this.lastSeq = sync.seq;
+      }
+      this.epoch = sync.epoch;
+      if (primeraVez) {
+        // Estado inicial del espejo; lo que llegue después se aplica como delta
+        this.resync();
+      }
+      return true;
+    }
+    if (message.type === 'SYNC_SNAPSHOT_REQUIRED') {
+      this.resync();
+      return true;
+    }
+    if (message.seq === undefined) {
+      return true;
+    }
+    if (this.lastSeq !== null && message.seq <= this.lastSeq) {
+      return false;
+    }
+    this.lastSeq = message.seq;
+    if (message.type.startsWith('BOOK_')) {
+      if (this.pendingBookDeltas) {
+        this.pendingBookDeltas.push(message as BookEvent);
+      } else {
+        this.applyBookDelta(message as BookEvent);
+      }
+    }
+    return true;
+  }
+
+  private applyBookDelta(event: BookEvent) {
+    const mirror = new Map(this.availability$.value);
+    const data = event.payload.data as { disponible?: boolean } | undefined;
+    if (event.type === 'BOOK_DELETED') {
+      mirror.delete(event.payload.bookId);
+    } else if (data?.disponible !== undefined) {
+      mirror.set(event.payload.bookId, data.disponible);
+    }
+    this.availability$.next(mirror);
+  }
+
+  // El servidor no puede reenviar lo perdido: se reemplaza el espejo por la instantánea
+  private async resync() {
+    if (this.pendingBookDeltas) {
+      return;
+    }
+    this.pendingBookDeltas = [];
+    try {
+      const snapshot = await bookService.getAvailability();
+      this.availability$.next(new Map(snapshot.items.map(item => [item.id, item.disponible])));
+      // Los deltas con seq <= snapshot.seq ya están incluidos en la instantánea
+      const posteriores = this.pendingBookDeltas.filter(event => (event.seq ?? 0) > snapshot.seq);
+      this.pendingBookDeltas = null;
+      posteriores.forEach(event => this.applyBookDelta(event));
+      this.lastSeq = Math.max(this.lastSeq ?? 0, snapshot.seq);
+      this.epoch = snapshot.epoch;
+    } catch (error) {
+      this.pendingBookDeltas = null;
+      console.error('[WebSocket] Error obteniendo la instantánea de disponibilidad:', error);
+    }
+  }
+
   private handleReconnect() {
     if (this.reconnectAttempts < this.config.maxReconnectAttempts) {
       this.reconnectAttempts++;
@@ -194,6 +303,11 @@ export class WebSocketService {
     return subscription;
   }
 
+  // Disponibilidad de libros mantenida con deltas (sin recargar el listado)
+  getAvailability$(): Observable<Map<number, boolean>> {
+    return this.availability$.asObservable();
+  }
+
   // Obtener observable de mensajes
   getMessages$(): Observable<WebSocketMessage> {
     return this.messages$.asObservable();
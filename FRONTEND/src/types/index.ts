@@ -31,6 +31,13 @@ export interface Book {
   disponible: boolean;
 }
 
+// Instantánea compacta de disponibilidad (resincronización del WebSocket)
+export interface BookAvailabilitySnapshot {
+  seq: number;
+  epoch: string;
+  items: { id: number; disponible: boolean }[];
+}
+
 export interface BookFormData {
   titulo: string;
   autorId: number;
@@ -47,11 +54,52 @@ export interface Loan {
 }
 
 
+// Página de préstamos obtenida por cursor (GET /loans?after=&limit=)
+export interface LoanPage {
+  items: Loan[];
+  next_cursor?: number | null;
+}
+
 export interface LoanFormData {
   usuarioId: number;
   libroId: number;
 }
 
+// Muestra periódica de métricas del servidor (SSE GET /metrics/stream)
+export interface RouteLatency {
+  method: string;
+  uri: string;
+  count: number;
+  p50: number;
+  p95: number;
+  p99: number;
+  max: number;
+}
+
+export interface PoolUsage {
+  name: string;
+  active: number;
+  idle: number;
+  pending: number;
+  max: number;
+}
+
+export interface ServerMetrics {
+  timestamp: number;
+  requests_per_second: number;
+  errors_per_second: number;
+  routes: RouteLatency[];
+  analysis: {
+    queue_depth: number;
+    running: number;
+    processed: number;
+    throughput_per_second: number;
+    queue_lag_ms: number;
+  };
+  pools: PoolUsage[];
+  web_socket_sessions: number;
+}
+
 // Tipos de respuesta de la API
 export interface ApiError {
   timestamp: string;